@@ -0,0 +1,58 @@
+package com.tickets.config;
+
+import com.tickets.model.TimetableSearchResult;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Writes pre-encoded timetable search results straight to the response body, ahead of Jackson.
+ */
+@Configuration
+public class TimetableSearchResultConfig implements WebMvcConfigurer {
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(0, new TimetableSearchResultConverter());
+    }
+
+    private static final class TimetableSearchResultConverter extends AbstractHttpMessageConverter<TimetableSearchResult> {
+
+        private TimetableSearchResultConverter() {
+            super(MediaType.APPLICATION_JSON);
+        }
+
+        @Override
+        protected boolean supports(Class<?> type) {
+            return TimetableSearchResult.class.isAssignableFrom(type);
+        }
+
+        @Override
+        protected boolean canRead(MediaType mediaType) {
+            return false;
+        }
+
+        @Override
+        protected TimetableSearchResult readInternal(Class<? extends TimetableSearchResult> type, HttpInputMessage inputMessage) {
+            throw new HttpMessageNotReadableException("Timetable search results are not read", inputMessage);
+        }
+
+        @Override
+        protected Long getContentLength(TimetableSearchResult result, MediaType contentType) {
+            return (long) result.getContentLength();
+        }
+
+        @Override
+        protected void writeInternal(TimetableSearchResult result, HttpOutputMessage outputMessage) throws IOException {
+            result.writeTo(outputMessage.getBody());
+        }
+    }
+}
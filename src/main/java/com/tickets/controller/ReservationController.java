@@ -3,8 +3,14 @@ package com.tickets.controller;
 import com.tickets.model.*;
 import com.tickets.model.enums.SeatType;
 import com.tickets.model.enums.Station;
+import com.tickets.service.JourneyPlannerService;
+import com.tickets.service.NdjsonExportService;
+import com.tickets.service.ReservationQueueService;
+import com.tickets.service.ReservationTicketService;
 import com.tickets.service.ReservationService;
-import com.tickets.service.SeatService;
+import com.tickets.service.SeatDeltaFeed;
+import com.tickets.service.SeatHoldService;
+import com.tickets.service.TimetableSearchEncoder;
 import com.tickets.service.TimetableService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.ArraySchema;
@@ -12,15 +18,27 @@ import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.dao.DataAccessException;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.net.URI;
+import java.time.Duration;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeoutException;
 
 /**
  * Rest Controller responsible for handling reservations.
@@ -37,29 +55,78 @@ public class ReservationController {
      */
     private final TimetableService timetableService;
     /**
-     * Service for managing seats.
+     * Service for planning journeys with transfers.
      */
-    private final SeatService seatService;
+    private final JourneyPlannerService journeyPlannerService;
     /**
-     * Date and time formatter for consistent date-time formatting.
+     * Service for queueing reservations per timetable.
      */
-    private final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm");
+    private final ReservationQueueService reservationQueueService;
+    /**
+     * Service for accepting reservations asynchronously.
+     */
+    private final ReservationTicketService reservationTicketService;
+    /**
+     * Service for holding seats until payment completes.
+     */
+    private final SeatHoldService seatHoldService;
+    /**
+     * Service for exporting whole tables.
+     */
+    private final NdjsonExportService ndjsonExportService;
+    /**
+     * Encoder of timetable search results.
+     */
+    private final TimetableSearchEncoder timetableSearchEncoder;
+    /**
+     * Feed of seat changes per timetable.
+     */
+    private final SeatDeltaFeed seatDeltaFeed;
+    /**
+     * How long a client waits on the events of a ticket before the stream is closed, in milliseconds.
+     */
+    private final long ticketEventsTimeout;
+    /**
+     * Request header carrying the secret token of a hold, required to confirm or release it.
+     */
+    private static final String HOLD_TOKEN_HEADER = "Hold-Token";
 
     /**
      * Constructor to inject necessary services.
      * @param reservationService The reservationService.
      * @param timetableService The timetableService.
-     * @param seatService The seatService.
+     * @param journeyPlannerService The journeyPlannerService.
+     * @param reservationQueueService The reservationQueueService.
+     * @param reservationTicketService The reservationTicketService.
+     * @param seatHoldService The seatHoldService.
+     * @param ndjsonExportService The ndjsonExportService.
+     * @param timetableSearchEncoder The timetableSearchEncoder.
+     * @param seatDeltaFeed The seatDeltaFeed.
+     * @param ticketEventsTimeout How long a client waits on the events of a ticket.
      */
 
     @Autowired
     public ReservationController(ReservationService reservationService,
                                  TimetableService timetableService,
-                                 SeatService seatService) {
+                                 JourneyPlannerService journeyPlannerService,
+                                 ReservationQueueService reservationQueueService,
+                                 ReservationTicketService reservationTicketService,
+                                 SeatHoldService seatHoldService,
+                                 NdjsonExportService ndjsonExportService,
+                                 TimetableSearchEncoder timetableSearchEncoder,
+                                 SeatDeltaFeed seatDeltaFeed,
+                                 @Value("${tickets.reservation-tickets.events-timeout}") Duration ticketEventsTimeout) {
 
         this.reservationService = reservationService;
         this.timetableService = timetableService;
-        this.seatService = seatService;
+        this.journeyPlannerService = journeyPlannerService;
+        this.reservationQueueService = reservationQueueService;
+        this.reservationTicketService = reservationTicketService;
+        this.seatHoldService = seatHoldService;
+        this.ndjsonExportService = ndjsonExportService;
+        this.timetableSearchEncoder = timetableSearchEncoder;
+        this.seatDeltaFeed = seatDeltaFeed;
+        this.ticketEventsTimeout = ticketEventsTimeout.toMillis();
     }
 
     @Operation(summary = "Get possible connections by start station")
@@ -68,6 +135,14 @@ public class ReservationController {
                     @ApiResponse(
                             responseCode = "200",
                             description = "Found possible connections",
+                            content = @Content(
+                                    mediaType = "application/json",
+                                    array = @ArraySchema(schema = @Schema(implementation = String.class))
+                            )
+                    ),
+                    @ApiResponse(
+                            responseCode = "304",
+                            description = "Connections not modified since the given ETag",
                             content = @Content
                     ),
                     @ApiResponse(
@@ -85,22 +160,23 @@ public class ReservationController {
     /**
      * Retrieve possible end stations based on the start station.
      * @param startStation The starting station.
+     * @param ifNoneMatch ETag of the list the client already has, if any.
      * @return ResponseEntity with a list of end stations and dates.
      */
     @GetMapping("/endStations/{startStation}")
-    public ResponseEntity<List<String>> getEndStationsByStartStation(@PathVariable Station startStation) {
+    public ResponseEntity<TimetableSearchResult> getEndStationsByStartStation(
+            @PathVariable Station startStation,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         try {
-            List<Timetable> timetables = timetableService.getAllTimetablesByStartStation(startStation);
-            if (timetables.isEmpty()) {
-                return ResponseEntity.notFound().build();
+            String unmodifiedETag = timetableService.getUnmodifiedTimetablesByStartStationETag(startStation, ifNoneMatch);
+            if (unmodifiedETag != null) {
+                return notModified(unmodifiedETag);
             }
-            List<String> datesAndEndStationsForStartStation = new ArrayList<>();
-
-            for (Timetable timetable: timetables) {
-                String formattedTime = timetable.getStartTime().format(formatter);
-                datesAndEndStationsForStartStation.add(timetable.getEndStation()+" "+formattedTime);
+            TimetableSearch search = timetableService.searchTimetablesByStartStation(startStation);
+            if (search.getTimetables().isEmpty()) {
+                return ResponseEntity.notFound().build();
             }
-            return ResponseEntity.ok(datesAndEndStationsForStartStation);
+            return searchResponse(timetableSearchEncoder.encodeEndStations(search.getTimetables()), search.getETag());
         } catch (DataAccessException exception) {
             return ResponseEntity.internalServerError().build();
         }
@@ -112,6 +188,14 @@ public class ReservationController {
                     @ApiResponse(
                             responseCode = "200",
                             description = "Found connections",
+                            content = @Content(
+                                    mediaType = "application/json",
+                                    array = @ArraySchema(schema = @Schema(implementation = String.class))
+                            )
+                    ),
+                    @ApiResponse(
+                            responseCode = "304",
+                            description = "Connections not modified since the given ETag",
                             content = @Content
                     ),
                     @ApiResponse(
@@ -130,31 +214,92 @@ public class ReservationController {
      * Retrieve possible connections between stations.
      * @param startStation The starting station.
      * @param endStation The ending station.
+     * @param ifNoneMatch ETag of the list the client already has, if any.
      * @return ResponseEntity with a list of connections
      */
     @GetMapping("/startAndEndStation/{startStation}/{endStation}")
-    public ResponseEntity<List<String>> getTimeTableByStartAndEndStation(@PathVariable Station startStation, @PathVariable Station endStation) {
+    public ResponseEntity<TimetableSearchResult> getTimeTableByStartAndEndStation(
+            @PathVariable Station startStation, @PathVariable Station endStation,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        try {
+            String unmodifiedETag = timetableService.getUnmodifiedTimetablesByStartStationAndEndStationETag(
+                    startStation, endStation, ifNoneMatch);
+            if (unmodifiedETag != null) {
+                return notModified(unmodifiedETag);
+            }
+            var search = timetableService.searchTimetablesByStartStationAndEndStation(startStation,endStation);
+            if (search.getTimetables().isEmpty()) {
+                return ResponseEntity.notFound().build();
+            }
+            return searchResponse(timetableSearchEncoder.encodeConnections(search.getTimetables()), search.getETag());
+        } catch (DataAccessException exception) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    /**
+     * Builds the response of a timetable search, which clients and shared caches may reuse for the search max-age.
+     */
+    private ResponseEntity<TimetableSearchResult> searchResponse(TimetableSearchResult result, String eTag) {
+        return ResponseEntity.ok().eTag(eTag).cacheControl(searchCacheControl())
+                .contentType(MediaType.APPLICATION_JSON).body(result);
+    }
+
+    /**
+     * Builds the response of a timetable search the client already has, before any timetable is read.
+     */
+    private ResponseEntity<TimetableSearchResult> notModified(String eTag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).cacheControl(searchCacheControl()).build();
+    }
+
+    private CacheControl searchCacheControl() {
+        return CacheControl.maxAge(timetableService.getSearchMaxAge()).cachePublic();
+    }
+
+    @Operation(summary = "Get journeys with transfers between stations")
+    @ApiResponses(
+            value = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Found journeys",
+                            content = @Content(
+                                    mediaType = "application/json",
+                                    array = @ArraySchema(schema = @Schema(implementation = Journey.class))
+                            )
+                    ),
+                    @ApiResponse(
+                            responseCode = "404",
+                            description = "Journeys not found",
+                            content = @Content
+                    ),
+                    @ApiResponse(
+                            responseCode = "500",
+                            description = "Server error",
+                            content = @Content
+                    )
+            }
+    )
+    /**
+     * Retrieve journeys between stations, also those with transfers.
+     * @param startStation The starting station.
+     * @param endStation The ending station.
+     * @param departureTime The earliest departure time.
+     * @return ResponseEntity with journeys ordered from the fewest transfers to the earliest arrival.
+     */
+    @GetMapping("/journeys/{startStation}/{endStation}/{departureTime}")
+    public ResponseEntity<List<Journey>> getJourneys(@PathVariable Station startStation, @PathVariable Station endStation,
+                                                     @PathVariable LocalDateTime departureTime) {
         try {
-            var timetablesToEndStation = timetableService.getAllTimetablesByStartStationAndEndStation(startStation,endStation);
-            if (timetablesToEndStation.isEmpty()) {
+            List<Journey> journeys = journeyPlannerService.planJourneys(startStation, endStation, departureTime);
+            if (journeys.isEmpty()) {
                 return ResponseEntity.notFound().build();
             }
-            List<String> datesAndEndStationsForStartStation = new ArrayList<>();
-            timetablesToEndStation
-                    .forEach(timetable -> {
-                        var startTime = timetable.getStartTime().format(formatter);
-                        var endTime = timetable.getEndTime().format(formatter);
-                        datesAndEndStationsForStartStation.add(
-                                timetable.getStartStation() + ": " + startTime + ", "
-                                        + timetable.getEndStation() + " " + endTime);
-                    });
-            return ResponseEntity.ok(datesAndEndStationsForStartStation);
+            return ResponseEntity.ok(journeys);
         } catch (DataAccessException exception) {
             return ResponseEntity.internalServerError().build();
         }
     }
 
-    @SuppressWarnings("ReassignedVariable")
     @Operation(summary = "Reserve seats (at least 2)")
     @ApiResponses(
             value = {
@@ -176,10 +321,20 @@ public class ReservationController {
                             description = "Wrong number or not enough of not reserved seats",
                             content = @Content
                     ),
+                    @ApiResponse(
+                            responseCode = "429",
+                            description = "Reservation queue of the connection is full, retry after the seconds in Retry-After",
+                            content = @Content
+                    ),
                     @ApiResponse(
                             responseCode = "500",
                             description = "Server error",
                             content = @Content
+                    ),
+                    @ApiResponse(
+                            responseCode = "503",
+                            description = "Reservation waited too long in the queue, retry after the seconds in Retry-After",
+                            content = @Content
                     )
             }
     )
@@ -197,33 +352,255 @@ public class ReservationController {
             @PathVariable Station startStation, @PathVariable Station endStation,
             @PathVariable LocalDateTime startTime,@PathVariable Integer numberOfSeats){
         try {
-            if (numberOfSeats <2) return ResponseEntity.badRequest().build();
+            if (numberOfSeats <2 || numberOfSeats > SeatPreference.MAX_NUMBER_OF_SEATS) return ResponseEntity.badRequest().build();
 
             Timetable timetable = timetableService.getTimetableByStartStationAndEndStationAndStartTime(startStation, endStation, startTime);
             if (timetable==null) {
                 return ResponseEntity.notFound().build();
             }
 
-            List<Wagon> wagons = timetable.getTrain().getWagons();
-            List<Seat> seats = new ArrayList<>();
-            for (Wagon wagon: wagons) {
-                seats.addAll(wagon.getSeats());
+            CompletableFuture<List<Seat>> reservation = reservationQueueService.submit(timetable, numberOfSeats);
+            if (reservation == null) {
+                return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                        .header(HttpHeaders.RETRY_AFTER, String.valueOf(reservationQueueService.getRetryAfter().toSeconds()))
+                        .build();
             }
-            seats.removeIf(seat -> seat.getReservation()!=null);
 
-            if (numberOfSeats > seats.size()) {
+            List<Seat> seats = reservation.join();
+            if (seats.isEmpty()) {
                 return ResponseEntity.badRequest().build();
             }
 
-            if (numberOfSeats < seats.size()){
-                seats = seats.subList(0,numberOfSeats);
+            return ResponseEntity.ok(seats);
+        } catch (CompletionException exception) {
+            if (exception.getCause() instanceof TimeoutException) {
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .header(HttpHeaders.RETRY_AFTER, String.valueOf(reservationQueueService.getRetryAfter().toSeconds()))
+                        .build();
             }
+            return ResponseEntity.internalServerError().build();
+        } catch (DataAccessException exception) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
 
-            Reservation addedReservation = reservationService.addReservation(new Reservation());
+    @Operation(summary = "Reserve seats asynchronously (minimum 2)")
+    @ApiResponses(
+            value = {
+                    @ApiResponse(
+                            responseCode = "202",
+                            description = "Accepted reservation ticket",
+                            content = @Content(
+                                    mediaType = "application/json",
+                                    schema = @Schema(implementation = ReservationTicket.class)
+                            )
+                    ),
+                    @ApiResponse(
+                            responseCode = "404",
+                            description = "Connection not found",
+                            content = @Content
+                    ),
+                    @ApiResponse(
+                            responseCode = "400",
+                            description = "Wrong number of seats",
+                            content = @Content
+                    ),
+                    @ApiResponse(
+                            responseCode = "429",
+                            description = "Reservation queue of the connection is full, retry after the seconds in Retry-After",
+                            content = @Content
+                    ),
+                    @ApiResponse(
+                            responseCode = "500",
+                            description = "Server error",
+                            content = @Content
+                    )
+            }
+    )
+    /**
+     * Accept reservation of seats for a given journey, the seats are allocated in the background.
+     *
+     * @param startStation  The starting station.
+     * @param endStation    The ending station.
+     * @param startTime     The journey start time.
+     * @param numberOfSeats The number of seats to reserve.
+     * @return ResponseEntity with the pending reservation ticket.
+     */
+    @PostMapping("/async/startAndEndStation/{startStation}/{endStation}/{startTime}/numberOfSeats/{numberOfSeats}")
+    public ResponseEntity<ReservationTicket> reserveSeatsAsync(
+            @PathVariable Station startStation, @PathVariable Station endStation,
+            @PathVariable LocalDateTime startTime,@PathVariable Integer numberOfSeats){
+        try {
+            if (numberOfSeats <2 || numberOfSeats > SeatPreference.MAX_NUMBER_OF_SEATS) return ResponseEntity.badRequest().build();
 
-            for (Seat seat: seats) {
-                seat.setReservation(addedReservation);
-                seatService.updateSeat(seat);
+            Timetable timetable = timetableService.getTimetableByStartStationAndEndStationAndStartTime(startStation, endStation, startTime);
+            if (timetable==null) {
+                return ResponseEntity.notFound().build();
+            }
+
+            ReservationTicket ticket = reservationTicketService.submit(timetable, numberOfSeats);
+            if (ticket == null) {
+                return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                        .header(HttpHeaders.RETRY_AFTER, String.valueOf(reservationQueueService.getRetryAfter().toSeconds()))
+                        .build();
+            }
+
+            return ResponseEntity.accepted().location(URI.create("/reservations/tickets/" + ticket.getId())).body(ticket);
+        } catch (DataAccessException exception) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    @Operation(summary = "Get reservation ticket by id")
+    @ApiResponses(
+            value = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Found reservation ticket",
+                            content = @Content(
+                                    mediaType = "application/json",
+                                    schema = @Schema(implementation = ReservationTicket.class)
+                            )
+                    ),
+                    @ApiResponse(
+                            responseCode = "404",
+                            description = "Reservation ticket not found or expired",
+                            content = @Content
+                    ),
+                    @ApiResponse(
+                            responseCode = "500",
+                            description = "Server error",
+                            content = @Content
+                    )
+            }
+    )
+    /**
+     * Retrieve the current state of a reservation ticket.
+     *
+     * @param ticketId The ID of the reservation ticket.
+     * @return ResponseEntity with the reservation ticket.
+     */
+    @GetMapping("/tickets/{ticketId}")
+    public ResponseEntity<ReservationTicket> getReservationTicket(@PathVariable String ticketId) {
+        try {
+            ReservationTicket ticket = reservationTicketService.getTicket(ticketId);
+            if (ticket == null) {
+                return ResponseEntity.notFound().build();
+            }
+            return ResponseEntity.ok(ticket);
+        } catch (DataAccessException exception) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    @Operation(summary = "Subscribe to the outcome of reservation ticket")
+    @ApiResponses(
+            value = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Stream sending one reservation event when the ticket is no longer pending",
+                            content = @Content(mediaType = "text/event-stream")
+                    ),
+                    @ApiResponse(
+                            responseCode = "404",
+                            description = "Reservation ticket not found or expired",
+                            content = @Content
+                    ),
+                    @ApiResponse(
+                            responseCode = "500",
+                            description = "Server error",
+                            content = @Content
+                    )
+            }
+    )
+    /**
+     * Subscribe to the outcome of a reservation ticket as server-sent events.
+     *
+     * @param ticketId The ID of the reservation ticket.
+     * @return ResponseEntity with the event stream.
+     */
+    @GetMapping(value = "/tickets/{ticketId}/events", produces = "text/event-stream")
+    public ResponseEntity<SseEmitter> getReservationTicketEvents(@PathVariable String ticketId) {
+        CompletableFuture<ReservationTicket> outcome;
+        try {
+            outcome = reservationTicketService.getOutcome(ticketId);
+        } catch (DataAccessException exception) {
+            return ResponseEntity.internalServerError().build();
+        }
+        if (outcome == null) {
+            return ResponseEntity.notFound().build();
+        }
+        SseEmitter emitter = new SseEmitter(ticketEventsTimeout);
+        // Stops waiting for the outcome once the stream timed out or the client disconnected.
+        emitter.onCompletion(() -> outcome.cancel(false));
+        outcome.whenComplete((ticket, failure) -> {
+            try {
+                if (ticket != null) {
+                    emitter.send(SseEmitter.event().name("reservation").data(ticket));
+                }
+                emitter.complete();
+            } catch (IOException | IllegalStateException exception) {
+                // The client disconnected or the stream timed out.
+                emitter.completeWithError(exception);
+            }
+        });
+        return ResponseEntity.ok(emitter);
+    }
+
+    @Operation(summary = "Reserve seats for a part of the route")
+    @ApiResponses(
+            value = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Reserved seats",
+                            content = @Content(
+                                    mediaType = "application/json",
+                                    array = @ArraySchema(schema = @Schema(implementation = Seat.class))
+                            )
+                    ),
+                    @ApiResponse(
+                            responseCode = "404",
+                            description = "Connection not found",
+                            content = @Content
+                    ),
+                    @ApiResponse(
+                            responseCode = "400",
+                            description = "Wrong number of seats, stations not on the route or not enough of not reserved seats",
+                            content = @Content
+                    ),
+                    @ApiResponse(
+                            responseCode = "500",
+                            description = "Server error",
+                            content = @Content
+                    )
+            }
+    )
+    /**
+     * Reserve seats between two stops of a given journey.
+     *
+     * @param startStation  The starting station of the timetable.
+     * @param endStation    The ending station of the timetable.
+     * @param startTime     The journey start time.
+     * @param fromStation   The station where the passengers get on.
+     * @param toStation     The station where the passengers get off.
+     * @param numberOfSeats The number of seats to reserve.
+     * @return ResponseEntity with a list of reserved seats.
+     */
+    @PostMapping("/startAndEndStation/{startStation}/{endStation}/{startTime}/from/{fromStation}/to/{toStation}/numberOfSeats/{numberOfSeats}")
+    public ResponseEntity<List<Seat>> reserveSegmentSeats(
+            @PathVariable Station startStation, @PathVariable Station endStation, @PathVariable LocalDateTime startTime,
+            @PathVariable Station fromStation, @PathVariable Station toStation, @PathVariable Integer numberOfSeats){
+        try {
+            if (numberOfSeats <1 || numberOfSeats > SeatPreference.MAX_NUMBER_OF_SEATS) return ResponseEntity.badRequest().build();
+
+            Timetable timetable = timetableService.getTimetableByStartStationAndEndStationAndStartTime(startStation, endStation, startTime);
+            if (timetable==null) {
+                return ResponseEntity.notFound().build();
+            }
+
+            List<Seat> seats = reservationService.reserveSegmentSeats(timetable, fromStation, toStation, numberOfSeats);
+            if (seats.isEmpty()) {
+                return ResponseEntity.badRequest().build();
             }
 
             return ResponseEntity.ok(seats);
@@ -280,32 +657,324 @@ public class ReservationController {
                 return ResponseEntity.notFound().build();
             }
 
-            List<Wagon> wagons = timetable.getTrain().getWagons();
-            List<Seat> seats = new ArrayList<>();
-            for (Wagon wagon: wagons) {
-                seats.addAll(wagon.getSeats());
+            Seat notReservedSeat = reservationService.reserveSeat(timetable, seatType);
+            if (notReservedSeat == null) {
+                return ResponseEntity.badRequest().build();
+            }
+
+            return ResponseEntity.ok(notReservedSeat);
+        } catch (DataAccessException exception) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    @Operation(summary = "Reserve seats allocated by seat preferences")
+    @ApiResponses(
+            value = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Reserved seats",
+                            content = @Content(
+                                    mediaType = "application/json",
+                                    array = @ArraySchema(schema = @Schema(implementation = Seat.class))
+                            )
+                    ),
+                    @ApiResponse(
+                            responseCode = "404",
+                            description = "Connection not found",
+                            content = @Content
+                    ),
+                    @ApiResponse(
+                            responseCode = "400",
+                            description = "Wrong number of seats or no not reserved seats match the preferences",
+                            content = @Content
+                    ),
+                    @ApiResponse(
+                            responseCode = "500",
+                            description = "Server error",
+                            content = @Content
+                    )
+            }
+    )
+    /**
+     * Reserve seats for a given journey allocated by seat type, wagon type and grouping preferences.
+     *
+     * @param startStation  The starting station.
+     * @param endStation    The ending station.
+     * @param startTime     The journey start time.
+     * @param preference    The number of seats and the allocation policies.
+     * @return ResponseEntity with a list of reserved seats.
+     */
+    @PostMapping("/startAndEndStation/{startStation}/{endStation}/{startTime}/preferences")
+    public ResponseEntity<List<Seat>> reserveSeatsByPreference(
+            @PathVariable Station startStation, @PathVariable Station endStation,
+            @PathVariable LocalDateTime startTime, @RequestBody SeatPreference preference){
+        try {
+            if (preference.getNumberOfSeats() <1 || preference.getNumberOfSeats() > SeatPreference.MAX_NUMBER_OF_SEATS) {
+                return ResponseEntity.badRequest().build();
+            }
+
+            Timetable timetable = timetableService.getTimetableByStartStationAndEndStationAndStartTime(startStation, endStation, startTime);
+            if (timetable==null) {
+                return ResponseEntity.notFound().build();
+            }
+
+            List<Seat> seats = reservationService.reserveSeats(timetable, preference);
+            if (seats.isEmpty()) {
+                return ResponseEntity.badRequest().build();
+            }
+
+            return ResponseEntity.ok(seats);
+        } catch (DataAccessException exception) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    @Operation(summary = "Get free seats of a connection by seat type and wagon type")
+    @ApiResponses(
+            value = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Free seats of the connection",
+                            content = @Content(
+                                    mediaType = "application/json",
+                                    schema = @Schema(implementation = SeatAvailability.class)
+                            )
+                    ),
+                    @ApiResponse(
+                            responseCode = "404",
+                            description = "Connection not found",
+                            content = @Content
+                    ),
+                    @ApiResponse(
+                            responseCode = "500",
+                            description = "Server error",
+                            content = @Content
+                    )
+            }
+    )
+    /**
+     * Retrieve the number of free seats for a given journey, in total and by seat type and wagon type.
+     *
+     * @param startStation  The starting station.
+     * @param endStation    The ending station.
+     * @param startTime     The journey start time.
+     * @return ResponseEntity with the free seats.
+     */
+    @GetMapping("/startAndEndStation/{startStation}/{endStation}/{startTime}/availability")
+    public ResponseEntity<SeatAvailability> getSeatAvailability(
+            @PathVariable Station startStation, @PathVariable Station endStation,
+            @PathVariable LocalDateTime startTime){
+        try {
+            Timetable timetable = timetableService.getTimetableByStartStationAndEndStationAndStartTime(startStation, endStation, startTime);
+            if (timetable==null) {
+                return ResponseEntity.notFound().build();
+            }
+
+            return ResponseEntity.ok(reservationService.getSeatAvailability(timetable));
+        } catch (DataAccessException exception) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    @Operation(summary = "Subscribe to seat reservations and releases of a connection")
+    @ApiResponses(
+            value = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Stream sending one seats event per committed change, and a reset event when changes were missed",
+                            content = @Content(mediaType = "text/event-stream")
+                    ),
+                    @ApiResponse(
+                            responseCode = "404",
+                            description = "Connection not found",
+                            content = @Content
+                    ),
+                    @ApiResponse(
+                            responseCode = "500",
+                            description = "Server error",
+                            content = @Content
+                    )
             }
-            seats.removeIf(seat -> seat.getReservation()!=null);
-            if (seats.isEmpty()){
+    )
+    /**
+     * Subscribe to seat changes of a given journey as server-sent events.
+     *
+     * @param startStation  The starting station.
+     * @param endStation    The ending station.
+     * @param startTime     The journey start time.
+     * @param lastEventId   ID of the last event received before reconnecting, if any.
+     * @return ResponseEntity with the event stream.
+     */
+    @GetMapping(value = "/startAndEndStation/{startStation}/{endStation}/{startTime}/seatEvents", produces = "text/event-stream")
+    public ResponseEntity<SseEmitter> getSeatEvents(
+            @PathVariable Station startStation, @PathVariable Station endStation,
+            @PathVariable LocalDateTime startTime,
+            @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId){
+        try {
+            Timetable timetable = timetableService.getTimetableByStartStationAndEndStationAndStartTime(startStation, endStation, startTime);
+            if (timetable==null) {
+                return ResponseEntity.notFound().build();
+            }
+
+            return ResponseEntity.ok(seatDeltaFeed.watch(timetable.getId(), lastEventId));
+        } catch (DataAccessException exception) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    @Operation(summary = "Hold seats allocated by seat preferences until the hold is confirmed")
+    @ApiResponses(
+            value = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Held seats and when the hold expires",
+                            content = @Content(
+                                    mediaType = "application/json",
+                                    schema = @Schema(implementation = SeatHold.class)
+                            )
+                    ),
+                    @ApiResponse(
+                            responseCode = "404",
+                            description = "Connection not found",
+                            content = @Content
+                    ),
+                    @ApiResponse(
+                            responseCode = "400",
+                            description = "Wrong number of seats or no not reserved seats match the preferences",
+                            content = @Content
+                    ),
+                    @ApiResponse(
+                            responseCode = "500",
+                            description = "Server error",
+                            content = @Content
+                    )
+            }
+    )
+    /**
+     * Hold seats for a given journey while the buyer pays. The seats are released
+     * when the hold is not confirmed before it expires.
+     *
+     * @param startStation  The starting station.
+     * @param endStation    The ending station.
+     * @param startTime     The journey start time.
+     * @param preference    The number of seats and the allocation policies.
+     * @return ResponseEntity with the held seats.
+     */
+    @PostMapping("/startAndEndStation/{startStation}/{endStation}/{startTime}/holds")
+    public ResponseEntity<SeatHold> holdSeats(
+            @PathVariable Station startStation, @PathVariable Station endStation,
+            @PathVariable LocalDateTime startTime, @RequestBody SeatPreference preference){
+        try {
+            if (preference.getNumberOfSeats() <1 || preference.getNumberOfSeats() > SeatPreference.MAX_NUMBER_OF_SEATS) {
                 return ResponseEntity.badRequest().build();
             }
-            Seat notReservedSeat = new Seat();
-            for (Seat seat: seats) {
-                if (seat.getSeatType().equals(seatType)){
-                    notReservedSeat = seat;
 
-                    break;
-                }
+            Timetable timetable = timetableService.getTimetableByStartStationAndEndStationAndStartTime(startStation, endStation, startTime);
+            if (timetable==null) {
+                return ResponseEntity.notFound().build();
             }
-            if (!seatService.existSeat(notReservedSeat.getId())) {
-                notReservedSeat = seats.get(0);
+
+            SeatHold hold = seatHoldService.hold(timetable, preference);
+            if (hold == null) {
+                return ResponseEntity.badRequest().build();
             }
 
-            Reservation addedReservation = reservationService.addReservation(new Reservation());
-            notReservedSeat.setReservation(addedReservation);
-            seatService.updateSeat(notReservedSeat);
+            return ResponseEntity.ok(hold);
+        } catch (DataAccessException exception) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
 
-            return ResponseEntity.ok(notReservedSeat);
+    @Operation(summary = "Confirm held seats")
+    @ApiResponses(
+            value = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Confirmed reservation",
+                            content = @Content
+                    ),
+                    @ApiResponse(
+                            responseCode = "404",
+                            description = "Hold not found or the token does not match",
+                            content = @Content
+                    ),
+                    @ApiResponse(
+                            responseCode = "409",
+                            description = "Reservation is not held or the hold has expired",
+                            content = @Content
+                    ),
+                    @ApiResponse(
+                            responseCode = "500",
+                            description = "Server error",
+                            content = @Content
+                    )
+            }
+    )
+    /**
+     * Confirm held seats, so they stay reserved.
+     * @param reservationId The reservation ID of the hold.
+     * @param holdToken The token returned with the hold.
+     * @return ResponseEntity indicating the result of the operation.
+     */
+    @PostMapping("/holds/{reservationId}/confirm")
+    public ResponseEntity<String> confirmHold(@PathVariable Long reservationId,
+                                              @RequestHeader(HOLD_TOKEN_HEADER) String holdToken) {
+        try {
+            if (!reservationService.existHold(reservationId, holdToken)) {
+                return ResponseEntity.notFound().build();
+            }
+            if (!seatHoldService.confirm(reservationId, holdToken)) {
+                return ResponseEntity.status(HttpStatus.CONFLICT).build();
+            }
+            return ResponseEntity.ok("Reservation with ID " + reservationId + " confirmed successfully.");
+        } catch (DataAccessException exception) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    @Operation(summary = "Release held seats")
+    @ApiResponses(
+            value = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Released hold",
+                            content = @Content
+                    ),
+                    @ApiResponse(
+                            responseCode = "404",
+                            description = "Hold not found or the token does not match",
+                            content = @Content
+                    ),
+                    @ApiResponse(
+                            responseCode = "409",
+                            description = "Reservation is not held",
+                            content = @Content
+                    ),
+                    @ApiResponse(
+                            responseCode = "500",
+                            description = "Server error",
+                            content = @Content
+                    )
+            }
+    )
+    /**
+     * Release held seats before the hold expires.
+     * @param reservationId The reservation ID of the hold.
+     * @param holdToken The token returned with the hold.
+     * @return ResponseEntity indicating the result of the operation.
+     */
+    @DeleteMapping("/holds/{reservationId}")
+    public ResponseEntity<String> releaseHold(@PathVariable Long reservationId,
+                                              @RequestHeader(HOLD_TOKEN_HEADER) String holdToken) {
+        try {
+            if (!reservationService.existHold(reservationId, holdToken)) {
+                return ResponseEntity.notFound().build();
+            }
+            if (!seatHoldService.release(reservationId, holdToken)) {
+                return ResponseEntity.status(HttpStatus.CONFLICT).build();
+            }
+            return ResponseEntity.ok("Hold with ID " + reservationId + " released successfully.");
         } catch (DataAccessException exception) {
             return ResponseEntity.internalServerError().build();
         }
@@ -342,11 +1011,6 @@ public class ReservationController {
             if (!reservationService.existReservation(reservationId)) {
                 return ResponseEntity.notFound().build();
             }
-            List<Seat> reservedSeats = seatService.getSeatsByReservationId(reservationId);
-            for (Seat seat: reservedSeats) {
-                seat.setReservation(null);
-                seatService.updateSeat(seat);
-            }
             reservationService.deleteReservationById(reservationId);
             return ResponseEntity.ok("Reservation with ID" + reservationId + " deleted successfully.");
         } catch (DataAccessException exception) {
@@ -426,5 +1090,65 @@ public class ReservationController {
             return ResponseEntity.internalServerError().build();
         }
     }
+
+    @Operation(summary = "Get one page of reservations ordered by ID")
+    @ApiResponses(
+            value = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Found reservations and the ID the next page starts after",
+                            content = @Content(
+                                    mediaType = "application/json",
+                                    schema = @Schema(implementation = CursorPage.class)
+                            )
+                    ),
+                    @ApiResponse(
+                            responseCode = "400",
+                            description = "Page size out of range",
+                            content = @Content
+                    ),
+                    @ApiResponse(
+                            responseCode = "500",
+                            description = "Server error",
+                            content = @Content
+                    )
+            }
+    )
+    /**
+     * Retrieve one page of reservations ordered by ID.
+     * @param afterId The ID after which the page starts, 0 for the first page.
+     * @param size The number of reservations of the page.
+     * @return ResponseEntity with a page of reservations.
+     */
+    @GetMapping("/page")
+    public ResponseEntity<CursorPage<Reservation>> getReservationsPage(@RequestParam(defaultValue = "0") long afterId,
+                                                 @RequestParam(defaultValue = "100") int size) {
+        try {
+            if (size < 1 || size > CursorPage.MAX_SIZE) return ResponseEntity.badRequest().build();
+            return ResponseEntity.ok(reservationService.getReservationsPage(afterId, size));
+        } catch (DataAccessException exception) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    @Operation(summary = "Export all reservations as newline-delimited JSON")
+    @ApiResponses(
+            value = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "All reservations, one JSON object per line",
+                            content = @Content(mediaType = "application/x-ndjson")
+                    )
+            }
+    )
+    /**
+     * Export all reservations ordered by ID, streamed from the database while the response is written.
+     * @param response The response the reservations are written to.
+     * @return Async task streaming the reservations.
+     */
+    @GetMapping(value = "/export", produces = "application/x-ndjson")
+    public WebAsyncTask<Void> exportReservations(HttpServletResponse response) {
+        return ndjsonExportService.exportTask(reservationService::streamAllReservations, response);
+    }
 }
 
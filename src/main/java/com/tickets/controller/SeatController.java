@@ -1,6 +1,8 @@
 package com.tickets.controller;
 
+import com.tickets.model.CursorPage;
 import com.tickets.model.Seat;
+import com.tickets.service.NdjsonExportService;
 import com.tickets.service.SeatService;
 import com.tickets.service.WagonService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -9,11 +11,13 @@ import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.dao.DataAccessException;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncTask;
 
 import java.util.List;
 
@@ -32,16 +36,22 @@ public class SeatController {
      * Service for managing wagons.
      */
     private final WagonService wagonService;
+    /**
+     * Service for exporting whole tables.
+     */
+    private final NdjsonExportService ndjsonExportService;
 
     /**
      * Constructor to inject necessary services.
      * @param seatService The seat service.
      * @param wagonService The wagon service.
+     * @param ndjsonExportService The export service.
      */
     @Autowired
-    public SeatController(SeatService seatService,WagonService wagonService){
+    public SeatController(SeatService seatService,WagonService wagonService, NdjsonExportService ndjsonExportService){
         this.seatService = seatService;
         this.wagonService = wagonService;
+        this.ndjsonExportService = ndjsonExportService;
     }
     @Operation(summary = "Add seat")
     @ApiResponses(
@@ -195,4 +205,64 @@ public class SeatController {
             return ResponseEntity.internalServerError().build();
         }
     }
+
+    @Operation(summary = "Get one page of seats ordered by ID")
+    @ApiResponses(
+            value = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Found seats and the ID the next page starts after",
+                            content = @Content(
+                                    mediaType = "application/json",
+                                    schema = @Schema(implementation = CursorPage.class)
+                            )
+                    ),
+                    @ApiResponse(
+                            responseCode = "400",
+                            description = "Page size out of range",
+                            content = @Content
+                    ),
+                    @ApiResponse(
+                            responseCode = "500",
+                            description = "Server error",
+                            content = @Content
+                    )
+            }
+    )
+    /**
+     * Retrieve one page of seats ordered by ID.
+     * @param afterId The ID after which the page starts, 0 for the first page.
+     * @param size The number of seats of the page.
+     * @return ResponseEntity with a page of seats.
+     */
+    @GetMapping("/page")
+    public ResponseEntity<CursorPage<Seat>> getSeatsPage(@RequestParam(defaultValue = "0") long afterId,
+                                                 @RequestParam(defaultValue = "100") int size) {
+        try {
+            if (size < 1 || size > CursorPage.MAX_SIZE) return ResponseEntity.badRequest().build();
+            return ResponseEntity.ok(seatService.getSeatsPage(afterId, size));
+        } catch (DataAccessException exception) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    @Operation(summary = "Export all seats as newline-delimited JSON")
+    @ApiResponses(
+            value = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "All seats, one JSON object per line",
+                            content = @Content(mediaType = "application/x-ndjson")
+                    )
+            }
+    )
+    /**
+     * Export all seats ordered by ID, streamed from the database while the response is written.
+     * @param response The response the seats are written to.
+     * @return Async task streaming the seats.
+     */
+    @GetMapping(value = "/export", produces = "application/x-ndjson")
+    public WebAsyncTask<Void> exportSeats(HttpServletResponse response) {
+        return ndjsonExportService.exportTask(seatService::streamAllSeats, response);
+    }
 }
@@ -1,6 +1,8 @@
 package com.tickets.controller;
 
+import com.tickets.model.CursorPage;
 import com.tickets.model.Timetable;
+import com.tickets.service.NdjsonExportService;
 import com.tickets.service.TimetableService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.ArraySchema;
@@ -8,13 +10,16 @@ import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataAccessException;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncTask;
 
 import java.time.temporal.ChronoUnit;
 import java.util.List;
+import java.util.Map;
 
 /**
  * REST Controller responsible for handling timetable operations.
@@ -26,14 +31,20 @@ public class TimetableController {
      * Service for managing timetables.
      */
     private final TimetableService timetableService;
+    /**
+     * Service for exporting whole tables.
+     */
+    private final NdjsonExportService ndjsonExportService;
 
     /**
      * Constructor to inject the timetable service
      * @param timetableService
+     * @param ndjsonExportService The export service.
      */
     @Autowired
-    public TimetableController(TimetableService timetableService){
+    public TimetableController(TimetableService timetableService, NdjsonExportService ndjsonExportService){
         this.timetableService = timetableService;
+        this.ndjsonExportService = ndjsonExportService;
     }
 
     @Operation(summary = "Add timetable")
@@ -108,6 +119,24 @@ public class TimetableController {
             return ResponseEntity.internalServerError().build();
         }
     }
+    @Operation(summary = "Get timetable search cache statistics")
+    @ApiResponses(
+            value = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Found statistics",
+                            content = @Content
+                    )
+            }
+    )
+    /**
+     * Retrieve hit, miss and eviction counters of the timetable search cache.
+     * @return ResponseEntity with counters by name.
+     */
+    @GetMapping("/searchCacheStatistics")
+    public ResponseEntity<Map<String, Long>> getSearchCacheStatistics() {
+        return ResponseEntity.ok(timetableService.getSearchCacheStatistics());
+    }
     @Operation(summary = "Get timetable by ID")
     @ApiResponses(
             value = {
@@ -180,4 +209,64 @@ public class TimetableController {
             return ResponseEntity.internalServerError().build();
         }
     }
+
+    @Operation(summary = "Get one page of timetables ordered by ID")
+    @ApiResponses(
+            value = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Found timetables and the ID the next page starts after",
+                            content = @Content(
+                                    mediaType = "application/json",
+                                    schema = @Schema(implementation = CursorPage.class)
+                            )
+                    ),
+                    @ApiResponse(
+                            responseCode = "400",
+                            description = "Page size out of range",
+                            content = @Content
+                    ),
+                    @ApiResponse(
+                            responseCode = "500",
+                            description = "Server error",
+                            content = @Content
+                    )
+            }
+    )
+    /**
+     * Retrieve one page of timetables ordered by ID.
+     * @param afterId The ID after which the page starts, 0 for the first page.
+     * @param size The number of timetables of the page.
+     * @return ResponseEntity with a page of timetables.
+     */
+    @GetMapping("/page")
+    public ResponseEntity<CursorPage<Timetable>> getTimetablesPage(@RequestParam(defaultValue = "0") long afterId,
+                                                 @RequestParam(defaultValue = "100") int size) {
+        try {
+            if (size < 1 || size > CursorPage.MAX_SIZE) return ResponseEntity.badRequest().build();
+            return ResponseEntity.ok(timetableService.getTimetablesPage(afterId, size));
+        } catch (DataAccessException exception) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    @Operation(summary = "Export all timetables as newline-delimited JSON")
+    @ApiResponses(
+            value = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "All timetables, one JSON object per line",
+                            content = @Content(mediaType = "application/x-ndjson")
+                    )
+            }
+    )
+    /**
+     * Export all timetables ordered by ID, streamed from the database while the response is written.
+     * @param response The response the timetables are written to.
+     * @return Async task streaming the timetables.
+     */
+    @GetMapping(value = "/export", produces = "application/x-ndjson")
+    public WebAsyncTask<Void> exportTimetables(HttpServletResponse response) {
+        return ndjsonExportService.exportTask(timetableService::streamAllTimetables, response);
+    }
 }
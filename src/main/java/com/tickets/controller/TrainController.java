@@ -1,6 +1,9 @@
 package com.tickets.controller;
 
+import com.tickets.model.CursorPage;
 import com.tickets.model.Train;
+import com.tickets.model.TrainLayout;
+import com.tickets.service.NdjsonExportService;
 import com.tickets.service.TimetableService;
 import com.tickets.service.TrainService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -9,12 +12,15 @@ import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataAccessException;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncTask;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * REST Controller responsible for handling train operations.
@@ -27,16 +33,22 @@ public class TrainController {
      */
     private final TrainService trainService;
     private final TimetableService timetableService;
+    /**
+     * Service for exporting whole tables.
+     */
+    private final NdjsonExportService ndjsonExportService;
 
     /**
      * Constructor to inject the train and timetable services.
      * @param trainService The train service.
      * @param timetableService The timetable service.
+     * @param ndjsonExportService The export service.
      */
     @Autowired
-    public TrainController(TrainService trainService, TimetableService timetableService){
+    public TrainController(TrainService trainService, TimetableService timetableService, NdjsonExportService ndjsonExportService){
         this.trainService = trainService;
         this.timetableService = timetableService;
+        this.ndjsonExportService = ndjsonExportService;
     }
     @Operation(summary = "Add train")
     @ApiResponses(
@@ -89,6 +101,104 @@ public class TrainController {
             return ResponseEntity.internalServerError().build();
         }
     }
+    @Operation(summary = "Provision train with wagons and seats")
+    @ApiResponses(
+            value = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Created train",
+                            content = @Content(
+                                    mediaType="application/json",
+                                    array = @ArraySchema(schema = @Schema(implementation = Train.class))
+                            )
+                    ),
+                    @ApiResponse(
+                            responseCode = "400",
+                            description = "Invalid layout or train with timetableID already exists",
+                            content = @Content
+                    ),
+                    @ApiResponse(
+                            responseCode = "404",
+                            description = "Timetable not found",
+                            content = @Content
+                    ),
+                    @ApiResponse(
+                            responseCode = "500",
+                            description = "Server error",
+                            content = @Content
+                    )
+            }
+    )
+    /**
+     * Add a new train together with all its wagons and seats to timetable.
+     * @param layout The layout of the train to add.
+     * @param timetableId The ID of the timetable to associate the train with.
+     * @return ResponseEntity with the added train.
+     */
+    @PostMapping("/provisionTrainToTimetable/{timetableId}")
+    public ResponseEntity<Train> provisionTrain(@RequestBody TrainLayout layout, @PathVariable Long timetableId) {
+        try {
+            if (!timetableService.existTimetable(timetableId)){
+                return ResponseEntity.notFound().build();
+            }
+            if (trainService.existTrainByTimetableID(timetableId) || !trainService.isValidLayout(layout)){
+                return ResponseEntity.badRequest().build();
+            }
+            Train addedTrain = trainService.provisionTrain(layout, timetableService.getTimetableById(timetableId));
+            return ResponseEntity.ok(addedTrain);
+        } catch (DataAccessException exception) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+    @Operation(summary = "Clone train layout to timetable")
+    @ApiResponses(
+            value = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Created train",
+                            content = @Content(
+                                    mediaType="application/json",
+                                    array = @ArraySchema(schema = @Schema(implementation = Train.class))
+                            )
+                    ),
+                    @ApiResponse(
+                            responseCode = "400",
+                            description = "Train with timetableID already exists",
+                            content = @Content
+                    ),
+                    @ApiResponse(
+                            responseCode = "404",
+                            description = "Train or timetable not found",
+                            content = @Content
+                    ),
+                    @ApiResponse(
+                            responseCode = "500",
+                            description = "Server error",
+                            content = @Content
+                    )
+            }
+    )
+    /**
+     * Add a copy of train with the same wagons and seats to timetable.
+     * @param trainId The ID of the train whose layout is copied.
+     * @param timetableId The ID of the timetable to associate the copy with.
+     * @return ResponseEntity with the added train.
+     */
+    @PostMapping("/cloneTrain/{trainId}/toTimetable/{timetableId}")
+    public ResponseEntity<Train> cloneTrain(@PathVariable Long trainId, @PathVariable Long timetableId) {
+        try {
+            if (!trainService.existTrain(trainId) || !timetableService.existTimetable(timetableId)){
+                return ResponseEntity.notFound().build();
+            }
+            if (trainService.existTrainByTimetableID(timetableId)){
+                return ResponseEntity.badRequest().build();
+            }
+            Train addedTrain = trainService.cloneTrain(trainId, timetableService.getTimetableById(timetableId));
+            return ResponseEntity.ok(addedTrain);
+        } catch (DataAccessException exception) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
     @Operation(summary = "Delete train by ID")
     @ApiResponses(
             value = {
@@ -195,4 +305,82 @@ public class TrainController {
             return ResponseEntity.internalServerError().build();
         }
     }
+
+    @Operation(summary = "Get one page of trains ordered by ID")
+    @ApiResponses(
+            value = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Found trains and the ID the next page starts after",
+                            content = @Content(
+                                    mediaType = "application/json",
+                                    schema = @Schema(implementation = CursorPage.class)
+                            )
+                    ),
+                    @ApiResponse(
+                            responseCode = "400",
+                            description = "Page size out of range",
+                            content = @Content
+                    ),
+                    @ApiResponse(
+                            responseCode = "500",
+                            description = "Server error",
+                            content = @Content
+                    )
+            }
+    )
+    /**
+     * Retrieve one page of trains ordered by ID.
+     * @param afterId The ID after which the page starts, 0 for the first page.
+     * @param size The number of trains of the page.
+     * @return ResponseEntity with a page of trains.
+     */
+    @GetMapping("/page")
+    public ResponseEntity<CursorPage<Train>> getTrainsPage(@RequestParam(defaultValue = "0") long afterId,
+                                                 @RequestParam(defaultValue = "100") int size) {
+        try {
+            if (size < 1 || size > CursorPage.MAX_SIZE) return ResponseEntity.badRequest().build();
+            return ResponseEntity.ok(trainService.getTrainsPage(afterId, size));
+        } catch (DataAccessException exception) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    @Operation(summary = "Export all trains as newline-delimited JSON")
+    @ApiResponses(
+            value = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "All trains, one JSON object per line",
+                            content = @Content(mediaType = "application/x-ndjson")
+                    )
+            }
+    )
+    /**
+     * Export all trains ordered by ID, streamed from the database while the response is written.
+     * @param response The response the trains are written to.
+     * @return Async task streaming the trains.
+     */
+    @GetMapping(value = "/export", produces = "application/x-ndjson")
+    public WebAsyncTask<Void> exportTrains(HttpServletResponse response) {
+        return ndjsonExportService.exportTask(trainService::streamAllTrains, response);
+    }
+    @Operation(summary = "Get train and wagon cache statistics")
+    @ApiResponses(
+            value = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Found statistics, empty if cache statistics are disabled",
+                            content = @Content
+                    )
+            }
+    )
+    /**
+     * Retrieve hit, miss and put counters of the train and wagon cache regions.
+     * @return ResponseEntity with counters by name, empty if cache statistics are disabled.
+     */
+    @GetMapping("/cacheStatistics")
+    public ResponseEntity<Map<String, Long>> getCacheStatistics() {
+        return ResponseEntity.ok(trainService.getCacheStatistics());
+    }
 }
@@ -1,6 +1,8 @@
 package com.tickets.controller;
 
+import com.tickets.model.CursorPage;
 import com.tickets.model.Wagon;
+import com.tickets.service.NdjsonExportService;
 import com.tickets.service.TrainService;
 import com.tickets.service.WagonService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -9,10 +11,12 @@ import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataAccessException;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncTask;
 
 import java.util.List;
 
@@ -27,16 +31,22 @@ public class WagonController {
      */
     private final WagonService wagonService;
     private final TrainService trainService;
+    /**
+     * Service for exporting whole tables.
+     */
+    private final NdjsonExportService ndjsonExportService;
 
     /**
      * Constructor to inject the wagon and train services.
      * @param wagonService The wagon service.
      * @param trainService The train service.
+     * @param ndjsonExportService The export service.
      */
     @Autowired
-    public WagonController(WagonService wagonService, TrainService trainService){
+    public WagonController(WagonService wagonService, TrainService trainService, NdjsonExportService ndjsonExportService){
         this.wagonService = wagonService;
         this.trainService = trainService;
+        this.ndjsonExportService = ndjsonExportService;
 
     }
     @Operation(summary = "Delete wagon by ID")
@@ -193,4 +203,64 @@ public class WagonController {
             return ResponseEntity.internalServerError().build();
         }
     }
+
+    @Operation(summary = "Get one page of wagons ordered by ID")
+    @ApiResponses(
+            value = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Found wagons and the ID the next page starts after",
+                            content = @Content(
+                                    mediaType = "application/json",
+                                    schema = @Schema(implementation = CursorPage.class)
+                            )
+                    ),
+                    @ApiResponse(
+                            responseCode = "400",
+                            description = "Page size out of range",
+                            content = @Content
+                    ),
+                    @ApiResponse(
+                            responseCode = "500",
+                            description = "Server error",
+                            content = @Content
+                    )
+            }
+    )
+    /**
+     * Retrieve one page of wagons ordered by ID.
+     * @param afterId The ID after which the page starts, 0 for the first page.
+     * @param size The number of wagons of the page.
+     * @return ResponseEntity with a page of wagons.
+     */
+    @GetMapping("/page")
+    public ResponseEntity<CursorPage<Wagon>> getWagonsPage(@RequestParam(defaultValue = "0") long afterId,
+                                                 @RequestParam(defaultValue = "100") int size) {
+        try {
+            if (size < 1 || size > CursorPage.MAX_SIZE) return ResponseEntity.badRequest().build();
+            return ResponseEntity.ok(wagonService.getWagonsPage(afterId, size));
+        } catch (DataAccessException exception) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    @Operation(summary = "Export all wagons as newline-delimited JSON")
+    @ApiResponses(
+            value = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "All wagons, one JSON object per line",
+                            content = @Content(mediaType = "application/x-ndjson")
+                    )
+            }
+    )
+    /**
+     * Export all wagons ordered by ID, streamed from the database while the response is written.
+     * @param response The response the wagons are written to.
+     * @return Async task streaming the wagons.
+     */
+    @GetMapping(value = "/export", produces = "application/x-ndjson")
+    public WebAsyncTask<Void> exportWagons(HttpServletResponse response) {
+        return ndjsonExportService.exportTask(wagonService::streamAllWagons, response);
+    }
 }
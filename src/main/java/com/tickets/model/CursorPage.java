@@ -0,0 +1,39 @@
+package com.tickets.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+/**
+ * Represents one page of a listing ordered by ID. The next page starts after the ID of the last
+ * item, so reading a page costs the same however deep into the table it is.
+ */
+@Getter
+@AllArgsConstructor
+public class CursorPage<T> {
+    /**
+     * The largest number of items of one page.
+     */
+    public static final int MAX_SIZE = 1000;
+
+    private List<T> items;
+
+    /**
+     * ID to pass as afterId for the next page, null on the last page.
+     */
+    private Long nextAfterId;
+
+    /**
+     * Creates a page from the items read for a requested page size.
+     * @param items Items of the page ordered by ID.
+     * @param size The requested page size.
+     * @param id Function reading the ID of an item.
+     * @return The page, without a next page when fewer items than requested were read.
+     */
+    public static <T> CursorPage<T> of(List<T> items, int size, ToLongFunction<T> id) {
+        Long nextAfterId = items.size() < size ? null : id.applyAsLong(items.get(items.size() - 1));
+        return new CursorPage<>(items, nextAfterId);
+    }
+}
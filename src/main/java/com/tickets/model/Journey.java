@@ -0,0 +1,27 @@
+package com.tickets.model;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Represents a journey made of one or more timetables with transfers between them.
+ */
+@Getter
+@Setter
+public class Journey {
+
+    /**
+     * Timetables of the journey in the order they are travelled.
+     */
+    private List<Timetable> legs;
+
+    private int transfers;
+
+    private LocalDateTime departureTime;
+
+    private LocalDateTime arrivalTime;
+
+}
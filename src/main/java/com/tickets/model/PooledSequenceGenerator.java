@@ -0,0 +1,46 @@
+package com.tickets.model;
+
+import org.hibernate.MappingException;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.config.spi.StandardConverters;
+import org.hibernate.id.SequenceMismatchStrategy;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.util.Properties;
+
+/**
+ * Sequence based ID generator shared by all entities.
+ * IDs are allocated in blocks with the pooled-lo optimizer, so inserts can be batched.
+ * The block size is read from the {@value #ALLOCATION_SIZE_SETTING} setting
+ * and has to match the increment of the database sequences. Hibernate compares them at
+ * startup, the generator makes sure a mismatch fails the startup instead of being logged
+ * or fixed, since blocks of another size overlap the IDs other nodes have allocated.
+ */
+public class PooledSequenceGenerator extends SequenceStyleGenerator {
+    /**
+     * Hibernate setting with the number of IDs allocated per sequence call.
+     */
+    public static final String ALLOCATION_SIZE_SETTING = "tickets.id.allocation_size";
+    private static final String DEFAULT_ALLOCATION_SIZE = "50";
+
+    @Override
+    public void configure(Type type, Properties parameters, ServiceRegistry serviceRegistry) throws MappingException {
+        ConfigurationService configurationService = serviceRegistry.getService(ConfigurationService.class);
+        SequenceMismatchStrategy mismatchStrategy = configurationService.getSetting(
+                AvailableSettings.SEQUENCE_INCREMENT_SIZE_MISMATCH_STRATEGY, SequenceMismatchStrategy::interpret,
+                SequenceMismatchStrategy.EXCEPTION);
+        if (mismatchStrategy != SequenceMismatchStrategy.EXCEPTION) {
+            throw new MappingException(AvailableSettings.SEQUENCE_INCREMENT_SIZE_MISMATCH_STRATEGY
+                    + " must be EXCEPTION, sequences with another increment than "
+                    + ALLOCATION_SIZE_SETTING + " would allocate overlapping IDs");
+        }
+        String allocationSize = configurationService
+                .getSetting(ALLOCATION_SIZE_SETTING, StandardConverters.STRING, DEFAULT_ALLOCATION_SIZE);
+        parameters.put(INCREMENT_PARAM, allocationSize);
+        parameters.put(OPT_PARAM, "pooled-lo");
+        super.configure(type, parameters, serviceRegistry);
+    }
+}
@@ -1,10 +1,16 @@
 package com.tickets.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.tickets.model.enums.ReservationState;
 import jakarta.persistence.*;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 import lombok.Getter;
 import lombok.Setter;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -15,9 +21,29 @@ import java.util.List;
 @Entity(name = "reservations")
 public class Reservation {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = "reservations_seq")
+    @GenericGenerator(name = "reservations_seq", type = PooledSequenceGenerator.class,
+            parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "reservations_seq"))
     private long id;
 
+    /**
+     * The lifecycle state, reservations made without a hold are confirmed at once.
+     */
+    @Enumerated(EnumType.STRING)
+    @ColumnDefault("'Confirmed'")
+    private ReservationState state = ReservationState.Confirmed;
+
+    /**
+     * When a held reservation is released unless it is confirmed, null for confirmed reservations.
+     */
+    private LocalDateTime holdExpiresAt;
+
+    /**
+     * Secret the buyer confirms or releases a held reservation with, null for reservations made without a hold.
+     */
+    @JsonIgnore
+    private String holdToken;
+
     /**
      * List of seats reserved for this reservation.
      */
@@ -0,0 +1,48 @@
+package com.tickets.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.tickets.model.enums.ReservationStatus;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Represents an accepted reservation request whose seats are allocated asynchronously.
+ * Tickets are stored, so any node can answer for a ticket issued by another one.
+ */
+@Getter
+@Setter
+@Entity(name = "reservation_tickets")
+public class ReservationTicket {
+
+    @Id
+    private String id;
+
+    private long timetableId;
+
+    private int numberOfSeats;
+
+    @Enumerated(EnumType.STRING)
+    private volatile ReservationStatus status = ReservationStatus.Pending;
+
+    /**
+     * The reservation holding the seats, set once the status is Reserved.
+     */
+    private Long reservationId;
+
+    /**
+     * When the ticket is no longer answered.
+     */
+    @JsonIgnore
+    private LocalDateTime expiresAt;
+
+    /**
+     * Reserved seats, set once the status is Reserved.
+     */
+    @Transient
+    private volatile List<Seat> seats;
+
+}
@@ -0,0 +1,39 @@
+package com.tickets.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Represents a seat reserved for a part of the timetable route.
+ */
+@Getter
+@Setter
+@Entity(name = "reserved_segments")
+public class ReservedSegment {
+    @Id
+    @GeneratedValue(generator = "reserved_segments_seq")
+    @GenericGenerator(name = "reserved_segments_seq", type = PooledSequenceGenerator.class,
+            parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "reserved_segments_seq"))
+    private long id;
+
+    /**
+     * Bitmask of the reserved segments, bit i is the segment between stop i and stop i + 1.
+     */
+    private long segmentMask;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "seat_id")
+    @JsonIgnore
+    private Seat seat;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "reservation_id")
+    @JsonIgnore
+    private Reservation reservation;
+
+}
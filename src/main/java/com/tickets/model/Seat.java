@@ -2,6 +2,10 @@ package com.tickets.model;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.tickets.model.enums.SeatType;
 import jakarta.persistence.*;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 import lombok.Getter;
 import lombok.Setter;
 
@@ -12,9 +16,12 @@ import lombok.Setter;
 @Getter
 @Setter
 @Entity(name = "seats")
+@Table(indexes = @Index(name = "seats_wagon_id_reservation_id_idx", columnList = "wagon_id, reservation_id"))
 public class Seat {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = "seats_seq")
+    @GenericGenerator(name = "seats_seq", type = PooledSequenceGenerator.class,
+            parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "seats_seq"))
     private long id;
 
     private long seatNumber;
@@ -25,6 +32,13 @@ public class Seat {
     @Enumerated(EnumType.STRING)
     private SeatType seatType;
 
+    /**
+     * Bitmask of the timetable segments reserved separately, bit i is the segment between stop i and stop i + 1.
+     */
+    @ColumnDefault("0")
+    @JsonIgnore
+    private long soldSegments;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "wagon_id")
     @JsonIgnore
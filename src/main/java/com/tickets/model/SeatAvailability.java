@@ -0,0 +1,24 @@
+package com.tickets.model;
+
+import com.tickets.model.enums.SeatType;
+import com.tickets.model.enums.WagonType;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Map;
+
+/**
+ * Represents the number of free seats of a timetable, in total and by seat type and wagon type.
+ * A seat is free when none of its segments is sold.
+ */
+@Getter
+@AllArgsConstructor
+public class SeatAvailability {
+
+    private int freeSeats;
+
+    private Map<SeatType, Integer> freeSeatsBySeatType;
+
+    private Map<WagonType, Integer> freeSeatsByWagonType;
+
+}
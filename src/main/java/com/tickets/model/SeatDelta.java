@@ -0,0 +1,35 @@
+package com.tickets.model;
+
+import com.tickets.model.enums.SeatDeltaType;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Represents seats of a timetable reserved or released by one committed change.
+ * The segment mask has a bit set for every changed segment, all bits for the whole timetable.
+ * <p>
+ * Changes may arrive in another order than they were committed in. Every reservation reserves
+ * its seats once and releases them once, so a client keeping the reservations holding every seat,
+ * and ignoring a reservation of a reservation it already saw released, ends in the same state
+ * whatever the order was.
+ */
+@Getter
+@AllArgsConstructor
+public class SeatDelta {
+
+    private long timetableId;
+
+    /**
+     * The reservation which reserved or released the seats.
+     */
+    private long reservationId;
+
+    private SeatDeltaType type;
+
+    private long segmentMask;
+
+    private List<Long> seatIds;
+
+}
@@ -0,0 +1,27 @@
+package com.tickets.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Represents seats held for a buyer until the hold is confirmed, released or expires.
+ */
+@Getter
+@AllArgsConstructor
+public class SeatHold {
+
+    private long reservationId;
+
+    /**
+     * Secret required to confirm or release the hold, known only to the buyer.
+     */
+    private String holdToken;
+
+    private LocalDateTime expiresAt;
+
+    private List<Seat> seats;
+
+}
@@ -0,0 +1,43 @@
+package com.tickets.model;
+
+import com.tickets.model.enums.SeatType;
+import com.tickets.model.enums.WagonType;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Read-only row of the seat map of a timetable, one per seat together with its wagon.
+ */
+@Getter
+@AllArgsConstructor
+public class SeatMapEntry {
+
+    private long seatId;
+
+    private long seatNumber;
+
+    /**
+     * The type of the seat.
+     */
+    private SeatType seatType;
+
+    private long wagonId;
+
+    private int wagonNumber;
+
+    /**
+     * The type of the wagon.
+     */
+    private WagonType wagonType;
+
+    /**
+     * The reservation ID of a seat reserved for the whole timetable, null if it is not reserved.
+     */
+    private Long reservationId;
+
+    /**
+     * Bitmask of the timetable segments reserved separately.
+     */
+    private long soldSegments;
+
+}
@@ -0,0 +1,40 @@
+package com.tickets.model;
+
+import com.tickets.model.enums.SeatAllocationPolicy;
+import com.tickets.model.enums.SeatType;
+import com.tickets.model.enums.WagonType;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Represents the seats a buyer asks for and the rules used to allocate them.
+ */
+@Getter
+@Setter
+public class SeatPreference {
+    /**
+     * The most seats one request may reserve.
+     */
+    public static final int MAX_NUMBER_OF_SEATS = 100;
+
+    private int numberOfSeats = 1;
+
+    /**
+     * The requested seat type, used by the seat type policies.
+     */
+    private SeatType seatType;
+
+    /**
+     * The requested wagon type, used by the wagon type policy.
+     */
+    private WagonType wagonType;
+
+    /**
+     * Policies applied to the allocation, seats of any type in any wagon are allocated without policies.
+     */
+    private List<SeatAllocationPolicy> policies = new ArrayList<>();
+
+}
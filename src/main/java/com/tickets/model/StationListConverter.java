@@ -0,0 +1,32 @@
+package com.tickets.model;
+
+import com.tickets.model.enums.Station;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Stores an ordered list of stations in one column as comma separated names.
+ */
+@Converter
+public class StationListConverter implements AttributeConverter<List<Station>, String> {
+
+    @Override
+    public String convertToDatabaseColumn(List<Station> stations) {
+        if (stations == null || stations.isEmpty()) {
+            return null;
+        }
+        return String.join(",", stations.stream().map(Station::name).toList());
+    }
+
+    @Override
+    public List<Station> convertToEntityAttribute(String column) {
+        if (column == null || column.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return new ArrayList<>(Arrays.stream(column.split(",")).map(Station::valueOf).toList());
+    }
+}
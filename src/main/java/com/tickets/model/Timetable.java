@@ -3,10 +3,15 @@ package com.tickets.model;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.tickets.model.enums.Station;
 import jakarta.persistence.*;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 import lombok.Getter;
 import lombok.Setter;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Represents a timetable for train departures and arrivals.
@@ -17,7 +22,9 @@ import java.time.LocalDateTime;
 public class Timetable {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = "timetables_seq")
+    @GenericGenerator(name = "timetables_seq", type = PooledSequenceGenerator.class,
+            parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "timetables_seq"))
     private long id;
 
     /**
@@ -36,6 +43,12 @@ public class Timetable {
 
     private LocalDateTime endTime;
 
+    /**
+     * Intermediate stations between startStation and endStation in the order of the route.
+     */
+    @Convert(converter = StationListConverter.class)
+    private List<Station> stops = new ArrayList<>();
+
     @OneToOne(mappedBy = "timetable", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     @JsonIgnore
     private Train train;
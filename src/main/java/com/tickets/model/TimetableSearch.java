@@ -0,0 +1,19 @@
+package com.tickets.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Represents the cached result of a timetable search with the entity tag of its version.
+ */
+@Getter
+@AllArgsConstructor
+public class TimetableSearch {
+
+    private List<Timetable> timetables;
+
+    private String eTag;
+
+}
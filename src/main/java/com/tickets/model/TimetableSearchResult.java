@@ -0,0 +1,47 @@
+package com.tickets.model;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * Represents a timetable search response already encoded as a JSON array of strings.
+ * The elements are shared byte fragments, written to the response as they are.
+ */
+public class TimetableSearchResult {
+    private final List<byte[]> fragments;
+    private final int contentLength;
+
+    /**
+     * Creates the result.
+     * @param fragments Encoded JSON strings, one per element of the array.
+     */
+    public TimetableSearchResult(List<byte[]> fragments) {
+        this.fragments = fragments;
+        int length = 2 + Math.max(fragments.size() - 1, 0);
+        for (byte[] fragment : fragments) {
+            length += fragment.length;
+        }
+        this.contentLength = length;
+    }
+
+    public int getContentLength() {
+        return contentLength;
+    }
+
+    /**
+     * Writes the JSON array.
+     * @param outputStream The stream to write to, left open.
+     * @throws IOException If writing to the stream fails.
+     */
+    public void writeTo(OutputStream outputStream) throws IOException {
+        outputStream.write('[');
+        for (int i = 0; i < fragments.size(); i++) {
+            if (i > 0) {
+                outputStream.write(',');
+            }
+            outputStream.write(fragments.get(i));
+        }
+        outputStream.write(']');
+    }
+}
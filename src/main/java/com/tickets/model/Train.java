@@ -2,6 +2,11 @@ package com.tickets.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 import lombok.Getter;
 import lombok.Setter;
 
@@ -13,10 +18,14 @@ import java.util.List;
 @Getter
 @Setter
 @Entity(name = "trains")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "trains")
 public class Train {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = "trains_seq")
+    @GenericGenerator(name = "trains_seq", type = PooledSequenceGenerator.class,
+            parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "trains_seq"))
     private long id;
 
     private String trainName;
@@ -27,6 +36,7 @@ public class Train {
      * List of wagons attached to this train.
      */
     @OneToMany(mappedBy = "train", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "train-wagons")
     @JsonIgnore
     private List<Wagon> wagons;
 
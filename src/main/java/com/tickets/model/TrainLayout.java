@@ -0,0 +1,34 @@
+package com.tickets.model;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * Represents the layout of a train to provision in one request.
+ */
+@Getter
+@Setter
+public class TrainLayout {
+
+    /**
+     * The most wagons one train may have.
+     */
+    public static final int MAX_WAGONS = 100;
+
+    /**
+     * The most seats one train may have in all its wagons.
+     */
+    public static final int MAX_SEATS = 5000;
+
+    private String trainName;
+
+    private long trainNumber;
+
+    /**
+     * Layouts of the wagons in the order they are attached to the train.
+     */
+    private List<WagonLayout> wagons;
+
+}
@@ -2,6 +2,11 @@ package com.tickets.model;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.tickets.model.enums.WagonType;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 import lombok.Getter;
 import lombok.Setter;
 import java.util.List;
@@ -12,10 +17,14 @@ import java.util.List;
 @Getter
 @Setter
 @Entity(name = "wagons")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "wagons")
 public class Wagon {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = "wagons_seq")
+    @GenericGenerator(name = "wagons_seq", type = PooledSequenceGenerator.class,
+            parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "wagons_seq"))
     private long id;
 
     private int wagonNumber;
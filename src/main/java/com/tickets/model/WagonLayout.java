@@ -0,0 +1,32 @@
+package com.tickets.model;
+
+import com.tickets.model.enums.SeatType;
+import com.tickets.model.enums.WagonType;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.Map;
+
+/**
+ * Represents the layout of a wagon within a train layout.
+ */
+@Getter
+@Setter
+public class WagonLayout {
+
+    /**
+     * The most seats one wagon may have.
+     */
+    public static final int MAX_SEATS = 200;
+
+    /**
+     * The type of the wagon.
+     */
+    private WagonType wagonType;
+
+    /**
+     * Number of seats of every seat type. Seats are numbered from 1 in the order of seat types.
+     */
+    private Map<SeatType, Integer> seats;
+
+}
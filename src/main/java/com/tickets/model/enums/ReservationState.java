@@ -0,0 +1,12 @@
+package com.tickets.model.enums;
+
+/**
+ * Represents the lifecycle state of a stored reservation.
+ */
+public enum ReservationState {
+    /**
+     * Seats are held while the buyer completes the payment, the hold is released when it expires.
+     */
+    Held,
+    Confirmed
+}
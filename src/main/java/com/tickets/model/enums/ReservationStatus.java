@@ -0,0 +1,11 @@
+package com.tickets.model.enums;
+
+/**
+ * Represents the state of an asynchronous reservation.
+ */
+public enum ReservationStatus {
+    Pending,
+    Reserved,
+    Not_Enough_Seats,
+    Failed
+}
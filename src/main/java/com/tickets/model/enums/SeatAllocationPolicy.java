@@ -0,0 +1,32 @@
+package com.tickets.model.enums;
+
+/**
+ * Represents a rule applied when seats are allocated for a reservation.
+ */
+public enum SeatAllocationPolicy {
+    /**
+     * Only seats of the requested seat type are allocated.
+     */
+    Exact_Seat_Type,
+    /**
+     * Seats of the requested seat type are preferred, then the nearest types.
+     */
+    Nearest_Seat_Type,
+    /**
+     * All seats are allocated in one wagon.
+     */
+    Same_Wagon,
+    /**
+     * All seats are allocated in one wagon with consecutive seat numbers.
+     */
+    Adjacent_Seats,
+    /**
+     * Wagons of the requested wagon type are preferred.
+     */
+    Wagon_Type,
+    /**
+     * Seats are kept as close as possible: consecutive seat numbers in one wagon are preferred,
+     * then any seats in one wagon, then the fewest neighbouring wagons.
+     */
+    Keep_Together
+}
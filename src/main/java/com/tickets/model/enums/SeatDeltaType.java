@@ -0,0 +1,9 @@
+package com.tickets.model.enums;
+
+/**
+ * Represents the kind of change of seats sent to watchers of a timetable.
+ */
+public enum SeatDeltaType {
+    Reserved,
+    Released
+}
@@ -0,0 +1,37 @@
+package com.tickets.repository;
+
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.NoRepositoryBean;
+import org.springframework.data.repository.Repository;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Listing queries shared by repositories read by the admin endpoints, which must not load whole tables.
+ */
+@NoRepositoryBean
+public interface KeysetRepository<T> extends Repository<T, Long> {
+    /**
+     * Number of rows the JDBC driver fetches at a time while streaming.
+     */
+    String STREAM_FETCH_SIZE = "1000";
+
+    /**
+     * Finds the first entities with an ID greater than the given one, in ID order.
+     */
+    List<T> findByIdGreaterThanOrderByIdAsc(long afterId, Pageable pageable);
+
+    /**
+     * Streams all entities in ID order, fetching the rows in chunks. The stream must be read and
+     * closed inside a transaction.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<T> streamAllByOrderByIdAsc();
+}
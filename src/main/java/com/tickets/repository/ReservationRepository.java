@@ -1,14 +1,48 @@
 package com.tickets.repository;
 
 import com.tickets.model.Reservation;
+import com.tickets.model.enums.ReservationState;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
 /**
  * Repository interface for managing reservations in the database.
  */
 @Repository
-public interface ReservationRepository extends JpaRepository<Reservation, Long> {
+public interface ReservationRepository extends JpaRepository<Reservation, Long>, KeysetRepository<Reservation> {
+
+    /**
+     * Finds reservation by ID and locks it until the end of the transaction.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select r from reservations r where r.id = :id")
+    Optional<Reservation> findByIdForUpdate(@Param("id") long id);
+
+    /**
+     * Finds all reservations in a state.
+     */
+    List<Reservation> findAllByState(ReservationState state);
 
+    /**
+     * Checks that reservation exists by ID and hold token.
+     */
+    boolean existsByIdAndHoldToken(long id, String holdToken);
 
+    /**
+     * Confirms a held reservation in one update, unless its hold has already expired or the token does not match.
+     */
+    @Modifying
+    @Query("update reservations r set r.state = com.tickets.model.enums.ReservationState.Confirmed, r.holdExpiresAt = null"
+            + " where r.id = :id and r.holdToken = :holdToken"
+            + " and r.state = com.tickets.model.enums.ReservationState.Held and r.holdExpiresAt > :now")
+    int confirmHold(@Param("id") long id, @Param("holdToken") String holdToken, @Param("now") LocalDateTime now);
 }
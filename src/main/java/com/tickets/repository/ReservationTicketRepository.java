@@ -0,0 +1,26 @@
+package com.tickets.repository;
+
+import com.tickets.model.ReservationTicket;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+/**
+ * Repository interface for managing reservation tickets in the database.
+ */
+@Repository
+public interface ReservationTicketRepository extends JpaRepository<ReservationTicket, String> {
+
+    /**
+     * Deletes all tickets which expired before the given time.
+     */
+    @Modifying
+    @Transactional
+    @Query("delete from reservation_tickets t where t.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
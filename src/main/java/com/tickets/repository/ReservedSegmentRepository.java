@@ -0,0 +1,19 @@
+package com.tickets.repository;
+
+import com.tickets.model.ReservedSegment;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Repository interface for managing reserved segments in the database.
+ */
+@Repository
+public interface ReservedSegmentRepository extends JpaRepository<ReservedSegment, Long> {
+
+    /**
+     * Finds all reserved segments by reservation ID.
+     */
+    List<ReservedSegment> findAllByReservationId(long reservationId);
+}
@@ -1,9 +1,21 @@
 package com.tickets.repository;
 
+import com.tickets.model.Reservation;
 import com.tickets.model.Seat;
+import com.tickets.model.SeatMapEntry;
+import com.tickets.model.enums.SeatType;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 
@@ -11,11 +23,87 @@ import java.util.List;
  * Repository interface for managing seats in the database.
  */
 @Repository
-public interface SeatRepository extends JpaRepository<Seat, Long> {
+public interface SeatRepository extends JpaRepository<Seat, Long>, KeysetRepository<Seat> {
+    /**
+     * Lock timeout understood by Hibernate as SKIP LOCKED.
+     */
+    String SKIP_LOCKED = "-2";
+
     /**
      * Finds a seats by reservation ID.
      */
     List<Seat> findSeatsByReservationId(long reservationId);
 
+    /**
+     * Finds the seat map of the train assigned to timetable in one query, without loading seat entities.
+     */
+    @Query("select new com.tickets.model.SeatMapEntry(s.id, s.seatNumber, s.seatType, w.id, w.wagonNumber, w.wagonType, s.reservation.id, s.soldSegments)"
+            + " from seats s join s.wagon w join w.train t where t.timetable.id = :timetableId order by w.wagonNumber, s.seatNumber")
+    List<SeatMapEntry> findSeatMapByTimetableId(@Param("timetableId") long timetableId);
+
+    /**
+     * Finds the first free seats of the train assigned to timetable and locks them until the end
+     * of the transaction. Seats locked by another transaction are skipped instead of waited for.
+     * Ordered like the seats_free_wagon_id_id_idx index, so the scan stops after the requested seats.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = SKIP_LOCKED))
+    @Query("select s from seats s where s.reservation is null and s.soldSegments = 0"
+            + " and s.wagon.id in (select w.id from wagons w where w.train.timetable.id = :timetableId)"
+            + " order by s.wagon.id, s.id")
+    List<Seat> findFreeSeatsForUpdate(@Param("timetableId") long timetableId, Pageable pageable);
+
+    /**
+     * Finds the first free seats of a seat type of the train assigned to timetable and locks them until
+     * the end of the transaction. Seats locked by another transaction are skipped instead of waited for.
+     * Ordered like the seats_free_wagon_id_seat_type_idx index, so the scan stops after the requested seats.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = SKIP_LOCKED))
+    @Query("select s from seats s where s.reservation is null and s.soldSegments = 0 and s.seatType = :seatType"
+            + " and s.wagon.id in (select w.id from wagons w where w.train.timetable.id = :timetableId)"
+            + " order by s.wagon.id, s.id")
+    List<Seat> findFreeSeatsOfTypeForUpdate(@Param("timetableId") long timetableId, @Param("seatType") SeatType seatType,
+                                            Pageable pageable);
+
+    /**
+     * Assigns reservation to not reserved seats by IDs in one update.
+     */
+    @Modifying
+    @Query("update seats s set s.reservation = :reservation where s.id in :seatIds and s.reservation is null and s.soldSegments = 0")
+    int claimSeats(@Param("reservation") Reservation reservation, @Param("seatIds") Collection<Long> seatIds);
+
+    /**
+     * Finds the ID of the timetable the train of a seat is assigned to.
+     */
+    @Query("select w.train.timetable.id from seats s join s.wagon w where s.id = :seatId")
+    Long findTimetableIdBySeatId(@Param("seatId") long seatId);
+
+    /**
+     * Finds IDs of seats by reservation ID.
+     */
+    @Query("select s.id from seats s where s.reservation.id = :reservationId")
+    List<Long> findSeatIdsByReservationId(@Param("reservationId") long reservationId);
+
+    /**
+     * Removes reservation from all seats by IDs in one update.
+     */
+    @Modifying
+    @Query("update seats s set s.reservation = null where s.id in :seatIds")
+    int releaseSeats(@Param("seatIds") Collection<Long> seatIds);
+
+    /**
+     * Finds seats by IDs and locks them until the end of the transaction.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select s from seats s where s.id in :seatIds order by s.id")
+    List<Seat> findSeatsForUpdate(@Param("seatIds") Collection<Long> seatIds);
+
+    /**
+     * Removes reserved segments from all seats by IDs in one update.
+     */
+    @Modifying
+    @Query("update seats s set s.soldSegments = s.soldSegments - :segmentMask where s.id in :seatIds")
+    int releaseSegments(@Param("segmentMask") long segmentMask, @Param("seatIds") Collection<Long> seatIds);
 
 }
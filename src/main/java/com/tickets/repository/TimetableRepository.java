@@ -2,31 +2,75 @@ package com.tickets.repository;
 
 import com.tickets.model.Timetable;
 import com.tickets.model.enums.Station;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 /**
  * Repository interface for managing timetables in the database.
  */
 
 @Repository
-public interface TimetableRepository extends JpaRepository<Timetable, Long> {
+public interface TimetableRepository extends JpaRepository<Timetable, Long>, KeysetRepository<Timetable> {
+    // Timetable.train is the inverse side of a one-to-one, so Hibernate cannot leave it lazy and
+    // would load it with one more query per timetable. Every finder fetches it in the same query.
+
+    /**
+     * Finds all timetables together with their trains.
+     */
+    @Override
+    @EntityGraph(attributePaths = "train")
+    List<Timetable> findAll();
+
+    /**
+     * Finds timetable by ID together with its train.
+     */
+    @Override
+    @EntityGraph(attributePaths = "train")
+    Optional<Timetable> findById(Long id);
+
+    /**
+     * Finds the first timetables after an ID together with their trains.
+     */
+    @Override
+    @EntityGraph(attributePaths = "train")
+    List<Timetable> findByIdGreaterThanOrderByIdAsc(long afterId, Pageable pageable);
+
+    /**
+     * Streams all timetables together with their trains.
+     */
+    @Override
+    @EntityGraph(attributePaths = "train")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<Timetable> streamAllByOrderByIdAsc();
 
     /**
      * Finds all StartStations in Timetable list.
      */
+    @EntityGraph(attributePaths = "train")
     List<Timetable> findAllByStartStation(Station startStation);
 
     /**
      * Finds all StartStations and EndStations in Timetable list.
      */
+    @EntityGraph(attributePaths = "train")
     List<Timetable> findAllByStartStationAndEndStation(Station startStation, Station endStation);
 
     /**
-     * Finds all StartStations and EndStations with StartTime in Timetable list.
+     * Finds the timetable with the lowest ID by StartStation, EndStation and StartTime.
      */
-    Timetable findByStartStationAndEndStationAndStartTime(Station startStation, Station endStation, LocalDateTime startTime);
+    @EntityGraph(attributePaths = "train")
+    Timetable findFirstByStartStationAndEndStationAndStartTimeOrderByIdAsc(Station startStation, Station endStation, LocalDateTime startTime);
 
 }
@@ -8,7 +8,7 @@ import org.springframework.stereotype.Repository;
  */
 
 @Repository
-public interface TrainRepository extends JpaRepository<Train, Long> {
+public interface TrainRepository extends JpaRepository<Train, Long>, KeysetRepository<Train> {
 
     /**
      * Finds a train by timetable ID.
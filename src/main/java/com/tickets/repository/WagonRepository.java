@@ -2,11 +2,21 @@ package com.tickets.repository;
 
 import com.tickets.model.Wagon;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
 /**
  * Repository interface for managing wagons in the database.
  */
 @Repository
-public interface WagonRepository extends JpaRepository<Wagon, Long> {
+public interface WagonRepository extends JpaRepository<Wagon, Long>, KeysetRepository<Wagon> {
 
-}
\ No newline at end of file
+    /**
+     * Finds all wagons of a train together with their seats in one query.
+     */
+    @Query("select distinct w from wagons w left join fetch w.seats where w.train.id = :trainId order by w.wagonNumber")
+    List<Wagon> findWagonsWithSeatsByTrainId(@Param("trainId") long trainId);
+}
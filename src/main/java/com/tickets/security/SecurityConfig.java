@@ -43,15 +43,36 @@ public class SecurityConfig {
         http
                 .authorizeRequests(authorizeRequests -> authorizeRequests
                         .requestMatchers(new AntPathRequestMatcher("/seats")).hasRole("ADMIN")
+                        .requestMatchers(new AntPathRequestMatcher("/seats/page")).hasRole("ADMIN")
+                        .requestMatchers(new AntPathRequestMatcher("/seats/export")).hasRole("ADMIN")
                         .requestMatchers(new AntPathRequestMatcher("/wagons")).hasRole("ADMIN")
+                        .requestMatchers(new AntPathRequestMatcher("/wagons/page")).hasRole("ADMIN")
+                        .requestMatchers(new AntPathRequestMatcher("/wagons/export")).hasRole("ADMIN")
                         .requestMatchers(new AntPathRequestMatcher("/trains")).hasRole("ADMIN")
+                        .requestMatchers(new AntPathRequestMatcher("/trains/page")).hasRole("ADMIN")
+                        .requestMatchers(new AntPathRequestMatcher("/trains/export")).hasRole("ADMIN")
                         .requestMatchers(new AntPathRequestMatcher("/timetables")).hasRole("ADMIN")
+                        .requestMatchers(new AntPathRequestMatcher("/timetables/page")).hasRole("ADMIN")
+                        .requestMatchers(new AntPathRequestMatcher("/timetables/export")).hasRole("ADMIN")
                         .requestMatchers(new AntPathRequestMatcher("/reservations")).hasRole("ADMIN")
+                        .requestMatchers(new AntPathRequestMatcher("/reservations/page")).hasRole("ADMIN")
+                        .requestMatchers(new AntPathRequestMatcher("/reservations/export")).hasRole("ADMIN")
                         .requestMatchers(new AntPathRequestMatcher("/reservations/{id}")).hasRole("ADMIN")
                         .requestMatchers(new AntPathRequestMatcher("/reservations/startAndEndStation/{startStation}/{endStation}/{startTime}/seatType/{seatType}")).permitAll()
                         .requestMatchers(new AntPathRequestMatcher("/reservations/startAndEndStation/{startStation}/{endStation}/{startTime}/numberOfSeats/{numberOfSeats}")).permitAll()
+                        .requestMatchers(new AntPathRequestMatcher("/reservations/startAndEndStation/{startStation}/{endStation}/{startTime}/from/{fromStation}/to/{toStation}/numberOfSeats/{numberOfSeats}")).permitAll()
+                        .requestMatchers(new AntPathRequestMatcher("/reservations/startAndEndStation/{startStation}/{endStation}/{startTime}/preferences")).permitAll()
+                        .requestMatchers(new AntPathRequestMatcher("/reservations/startAndEndStation/{startStation}/{endStation}/{startTime}/holds")).permitAll()
+                        .requestMatchers(new AntPathRequestMatcher("/reservations/startAndEndStation/{startStation}/{endStation}/{startTime}/availability")).permitAll()
+                        .requestMatchers(new AntPathRequestMatcher("/reservations/startAndEndStation/{startStation}/{endStation}/{startTime}/seatEvents")).permitAll()
+                        .requestMatchers(new AntPathRequestMatcher("/reservations/holds/{reservationId}/confirm")).permitAll()
+                        .requestMatchers(new AntPathRequestMatcher("/reservations/holds/{reservationId}")).permitAll()
                         .requestMatchers(new AntPathRequestMatcher("/reservations/startAndEndStation/{startStation}/{endStation}")).permitAll()
                         .requestMatchers(new AntPathRequestMatcher("/reservations/endStations/{startStation}")).permitAll()
+                        .requestMatchers(new AntPathRequestMatcher("/reservations/journeys/{startStation}/{endStation}/{departureTime}")).permitAll()
+                        .requestMatchers(new AntPathRequestMatcher("/reservations/async/startAndEndStation/{startStation}/{endStation}/{startTime}/numberOfSeats/{numberOfSeats}")).permitAll()
+                        .requestMatchers(new AntPathRequestMatcher("/reservations/tickets/{ticketId}")).permitAll()
+                        .requestMatchers(new AntPathRequestMatcher("/reservations/tickets/{ticketId}/events")).permitAll()
                         .anyRequest().authenticated())
                 .csrf(csrf -> csrf.disable())
                 .httpBasic(Customizer.withDefaults());
@@ -0,0 +1,103 @@
+package com.tickets.service;
+
+/**
+ * Segment tree over the seats of one wagon, in seat number order, finding runs of free seats
+ * with consecutive seat numbers. Every node keeps the longest free run of its range and the
+ * free runs touching both ends of it, so the longest run of the wagon is read from the root
+ * and finding the first run of a length or marking a seat costs O(log n).
+ */
+final class FreeRunTree {
+    private final int size;
+    /**
+     * Element {@code i} is true when seat {@code i + 1} has the seat number following seat {@code i}.
+     */
+    private final boolean[] consecutive;
+    private final int[] prefix;
+    private final int[] suffix;
+    private final int[] longest;
+
+    /**
+     * Creates the tree with all seats sold.
+     * @param seatNumbers Seat numbers of the wagon in ascending order.
+     */
+    FreeRunTree(long[] seatNumbers) {
+        size = seatNumbers.length;
+        consecutive = new boolean[size];
+        for (int i = 0; i + 1 < size; i++) {
+            consecutive[i] = seatNumbers[i + 1] == seatNumbers[i] + 1;
+        }
+        prefix = new int[4 * Math.max(size, 1)];
+        suffix = new int[prefix.length];
+        longest = new int[prefix.length];
+    }
+
+    /**
+     * Retrieves the length of the longest run of free seats.
+     */
+    int longestRun() {
+        return size == 0 ? 0 : longest[1];
+    }
+
+    /**
+     * Marks a seat as free or sold.
+     * @param seat Index of the seat in the wagon.
+     * @param free True if the seat is free.
+     */
+    void set(int seat, boolean free) {
+        set(1, 0, size - 1, seat, free);
+    }
+
+    /**
+     * Finds the first run of free seats of a length.
+     * @param length The number of seats.
+     * @return Index of the first seat of the run, -1 if there is no such run.
+     */
+    int findRun(int length) {
+        return size == 0 || length <= 0 ? -1 : findRun(1, 0, size - 1, length);
+    }
+
+    private void set(int node, int low, int high, int seat, boolean free) {
+        if (low == high) {
+            int run = free ? 1 : 0;
+            prefix[node] = run;
+            suffix[node] = run;
+            longest[node] = run;
+            return;
+        }
+        int middle = (low + high) >>> 1;
+        if (seat <= middle) {
+            set(2 * node, low, middle, seat, free);
+        } else {
+            set(2 * node + 1, middle + 1, high, seat, free);
+        }
+        merge(node, low, middle, high);
+    }
+
+    private void merge(int node, int low, int middle, int high) {
+        int left = 2 * node;
+        int right = left + 1;
+        boolean joined = consecutive[middle];
+        prefix[node] = joined && prefix[left] == middle - low + 1 ? prefix[left] + prefix[right] : prefix[left];
+        suffix[node] = joined && suffix[right] == high - middle ? suffix[right] + suffix[left] : suffix[right];
+        longest[node] = Math.max(Math.max(longest[left], longest[right]), joined ? suffix[left] + prefix[right] : 0);
+    }
+
+    private int findRun(int node, int low, int high, int length) {
+        if (longest[node] < length) {
+            return -1;
+        }
+        if (low == high) {
+            return low;
+        }
+        int middle = (low + high) >>> 1;
+        int left = 2 * node;
+        int right = left + 1;
+        if (longest[left] >= length) {
+            return findRun(left, low, middle, length);
+        }
+        if (consecutive[middle] && suffix[left] + prefix[right] >= length) {
+            return middle - suffix[left] + 1;
+        }
+        return findRun(right, middle + 1, high, length);
+    }
+}
@@ -0,0 +1,83 @@
+package com.tickets.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Hashed timing wheel of hold deadlines. Scheduling appends to the bucket of the deadline
+ * tick without locks, and every tick only drains its own bucket, so the cost does not grow
+ * with the number of outstanding holds. Deadlines further away than one revolution stay in
+ * their bucket until the revolution they are due in. Cancelled holds are not removed, the
+ * caller skips them when they come out of the wheel.
+ */
+final class HoldExpiryWheel {
+    private final long tickMillis;
+    private final int mask;
+    private final Queue<Entry>[] buckets;
+    /**
+     * The last tick that was drained. Written only by the consumer calling {@link #expire}.
+     */
+    private volatile long processedTick;
+
+    /**
+     * Creates the wheel.
+     * @param tickMillis Length of one tick in milliseconds.
+     * @param wheelSize Number of buckets, rounded up to a power of two.
+     * @param startMillis Time the wheel starts at, in milliseconds.
+     */
+    @SuppressWarnings("unchecked")
+    HoldExpiryWheel(long tickMillis, int wheelSize, long startMillis) {
+        this.tickMillis = tickMillis;
+        int size = Integer.highestOneBit(Math.max(wheelSize - 1, 1)) << 1;
+        this.mask = size - 1;
+        this.buckets = new Queue[size];
+        for (int i = 0; i < size; i++) {
+            buckets[i] = new ConcurrentLinkedQueue<>();
+        }
+        this.processedTick = startMillis / tickMillis;
+    }
+
+    /**
+     * Schedules the expiry of a hold. Safe to call from any thread.
+     * @param id The reservation ID.
+     * @param deadlineMillis When the hold expires, in milliseconds.
+     */
+    void schedule(long id, long deadlineMillis) {
+        long tick = Math.max(Math.ceilDiv(deadlineMillis, tickMillis), processedTick + 1);
+        buckets[(int) (tick & mask)].offer(new Entry(id, tick));
+    }
+
+    /**
+     * Drains every tick up to the given time. Must be called by one thread at a time.
+     * A hold scheduled while its bucket is being drained expires at the latest one
+     * revolution late.
+     * @param nowMillis The current time in milliseconds.
+     * @return IDs of the holds due by now.
+     */
+    List<Long> expire(long nowMillis) {
+        List<Long> expired = new ArrayList<>();
+        long nowTick = nowMillis / tickMillis;
+        // A pause longer than one revolution only needs every bucket drained once.
+        long fromTick = Math.max(processedTick + 1, nowTick - mask);
+        for (long tick = fromTick; tick <= nowTick; tick++) {
+            processedTick = tick;
+            Queue<Entry> bucket = buckets[(int) (tick & mask)];
+            List<Entry> later = new ArrayList<>();
+            Entry entry;
+            while ((entry = bucket.poll()) != null) {
+                if (entry.deadlineTick <= nowTick) {
+                    expired.add(entry.id);
+                } else {
+                    later.add(entry);
+                }
+            }
+            bucket.addAll(later);
+        }
+        return expired;
+    }
+
+    private record Entry(long id, long deadlineTick) {
+    }
+}
@@ -0,0 +1,197 @@
+package com.tickets.service;
+
+import com.tickets.model.Journey;
+import com.tickets.model.Timetable;
+import com.tickets.model.enums.Station;
+import com.tickets.repository.TimetableRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Service class planning journeys with transfers over the timetable network.
+ * Uses a round based Connection Scan: every timetable is a connection, connections are
+ * kept in an array sorted by departure and round {@code k} finds the earliest arrival
+ * at every station using at most {@code k} timetables.
+ */
+@Service
+public class JourneyPlannerService {
+    /**
+     * Maximum number of timetables in one journey.
+     */
+    private static final int MAX_LEGS = 4;
+    private static final int NO_CONNECTION = -1;
+    private static final long UNREACHED = Long.MAX_VALUE;
+
+    private final TimetableIndex timetableIndex;
+    private final TimetableRepository timetableRepository;
+    private final long minimumTransferSeconds;
+    private volatile Connections connections = new Connections(-1, List.of());
+
+    @Autowired
+    public JourneyPlannerService(TimetableIndex timetableIndex,
+                                 TimetableRepository timetableRepository,
+                                 @Value("${tickets.journey-planner.minimum-transfer-time}") Duration minimumTransferTime) {
+        this.timetableIndex = timetableIndex;
+        this.timetableRepository = timetableRepository;
+        this.minimumTransferSeconds = minimumTransferTime.toSeconds();
+    }
+
+    /**
+     * Finds journeys from StartStation to EndStation departing at or after the given time.
+     * Only journeys which are not beaten by another one in both arrival time and number
+     * of transfers are returned.
+     * @param startStation The station where the journey starts.
+     * @param endStation The station where the journey ends.
+     * @param departureTime The earliest departure time.
+     * @return Journeys ordered from the fewest transfers to the earliest arrival, empty list if there is none.
+     */
+    public List<Journey> planJourneys(Station startStation, Station endStation, LocalDateTime departureTime) {
+        if (startStation == endStation) {
+            return new ArrayList<>();
+        }
+        Connections network = getConnections();
+        int stations = Station.values().length;
+        int origin = startStation.ordinal();
+        int target = endStation.ordinal();
+        long departure = toSeconds(departureTime);
+        int firstConnection = network.firstDepartingAtOrAfter(departure);
+
+        long[][] arrival = new long[MAX_LEGS + 1][stations];
+        int[][] reachedBy = new int[MAX_LEGS + 1][stations];
+        Arrays.fill(arrival[0], UNREACHED);
+        Arrays.fill(reachedBy[0], NO_CONNECTION);
+        arrival[0][origin] = departure;
+
+        List<Journey> journeys = new ArrayList<>();
+        long bestArrival = UNREACHED;
+        for (int legs = 1; legs <= MAX_LEGS; legs++) {
+            long[] previous = arrival[legs - 1];
+            long[] current = arrival[legs];
+            System.arraycopy(previous, 0, current, 0, stations);
+            System.arraycopy(reachedBy[legs - 1], 0, reachedBy[legs], 0, stations);
+            boolean improved = false;
+            for (int c = firstConnection; c < network.size(); c++) {
+                if (network.departures[c] >= current[target]) {
+                    break;
+                }
+                int from = network.from[c];
+                if (previous[from] == UNREACHED) {
+                    continue;
+                }
+                long readyAt = from == origin ? departure : previous[from] + minimumTransferSeconds;
+                int to = network.to[c];
+                if (network.departures[c] >= readyAt && network.arrivals[c] < current[to]) {
+                    current[to] = network.arrivals[c];
+                    reachedBy[legs][to] = c;
+                    improved = true;
+                }
+            }
+            if (current[target] < bestArrival) {
+                bestArrival = current[target];
+                journeys.add(toJourney(network, reachedBy, legs, origin, target));
+            }
+            if (!improved) {
+                break;
+            }
+        }
+        return journeys;
+    }
+
+    private Journey toJourney(Connections network, int[][] reachedBy, int legs, int origin, int target) {
+        List<Timetable> timetables = new ArrayList<>();
+        int station = target;
+        for (int round = legs; station != origin; round--) {
+            int connection = reachedBy[round][station];
+            timetables.add(network.timetables[connection]);
+            station = network.from[connection];
+        }
+        Collections.reverse(timetables);
+        Journey journey = new Journey();
+        journey.setLegs(timetables);
+        journey.setTransfers(timetables.size() - 1);
+        journey.setDepartureTime(timetables.get(0).getStartTime());
+        journey.setArrivalTime(timetables.get(timetables.size() - 1).getEndTime());
+        return journey;
+    }
+
+    /**
+     * Retrieves the connection array, rebuilding it when the timetable index changed.
+     */
+    private Connections getConnections() {
+        if (!timetableIndex.isLoaded()) {
+            return new Connections(-1, timetableRepository.findAll());
+        }
+        Connections current = connections;
+        long version = timetableIndex.getVersion();
+        if (current.version != version) {
+            current = new Connections(version, timetableIndex.getAll());
+            connections = current;
+        }
+        return current;
+    }
+
+    private static long toSeconds(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    /**
+     * Timetables as parallel arrays sorted by departure time.
+     */
+    private static final class Connections {
+        private final long version;
+        private final int[] from;
+        private final int[] to;
+        private final long[] departures;
+        private final long[] arrivals;
+        private final Timetable[] timetables;
+
+        private Connections(long version, List<Timetable> source) {
+            this.version = version;
+            Timetable[] sorted = source.stream()
+                    .filter(timetable -> timetable.getStartStation() != null && timetable.getEndStation() != null
+                            && timetable.getStartTime() != null && timetable.getEndTime() != null
+                            && !timetable.getEndTime().isBefore(timetable.getStartTime()))
+                    .sorted(Comparator.comparing(Timetable::getStartTime))
+                    .toArray(Timetable[]::new);
+            this.timetables = sorted;
+            this.from = new int[sorted.length];
+            this.to = new int[sorted.length];
+            this.departures = new long[sorted.length];
+            this.arrivals = new long[sorted.length];
+            for (int i = 0; i < sorted.length; i++) {
+                from[i] = sorted[i].getStartStation().ordinal();
+                to[i] = sorted[i].getEndStation().ordinal();
+                departures[i] = toSeconds(sorted[i].getStartTime());
+                arrivals[i] = toSeconds(sorted[i].getEndTime());
+            }
+        }
+
+        private int size() {
+            return timetables.length;
+        }
+
+        private int firstDepartingAtOrAfter(long departure) {
+            int low = 0;
+            int high = departures.length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (departures[middle] < departure) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+    }
+}
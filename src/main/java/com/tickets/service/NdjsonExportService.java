@@ -0,0 +1,94 @@
+package com.tickets.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.tickets.repository.KeysetRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.async.WebAsyncTask;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Service class writing whole tables as newline-delimited JSON. Rows are read from a database
+ * cursor and written one at a time, and the persistence context is cleared after every fetched
+ * chunk, so memory use does not depend on the size of the table.
+ * <p>
+ * Exports run as async tasks with their own timeout, so the default timeout of other async
+ * requests stays short.
+ */
+@Service
+public class NdjsonExportService {
+    private static final int CLEAR_EVERY = Integer.parseInt(KeysetRepository.STREAM_FETCH_SIZE);
+
+    private final EntityManager entityManager;
+    private final ObjectWriter objectWriter;
+    private final TransactionTemplate transactionTemplate;
+    private final long timeoutMillis;
+
+    @Autowired
+    public NdjsonExportService(EntityManager entityManager, ObjectMapper objectMapper,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${tickets.export.timeout}") Duration timeout) {
+        this.entityManager = entityManager;
+        this.objectWriter = objectMapper.writer().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.timeoutMillis = timeout.toMillis();
+    }
+
+    /**
+     * Creates an async task writing every entity of a query to the response as one JSON line.
+     * @param query Query streaming the entities, run inside a read-only transaction.
+     * @param response The response to write to.
+     * @return Task running the export with the export timeout.
+     */
+    public WebAsyncTask<Void> exportTask(Supplier<? extends Stream<?>> query, HttpServletResponse response) {
+        return new WebAsyncTask<>(timeoutMillis, () -> {
+            response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+            export(query, response.getOutputStream());
+            return null;
+        });
+    }
+
+    /**
+     * Writes every entity of a query as one JSON line.
+     * @param query Query streaming the entities, run inside a read-only transaction.
+     * @param outputStream The stream to write to, left open.
+     * @throws IOException If writing to the stream fails.
+     */
+    public void export(Supplier<? extends Stream<?>> query, OutputStream outputStream) throws IOException {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                try (Stream<?> entities = query.get()) {
+                    int written = 0;
+                    for (Iterator<?> iterator = entities.iterator(); iterator.hasNext(); ) {
+                        objectWriter.writeValue(outputStream, iterator.next());
+                        outputStream.write('\n');
+                        if (++written % CLEAR_EVERY == 0) {
+                            entityManager.clear();
+                        }
+                    }
+                    outputStream.flush();
+                } catch (IOException exception) {
+                    throw new UncheckedIOException(exception);
+                }
+            });
+        } catch (UncheckedIOException exception) {
+            throw exception.getCause();
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.tickets.service;
+
+import com.tickets.model.Seat;
+import com.tickets.model.Timetable;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Service class queueing seat reservations per timetable. Every timetable has a bounded
+ * queue drained by a single worker, so requests for the same train are served in arrival
+ * order and in batches instead of racing on the same seats. A queue is dropped once it
+ * drains empty and created again by the next request.
+ * <p>
+ * Every request fails with a {@link java.util.concurrent.TimeoutException} when it waits longer
+ * than the wait timeout. A request timed out before its batch started is skipped, one timed out
+ * while its batch ran has its seats released again.
+ * <p>
+ * Workers run on virtual threads only when {@code tickets.virtual-threads.enabled} is set,
+ * like request handling, otherwise on platform threads.
+ */
+@Service
+public class ReservationQueueService {
+    private final ReservationService reservationService;
+    private final int capacity;
+    private final int batchSize;
+    private final Duration retryAfter;
+    private final Duration waitTimeout;
+    /**
+     * Queue by timetable ID, created on first request and removed when it drains empty.
+     */
+    private final ConcurrentMap<Long, TimetableQueue> queues = new ConcurrentHashMap<>();
+    private final ExecutorService workers;
+
+    @Autowired
+    public ReservationQueueService(ReservationService reservationService,
+                                   @Value("${tickets.reservation-queue.capacity}") int capacity,
+                                   @Value("${tickets.reservation-queue.batch-size}") int batchSize,
+                                   @Value("${tickets.reservation-queue.retry-after}") Duration retryAfter,
+                                   @Value("${tickets.reservation-queue.wait-timeout}") Duration waitTimeout,
+                                   @Value("${tickets.virtual-threads.enabled}") boolean virtualThreadsEnabled) {
+        this.reservationService = reservationService;
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+        this.retryAfter = retryAfter;
+        this.waitTimeout = waitTimeout;
+        this.workers = virtualThreadsEnabled
+                ? Executors.newVirtualThreadPerTaskExecutor()
+                : Executors.newCachedThreadPool(Thread.ofPlatform().name("reservation-queue-", 0).daemon().factory());
+    }
+
+    /**
+     * Queues a reservation of seats on a timetable.
+     * @param timetable The timetable to reserve seats on.
+     * @param numberOfSeats The number of seats to reserve.
+     * @return Future completed with the reserved seats, empty list if there are not enough free seats,
+     * or exceptionally when the request timed out or failed, null if the queue of the timetable is full.
+     */
+    public CompletableFuture<List<Seat>> submit(Timetable timetable, int numberOfSeats) {
+        ReservationRequest request = new ReservationRequest(timetable, numberOfSeats, new CompletableFuture<>());
+        AtomicBoolean accepted = new AtomicBoolean();
+        // Offered while the map entry is locked, so a queue is never removed with a request just added to it.
+        TimetableQueue queue = queues.compute(timetable.getId(), (id, existing) -> {
+            TimetableQueue timetableQueue = existing != null ? existing : new TimetableQueue(id);
+            accepted.set(timetableQueue.requests.offer(request));
+            return timetableQueue;
+        });
+        if (!accepted.get()) {
+            return null;
+        }
+        request.result.orTimeout(waitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        queue.scheduleDrain();
+        return request.result;
+    }
+
+    /**
+     * Retrieves how long a rejected buyer should wait before trying again.
+     * @return The retry delay.
+     */
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+
+    /**
+     * Stops the workers and fails every request which is still queued.
+     */
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+        queues.values().forEach(queue -> queue.failQueued(new IllegalStateException("Reservation queue is shut down")));
+    }
+
+    private record ReservationRequest(Timetable timetable, int numberOfSeats, CompletableFuture<List<Seat>> result) {
+    }
+
+    /**
+     * Requests of one timetable. At most one worker drains the queue at a time.
+     */
+    private final class TimetableQueue {
+        private final long timetableId;
+        private final BlockingQueue<ReservationRequest> requests = new ArrayBlockingQueue<>(capacity);
+        private final AtomicBoolean draining = new AtomicBoolean();
+
+        private TimetableQueue(long timetableId) {
+            this.timetableId = timetableId;
+        }
+
+        private void scheduleDrain() {
+            if (draining.compareAndSet(false, true)) {
+                try {
+                    workers.execute(this::drain);
+                } catch (RejectedExecutionException exception) {
+                    draining.set(false);
+                    failQueued(exception);
+                }
+            }
+        }
+
+        private void drain() {
+            List<ReservationRequest> batch = new ArrayList<>(batchSize);
+            boolean removed = false;
+            try {
+                while (true) {
+                    if (requests.drainTo(batch, batchSize) == 0) {
+                        if (queues.computeIfPresent(timetableId, (id, queue) -> queue == this && requests.isEmpty() ? null : queue) != this) {
+                            // The queue was removed while empty, the next request creates a new one.
+                            removed = true;
+                            return;
+                        }
+                        continue;
+                    }
+                    batch.removeIf(request -> request.result.isDone());
+                    if (!batch.isEmpty()) {
+                        process(batch);
+                    }
+                    batch.clear();
+                }
+            } finally {
+                if (!removed) {
+                    // The worker was stopped, e.g. by shutdown, its batch fails and the rest of the queue gets a new worker.
+                    batch.forEach(request -> request.result.completeExceptionally(new IllegalStateException("Reservation worker stopped")));
+                    draining.set(false);
+                    if (!requests.isEmpty()) {
+                        scheduleDrain();
+                    }
+                }
+            }
+        }
+
+        private void process(List<ReservationRequest> batch) {
+            try {
+                List<List<Seat>> reserved = reservationService.reserveSeatsInBatch(batch.get(0).timetable,
+                        batch.stream().map(ReservationRequest::numberOfSeats).toList());
+                for (int i = 0; i < batch.size(); i++) {
+                    List<Seat> seats = reserved.get(i);
+                    if (!batch.get(i).result.complete(seats) && !seats.isEmpty()) {
+                        // The buyer stopped waiting, nobody gets these seats.
+                        reservationService.deleteReservationById(seats.get(0).getReservation().getId());
+                    }
+                }
+            } catch (RuntimeException | Error exception) {
+                // Errors fail the requests too, otherwise their buyers would wait until the timeout.
+                batch.forEach(request -> request.result.completeExceptionally(exception));
+            }
+        }
+
+        private void failQueued(Throwable exception) {
+            List<ReservationRequest> queued = new ArrayList<>();
+            requests.drainTo(queued);
+            queued.forEach(request -> request.result.completeExceptionally(exception));
+        }
+    }
+}
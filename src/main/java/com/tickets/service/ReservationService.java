@@ -1,11 +1,34 @@
 package com.tickets.service;
 
+import com.tickets.model.CursorPage;
 import com.tickets.model.Reservation;
+import com.tickets.model.Seat;
+import com.tickets.model.SeatAvailability;
+import com.tickets.model.SeatPreference;
+import com.tickets.model.Timetable;
+import com.tickets.model.enums.ReservationState;
+import com.tickets.model.enums.SeatDeltaType;
+import com.tickets.model.enums.SeatType;
+import com.tickets.model.enums.Station;
 import com.tickets.repository.ReservationRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 /**
  * Service class for managing reservations and related operations.
@@ -13,10 +36,33 @@ import java.util.List;
 @Service
 public class ReservationService {
     private final ReservationRepository reservationRepository;
+    private final SeatService seatService;
+    private final SeatAvailabilityService seatAvailabilityService;
+    private final SeatDeltaFeed seatDeltaFeed;
+    private final TransactionTemplate transactionTemplate;
+    /**
+     * Whether free seats are picked from the in-memory availability index or selected in the database.
+     * Segment sales always pick seats from the index, see {@link #reserveSegmentSeats}.
+     */
+    private final boolean seatAvailabilityIndexEnabled;
+    /**
+     * How many times a reservation is retried when its seats were claimed by another buyer.
+     */
+    private static final int MAX_CLAIM_ATTEMPTS = 3;
 
     @Autowired
-    public ReservationService(ReservationRepository reservationRepository) {
+    public ReservationService(ReservationRepository reservationRepository,
+                              SeatService seatService,
+                              SeatAvailabilityService seatAvailabilityService,
+                              SeatDeltaFeed seatDeltaFeed,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${tickets.seat-availability-index.enabled}") boolean seatAvailabilityIndexEnabled) {
         this.reservationRepository = reservationRepository;
+        this.seatService = seatService;
+        this.seatAvailabilityService = seatAvailabilityService;
+        this.seatDeltaFeed = seatDeltaFeed;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.seatAvailabilityIndexEnabled = seatAvailabilityIndexEnabled;
     }
 
     /**
@@ -30,11 +76,15 @@ public class ReservationService {
     }
 
     /**
-     * Deletes reservation by ID.
+     * Deletes reservation by ID and releases its seats in one transaction.
      * @param id The reservation ID to be canceled.
      */
     public void deleteReservationById(long id) {
-        reservationRepository.deleteById(id);
+        publishReleased(id, transactionTemplate.execute(status -> {
+            Map<Long, List<Long>> releasedSeatIds = releaseSeatsAndSegments(id);
+            reservationRepository.deleteById(id);
+            return releasedSeatIds;
+        }));
     }
 
     /**
@@ -54,6 +104,24 @@ public class ReservationService {
         return reservationRepository.findAll();
     }
 
+    /**
+     * Retrieves one page of reservations ordered by ID.
+     * @param afterId The ID after which the page starts, 0 for the first page.
+     * @param size The number of reservations of the page.
+     * @return The page with the ID the next page starts after.
+     */
+    public CursorPage<Reservation> getReservationsPage(long afterId, int size) {
+        return CursorPage.of(reservationRepository.findByIdGreaterThanOrderByIdAsc(afterId, PageRequest.of(0, size)), size, Reservation::getId);
+    }
+
+    /**
+     * Streams all reservations ordered by ID. The stream must be read and closed inside a transaction.
+     * @return Stream of all reservations.
+     */
+    public Stream<Reservation> streamAllReservations() {
+        return reservationRepository.streamAllByOrderByIdAsc();
+    }
+
     /**
      * Checks that reservation exists by ID.
      * @param id The reservation ID to check.
@@ -62,4 +130,482 @@ public class ReservationService {
     public boolean existReservation(long id) {
         return reservationRepository.existsById(id);
     }
+
+    /**
+     * Reserves free seats of a timetable picked from the availability index.
+     * Seats are claimed in one transactional update, when another buyer claimed
+     * any of them first the index is reloaded and the reservation is retried.
+     * @param timetable The timetable to reserve seats on.
+     * @param numberOfSeats The number of seats to reserve.
+     * @return Reserved seats, empty list if there are not enough free seats.
+     */
+    public List<Seat> reserveSeats(Timetable timetable, int numberOfSeats) {
+        if (!seatAvailabilityIndexEnabled) {
+            return publishReserved(timetable, reserveFreeSeats(timetable, List.of(numberOfSeats), null).get(0));
+        }
+        for (int attempt = 0; attempt < MAX_CLAIM_ATTEMPTS; attempt++) {
+            List<Seat> seats = seatAvailabilityService.takeSeats(timetable.getId(), numberOfSeats);
+            if (seats.isEmpty() || claimSeats(timetable, seats, null)) {
+                return publishReserved(timetable, seats);
+            }
+        }
+        return new ArrayList<>();
+    }
+
+    /**
+     * Reserves seats for several requests of one timetable, persisting all of them in one transaction.
+     * When another buyer claimed any seat first the batch is rolled back and every request
+     * is retried on its own.
+     * @param timetable The timetable to reserve seats on.
+     * @param numbersOfSeats The number of seats of every request.
+     * @return Reserved seats of every request in the same order, empty list for a request without enough free seats.
+     */
+    public List<List<Seat>> reserveSeatsInBatch(Timetable timetable, List<Integer> numbersOfSeats) {
+        if (!seatAvailabilityIndexEnabled) {
+            List<List<Seat>> batch = reserveFreeSeats(timetable, numbersOfSeats, null);
+            publishReserved(timetable, batch.stream().flatMap(List::stream).toList());
+            return batch;
+        }
+        List<List<Seat>> batch = new ArrayList<>(numbersOfSeats.size());
+        List<Long> takenSeatIds = new ArrayList<>();
+        for (int numberOfSeats : numbersOfSeats) {
+            List<Seat> seats = seatAvailabilityService.takeSeats(timetable.getId(), numberOfSeats);
+            seats.forEach(seat -> takenSeatIds.add(seat.getId()));
+            batch.add(seats);
+        }
+        if (takenSeatIds.isEmpty()) {
+            return batch;
+        }
+        List<Reservation> reservations;
+        try {
+            reservations = transactionTemplate.execute(status -> {
+                List<Reservation> addedReservations = new ArrayList<>(batch.size());
+                for (List<Seat> seats : batch) {
+                    addedReservations.add(seats.isEmpty() ? null : new Reservation());
+                }
+                reservationRepository.saveAllAndFlush(addedReservations.stream().filter(Objects::nonNull).toList());
+                for (int i = 0; i < batch.size(); i++) {
+                    List<Long> seatIds = batch.get(i).stream().map(Seat::getId).toList();
+                    if (!seatIds.isEmpty() && seatService.claimSeats(seatIds, addedReservations.get(i)) != seatIds.size()) {
+                        status.setRollbackOnly();
+                        return null;
+                    }
+                }
+                return addedReservations;
+            });
+        } catch (ConcurrencyFailureException exception) {
+            reservations = null;
+        } catch (RuntimeException exception) {
+            seatAvailabilityService.returnSeats(timetable.getId(), takenSeatIds);
+            throw exception;
+        }
+        if (reservations == null) {
+            // Seats were claimed by another node, the index is stale.
+            seatAvailabilityService.evict(timetable.getId());
+            List<List<Seat>> retried = new ArrayList<>(numbersOfSeats.size());
+            for (int numberOfSeats : numbersOfSeats) {
+                retried.add(reserveSeats(timetable, numberOfSeats));
+            }
+            return retried;
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            for (Seat seat : batch.get(i)) {
+                seat.setReservation(reservations.get(i));
+            }
+        }
+        publishReserved(timetable, batch.stream().flatMap(List::stream).toList());
+        return batch;
+    }
+
+    /**
+     * Reserves one free seat of a timetable, preferring the given seat type.
+     * @param timetable The timetable to reserve seat on.
+     * @param seatType The preferred seat type.
+     * @return Reserved seat, null if there is no free seat.
+     */
+    public Seat reserveSeat(Timetable timetable, SeatType seatType) {
+        if (!seatAvailabilityIndexEnabled) {
+            return publishReserved(timetable, reserveFreeSeat(timetable, seatType, null));
+        }
+        for (int attempt = 0; attempt < MAX_CLAIM_ATTEMPTS; attempt++) {
+            Seat seat = seatAvailabilityService.takeSeat(timetable.getId(), seatType);
+            if (seat == null || claimSeats(timetable, List.of(seat), null)) {
+                return publishReserved(timetable, seat);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Reserves free seats of a timetable allocated by the policies of the preference.
+     * Policies are applied by the availability index, without the index one seat of the
+     * requested type or the first free seats are selected in the database.
+     * @param timetable The timetable to reserve seats on.
+     * @param preference The number of seats and the allocation policies.
+     * @return Reserved seats, empty list if no seats match the preference.
+     */
+    public List<Seat> reserveSeats(Timetable timetable, SeatPreference preference) {
+        return reserveSeats(timetable, preference, null);
+    }
+
+    /**
+     * Holds free seats of a timetable allocated by the policies of the preference. The seats
+     * stay reserved until the hold is confirmed or released.
+     * @param timetable The timetable to hold seats on.
+     * @param preference The number of seats and the allocation policies.
+     * @param holdExpiresAt When the hold is released unless it is confirmed.
+     * @return Held seats with the held reservation set, empty list if no seats match the preference.
+     */
+    public List<Seat> holdSeats(Timetable timetable, SeatPreference preference, LocalDateTime holdExpiresAt) {
+        return reserveSeats(timetable, preference, holdExpiresAt);
+    }
+
+    /**
+     * Checks that reservation exists by ID and was made by a hold with the given token.
+     * @param id The reservation ID to check.
+     * @param holdToken The token of the hold.
+     * @return True if the reservation exists and has the token, False if not.
+     */
+    public boolean existHold(long id, String holdToken) {
+        return reservationRepository.existsByIdAndHoldToken(id, holdToken);
+    }
+
+    /**
+     * Confirms a held reservation, unless its hold has already expired.
+     * @param id The reservation ID to confirm.
+     * @param holdToken The token of the hold.
+     * @return True if the reservation was confirmed, False if it is not held, its hold expired or the token does not match.
+     */
+    public boolean confirmHeldReservation(long id, String holdToken) {
+        return Boolean.TRUE.equals(transactionTemplate.execute(status ->
+                reservationRepository.confirmHold(id, holdToken, LocalDateTime.now()) == 1));
+    }
+
+    /**
+     * Releases a held reservation for the buyer who holds it.
+     * @param id The reservation ID to release.
+     * @param holdToken The token of the hold.
+     * @return True if the reservation was released, False if it does not exist, is not held or the token does not match.
+     */
+    public boolean releaseHeldReservation(long id, String holdToken) {
+        return holdToken != null && releaseHeld(id, holdToken);
+    }
+
+    /**
+     * Releases a held reservation whatever its token is, used when the hold expires.
+     * @param id The reservation ID to release.
+     * @return True if the reservation was released, False if it does not exist or is not held.
+     */
+    public boolean releaseHeldReservation(long id) {
+        return releaseHeld(id, null);
+    }
+
+    /**
+     * Releases a held reservation and its seats in one transaction. The reservation is locked
+     * first, so a hold being confirmed at the same time is either confirmed or released, never both.
+     * @param holdToken The token the reservation must have, null to release it with any token.
+     */
+    private boolean releaseHeld(long id, String holdToken) {
+        Map<Long, List<Long>> releasedSeatIds = transactionTemplate.execute(status -> {
+            Reservation reservation = reservationRepository.findByIdForUpdate(id).orElse(null);
+            if (reservation == null || reservation.getState() != ReservationState.Held
+                    || (holdToken != null && !holdToken.equals(reservation.getHoldToken()))) {
+                return null;
+            }
+            Map<Long, List<Long>> released = releaseSeatsAndSegments(id);
+            reservationRepository.delete(reservation);
+            return released;
+        });
+        if (releasedSeatIds == null) {
+            return false;
+        }
+        publishReleased(id, releasedSeatIds);
+        return true;
+    }
+
+    /**
+     * Retrieves all held reservations, used to schedule the expiry of holds made before a restart.
+     * @return All held reservations.
+     */
+    public List<Reservation> getHeldReservations() {
+        return reservationRepository.findAllByState(ReservationState.Held);
+    }
+
+    /**
+     * Counts free seats of a timetable by seat type and wagon type.
+     * @param timetable The timetable to count free seats of.
+     * @return Free seats in total and by seat type and wagon type.
+     */
+    public SeatAvailability getSeatAvailability(Timetable timetable) {
+        return seatAvailabilityService.getAvailability(timetable.getId());
+    }
+
+    private List<Seat> reserveSeats(Timetable timetable, SeatPreference preference, LocalDateTime holdExpiresAt) {
+        if (!seatAvailabilityIndexEnabled) {
+            if (preference.getNumberOfSeats() == 1 && preference.getSeatType() != null) {
+                Seat seat = reserveFreeSeat(timetable, preference.getSeatType(), holdExpiresAt);
+                return publishReserved(timetable, seat == null ? new ArrayList<>() : new ArrayList<>(List.of(seat)));
+            }
+            return publishReserved(timetable, reserveFreeSeats(timetable, List.of(preference.getNumberOfSeats()), holdExpiresAt).get(0));
+        }
+        for (int attempt = 0; attempt < MAX_CLAIM_ATTEMPTS; attempt++) {
+            List<Seat> seats = seatAvailabilityService.allocateSeats(timetable.getId(), preference);
+            if (seats.isEmpty() || claimSeats(timetable, seats, holdExpiresAt)) {
+                return publishReserved(timetable, seats);
+            }
+        }
+        return new ArrayList<>();
+    }
+
+    /**
+     * Reserves free seats of a timetable only between two stops of its route, the
+     * remaining segments of the seats stay available to other buyers.
+     * <p>
+     * Seats are always picked from the availability index, whatever
+     * {@code tickets.seat-availability-index.enabled} is, since the database cannot select seats
+     * by free segments without reading every seat of the train. The picked seats are still locked
+     * and checked in the database before their segments are claimed.
+     * @param timetable The timetable to reserve seats on.
+     * @param fromStation The station where the passengers get on.
+     * @param toStation The station where the passengers get off.
+     * @param numberOfSeats The number of seats to reserve.
+     * @return Reserved seats, empty list if the stations are not on the route in this order or there are not enough free seats.
+     */
+    public List<Seat> reserveSegmentSeats(Timetable timetable, Station fromStation, Station toStation, int numberOfSeats) {
+        long segmentMask = segmentMask(timetable, fromStation, toStation);
+        if (segmentMask == 0) {
+            return new ArrayList<>();
+        }
+        for (int attempt = 0; attempt < MAX_CLAIM_ATTEMPTS; attempt++) {
+            List<Seat> seats = seatAvailabilityService.takeSegments(timetable.getId(), numberOfSeats, segmentMask);
+            if (seats.isEmpty()) {
+                return seats;
+            }
+            Reservation reservation = claimSegments(timetable, seats, segmentMask);
+            if (reservation != null) {
+                seatDeltaFeed.publish(timetable.getId(), reservation.getId(), SeatDeltaType.Reserved, segmentMask,
+                        seats.stream().map(Seat::getId).toList());
+                return seats;
+            }
+        }
+        return new ArrayList<>();
+    }
+
+    /**
+     * Computes the bitmask of segments between two stations, bit i is the segment
+     * between stop i and stop i + 1 of the route startStation, stops, endStation.
+     * @return The segment bitmask, 0 if the stations are not on the route in this order.
+     */
+    static long segmentMask(Timetable timetable, Station fromStation, Station toStation) {
+        List<Station> route = new ArrayList<>();
+        route.add(timetable.getStartStation());
+        if (timetable.getStops() != null) {
+            route.addAll(timetable.getStops());
+        }
+        route.add(timetable.getEndStation());
+        int from = route.indexOf(fromStation);
+        int to = route.lastIndexOf(toStation);
+        if (from < 0 || to <= from || to >= Long.SIZE) {
+            return 0;
+        }
+        return ((1L << (to - from)) - 1) << from;
+    }
+
+    /**
+     * Selects and claims free seats for several requests in the database in one transaction,
+     * without the availability index. Reservations of requests without enough free seats are not kept.
+     * Claimed seats are marked as reserved in the index after commit, which keeps it current for availability.
+     * @param timetable The timetable to reserve seats on.
+     * @param numbersOfSeats The number of seats of every request.
+     * @param holdExpiresAt When the held reservations expire, null to confirm them at once.
+     * @return Reserved seats of every request in the same order, empty list for a request without enough free seats.
+     */
+    private List<List<Seat>> reserveFreeSeats(Timetable timetable, List<Integer> numbersOfSeats, LocalDateTime holdExpiresAt) {
+        List<List<Seat>> reserved = retryOnConflict(() -> transactionTemplate.execute(status -> {
+            List<List<Seat>> batch = new ArrayList<>(numbersOfSeats.size());
+            List<Reservation> unusedReservations = new ArrayList<>();
+            for (int numberOfSeats : numbersOfSeats) {
+                Reservation reservation = reservationRepository.save(newReservation(holdExpiresAt));
+                List<Seat> seats = seatService.claimFreeSeats(timetable.getId(), numberOfSeats, reservation);
+                if (seats.isEmpty()) {
+                    unusedReservations.add(reservation);
+                }
+                batch.add(seats);
+            }
+            reservationRepository.deleteAll(unusedReservations);
+            return batch;
+        }));
+        seatAvailabilityService.markSeatsReserved(timetable.getId(),
+                reserved.stream().flatMap(List::stream).map(Seat::getId).toList());
+        return reserved;
+    }
+
+    /**
+     * Selects and claims one free seat in the database, without the availability index.
+     * The claimed seat is marked as reserved in the index after commit.
+     * @param timetable The timetable to reserve the seat on.
+     * @param seatType The preferred seat type.
+     * @param holdExpiresAt When the held reservation expires, null to confirm it at once.
+     * @return Reserved seat, null if there is no free seat.
+     */
+    private Seat reserveFreeSeat(Timetable timetable, SeatType seatType, LocalDateTime holdExpiresAt) {
+        Seat reserved = retryOnConflict(() -> transactionTemplate.execute(status -> {
+            Seat seat = seatService.claimFreeSeat(timetable.getId(), seatType, reservationRepository.save(newReservation(holdExpiresAt)));
+            if (seat == null) {
+                status.setRollbackOnly();
+            }
+            return seat;
+        }));
+        if (reserved != null) {
+            seatAvailabilityService.markSeatsReserved(timetable.getId(), List.of(reserved.getId()));
+        }
+        return reserved;
+    }
+
+    /**
+     * Runs a transaction selecting seats in the database again when it was rolled back by a lock
+     * conflict, which databases without SKIP LOCKED report as a deadlock between buyers.
+     */
+    private <T> T retryOnConflict(Supplier<T> transaction) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transaction.get();
+            } catch (ConcurrencyFailureException exception) {
+                if (attempt == MAX_CLAIM_ATTEMPTS) {
+                    throw exception;
+                }
+            }
+        }
+    }
+
+    /**
+     * Releases the seats and segments of reservation inside the current transaction.
+     * @return IDs of the released seats by segment mask, whole seats under {@link TimetableSeats#WHOLE_TIMETABLE}.
+     */
+    private Map<Long, List<Long>> releaseSeatsAndSegments(long reservationId) {
+        Map<Long, List<Long>> released = new HashMap<>();
+        List<Long> seatIds = seatService.releaseSeatsByReservationId(reservationId);
+        if (!seatIds.isEmpty()) {
+            released.put(TimetableSeats.WHOLE_TIMETABLE, seatIds);
+        }
+        released.putAll(seatService.releaseSegmentsByReservationId(reservationId));
+        return released;
+    }
+
+    /**
+     * Publishes committed reserved seats to the watchers of the timetable, one change per reservation.
+     * @return The reserved seats.
+     */
+    private List<Seat> publishReserved(Timetable timetable, List<Seat> seats) {
+        Map<Long, List<Long>> seatIdsByReservation = new LinkedHashMap<>();
+        for (Seat seat : seats) {
+            seatIdsByReservation.computeIfAbsent(seat.getReservation().getId(), id -> new ArrayList<>()).add(seat.getId());
+        }
+        seatIdsByReservation.forEach((reservationId, seatIds) -> seatDeltaFeed.publish(timetable.getId(), reservationId,
+                SeatDeltaType.Reserved, TimetableSeats.WHOLE_TIMETABLE, seatIds));
+        return seats;
+    }
+
+    private Seat publishReserved(Timetable timetable, Seat seat) {
+        if (seat != null) {
+            publishReserved(timetable, List.of(seat));
+        }
+        return seat;
+    }
+
+    /**
+     * Publishes committed released seats to the watchers of their timetable. All seats of a
+     * reservation belong to one timetable, which is only looked up while somebody watches.
+     */
+    private void publishReleased(long reservationId, Map<Long, List<Long>> releasedSeatIds) {
+        if (releasedSeatIds.isEmpty() || !seatDeltaFeed.hasWatchers()) {
+            return;
+        }
+        Long timetableId = seatService.getTimetableIdBySeatId(releasedSeatIds.values().iterator().next().get(0));
+        if (timetableId != null) {
+            releasedSeatIds.forEach((segmentMask, seatIds) ->
+                    seatDeltaFeed.publish(timetableId, reservationId, SeatDeltaType.Released, segmentMask, seatIds));
+        }
+    }
+
+    /**
+     * Creates a reservation model, held until the expiry time or confirmed when there is none.
+     */
+    private static Reservation newReservation(LocalDateTime holdExpiresAt) {
+        Reservation reservation = new Reservation();
+        if (holdExpiresAt != null) {
+            reservation.setState(ReservationState.Held);
+            reservation.setHoldExpiresAt(holdExpiresAt);
+            reservation.setHoldToken(UUID.randomUUID().toString());
+        }
+        return reservation;
+    }
+
+    /**
+     * Creates a reservation and claims segments of all seats for it in one transaction.
+     * @param timetable The timetable the seats belong to.
+     * @param seats The seats taken from the availability index.
+     * @param segmentMask Bitmask of the claimed segments.
+     * @return The created reservation, null if any segment of the seats was already sold.
+     */
+    private Reservation claimSegments(Timetable timetable, List<Seat> seats, long segmentMask) {
+        List<Long> seatIds = seats.stream().map(Seat::getId).toList();
+        Reservation reservation;
+        try {
+            reservation = transactionTemplate.execute(status -> {
+                Reservation addedReservation = reservationRepository.saveAndFlush(new Reservation());
+                if (seatService.claimSegments(seatIds, segmentMask, addedReservation)) {
+                    return addedReservation;
+                }
+                status.setRollbackOnly();
+                return null;
+            });
+        } catch (ConcurrencyFailureException exception) {
+            reservation = null;
+        } catch (RuntimeException exception) {
+            seatAvailabilityService.returnSegments(timetable.getId(), seatIds, segmentMask);
+            throw exception;
+        }
+        if (reservation == null) {
+            // Segments were claimed by another node, the index is stale.
+            seatAvailabilityService.evict(timetable.getId());
+        }
+        return reservation;
+    }
+
+    /**
+     * Creates a reservation and claims all seats for it in one transaction.
+     * @param timetable The timetable the seats belong to.
+     * @param seats The seats taken from the availability index.
+     * @param holdExpiresAt When the held reservation expires, null to confirm it at once.
+     * @return True if every seat was claimed, False if any of them was already reserved.
+     */
+    private boolean claimSeats(Timetable timetable, List<Seat> seats, LocalDateTime holdExpiresAt) {
+        List<Long> seatIds = seats.stream().map(Seat::getId).toList();
+        Reservation reservation;
+        try {
+            reservation = transactionTemplate.execute(status -> {
+                Reservation addedReservation = reservationRepository.saveAndFlush(newReservation(holdExpiresAt));
+                if (seatService.claimSeats(seatIds, addedReservation) == seatIds.size()) {
+                    return addedReservation;
+                }
+                status.setRollbackOnly();
+                return null;
+            });
+        } catch (ConcurrencyFailureException exception) {
+            reservation = null;
+        } catch (RuntimeException exception) {
+            seatAvailabilityService.returnSeats(timetable.getId(), seatIds);
+            throw exception;
+        }
+        if (reservation == null) {
+            // Seats were claimed by another node, the index is stale.
+            seatAvailabilityService.evict(timetable.getId());
+            return false;
+        }
+        for (Seat seat : seats) {
+            seat.setReservation(reservation);
+        }
+        return true;
+    }
 }
@@ -0,0 +1,199 @@
+package com.tickets.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.tickets.model.ReservationTicket;
+import com.tickets.model.Seat;
+import com.tickets.model.Timetable;
+import com.tickets.model.enums.ReservationStatus;
+import com.tickets.repository.ReservationTicketRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Service class accepting reservations asynchronously. A request is queued in
+ * {@link ReservationQueueService} and answered with a ticket at once, the ticket
+ * is updated when the seats are allocated. Tickets expire a fixed time after they were issued.
+ * <p>
+ * Every ticket is stored, so a node answers for tickets issued by other nodes too. The node
+ * which issued a ticket answers from memory, the others read the stored ticket and wait for
+ * its outcome by reading it again every poll interval.
+ */
+@Service
+public class ReservationTicketService {
+    private final ReservationQueueService reservationQueueService;
+    private final ReservationTicketRepository reservationTicketRepository;
+    private final SeatService seatService;
+    private final Duration expireAfterWrite;
+    private final long pollIntervalMillis;
+    /**
+     * Tickets issued by this node with their outcome.
+     */
+    private final Cache<String, TicketOutcome> tickets;
+    /**
+     * When the expired tickets are deleted next, in milliseconds.
+     */
+    private final AtomicLong nextPurge = new AtomicLong();
+
+    @Autowired
+    public ReservationTicketService(ReservationQueueService reservationQueueService,
+                                    ReservationTicketRepository reservationTicketRepository,
+                                    SeatService seatService,
+                                    @Value("${tickets.reservation-tickets.maximum-size}") long maximumSize,
+                                    @Value("${tickets.reservation-tickets.expire-after-write}") Duration expireAfterWrite,
+                                    @Value("${tickets.reservation-tickets.poll-interval}") Duration pollInterval) {
+        this.reservationQueueService = reservationQueueService;
+        this.reservationTicketRepository = reservationTicketRepository;
+        this.seatService = seatService;
+        this.expireAfterWrite = expireAfterWrite;
+        this.pollIntervalMillis = pollInterval.toMillis();
+        this.tickets = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .build();
+    }
+
+    /**
+     * Queues a reservation of seats and issues a ticket for it.
+     * @param timetable The timetable to reserve seats on.
+     * @param numberOfSeats The number of seats to reserve.
+     * @return Pending ticket, null if the queue of the timetable is full.
+     */
+    public ReservationTicket submit(Timetable timetable, int numberOfSeats) {
+        purgeExpiredTickets();
+        ReservationTicket ticket = new ReservationTicket();
+        ticket.setId(UUID.randomUUID().toString());
+        ticket.setTimetableId(timetable.getId());
+        ticket.setNumberOfSeats(numberOfSeats);
+        ticket.setExpiresAt(LocalDateTime.now().plus(expireAfterWrite));
+        // Stored before it is queued, so the outcome is never stored before the pending ticket.
+        reservationTicketRepository.save(ticket);
+        CompletableFuture<List<Seat>> reservation = reservationQueueService.submit(timetable, numberOfSeats);
+        if (reservation == null) {
+            reservationTicketRepository.deleteById(ticket.getId());
+            return null;
+        }
+        CompletableFuture<ReservationTicket> outcome = reservation.handle((seats, exception) -> {
+            if (exception != null) {
+                ticket.setStatus(ReservationStatus.Failed);
+            } else if (seats.isEmpty()) {
+                ticket.setStatus(ReservationStatus.Not_Enough_Seats);
+            } else {
+                ticket.setSeats(seats);
+                ticket.setReservationId(seats.get(0).getReservation().getId());
+                ticket.setStatus(ReservationStatus.Reserved);
+            }
+            storeOutcome(ticket);
+            return ticket;
+        });
+        tickets.put(ticket.getId(), new TicketOutcome(ticket, outcome));
+        return ticket;
+    }
+
+    /**
+     * Retrieves ticket by ID.
+     * @param ticketId The ticket ID to be retrieved.
+     * @return The ticket in its current state, null if there is none or it expired.
+     */
+    public ReservationTicket getTicket(String ticketId) {
+        TicketOutcome ticketOutcome = tickets.getIfPresent(ticketId);
+        return ticketOutcome == null ? findStoredTicket(ticketId) : ticketOutcome.ticket();
+    }
+
+    /**
+     * Retrieves the outcome of ticket by ID. The returned future may be cancelled by the caller
+     * once it no longer waits for the outcome.
+     * @param ticketId The ticket ID.
+     * @return Future completed with the ticket once it is no longer pending, or with null when the
+     * ticket expired while pending, null if there is no such ticket.
+     */
+    public CompletableFuture<ReservationTicket> getOutcome(String ticketId) {
+        TicketOutcome ticketOutcome = tickets.getIfPresent(ticketId);
+        if (ticketOutcome != null) {
+            // A copy, so a caller cancelling it does not cancel the outcome of other callers.
+            return ticketOutcome.outcome().thenApply(ticket -> ticket);
+        }
+        ReservationTicket ticket = findStoredTicket(ticketId);
+        if (ticket == null) {
+            return null;
+        }
+        CompletableFuture<ReservationTicket> outcome = new CompletableFuture<>();
+        if (ticket.getStatus() == ReservationStatus.Pending) {
+            schedulePoll(ticketId, outcome);
+        } else {
+            outcome.complete(ticket);
+        }
+        return outcome;
+    }
+
+    /**
+     * Reads a ticket issued by another node, with its seats once it is reserved.
+     */
+    private ReservationTicket findStoredTicket(String ticketId) {
+        ReservationTicket ticket = reservationTicketRepository.findById(ticketId).orElse(null);
+        if (ticket == null || ticket.getExpiresAt().isBefore(LocalDateTime.now())) {
+            return null;
+        }
+        if (ticket.getStatus() == ReservationStatus.Reserved && ticket.getReservationId() != null) {
+            ticket.setSeats(seatService.getSeatsByReservationId(ticket.getReservationId()));
+        }
+        return ticket;
+    }
+
+    private void schedulePoll(String ticketId, CompletableFuture<ReservationTicket> outcome) {
+        CompletableFuture.delayedExecutor(pollIntervalMillis, TimeUnit.MILLISECONDS).execute(() -> poll(ticketId, outcome));
+    }
+
+    private void poll(String ticketId, CompletableFuture<ReservationTicket> outcome) {
+        if (outcome.isDone()) {
+            // Cancelled by the caller.
+            return;
+        }
+        try {
+            ReservationTicket ticket = findStoredTicket(ticketId);
+            if (ticket == null || ticket.getStatus() != ReservationStatus.Pending) {
+                outcome.complete(ticket);
+            } else {
+                schedulePoll(ticketId, outcome);
+            }
+        } catch (DataAccessException exception) {
+            outcome.completeExceptionally(exception);
+        }
+    }
+
+    /**
+     * Stores the outcome of a ticket. A ticket whose outcome could not be stored stays pending for
+     * other nodes until it expires, the issuing node still answers with the outcome.
+     */
+    private void storeOutcome(ReservationTicket ticket) {
+        try {
+            reservationTicketRepository.save(ticket);
+        } catch (DataAccessException exception) {
+            // Answered from memory by this node.
+        }
+    }
+
+    /**
+     * Deletes the expired tickets at most once per expiry time.
+     */
+    private void purgeExpiredTickets() {
+        long now = System.currentTimeMillis();
+        long purgeAt = nextPurge.get();
+        if (now >= purgeAt && nextPurge.compareAndSet(purgeAt, now + expireAfterWrite.toMillis())) {
+            reservationTicketRepository.deleteExpired(LocalDateTime.now());
+        }
+    }
+
+    private record TicketOutcome(ReservationTicket ticket, CompletableFuture<ReservationTicket> outcome) {
+    }
+}
@@ -0,0 +1,62 @@
+package com.tickets.service;
+
+import com.tickets.model.Train;
+import com.tickets.model.Wagon;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Service class managing the second-level cache regions of trains and wagons.
+ * Seats are not cached, every reservation changes them with a bulk update which
+ * would empty their region.
+ */
+@Service
+public class RollingStockCache {
+    private static final List<String> REGIONS = List.of("trains", "train-wagons", "wagons");
+    private final SessionFactory sessionFactory;
+
+    @Autowired
+    public RollingStockCache(EntityManagerFactory entityManagerFactory) {
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+    }
+
+    /**
+     * Evicts all cached trains, wagons and wagon lists of trains. Wagons are added through
+     * their train reference, which does not update the cached wagon list of the train.
+     */
+    public void evictAll() {
+        org.hibernate.Cache cache = sessionFactory.getCache();
+        cache.evictEntityData(Train.class);
+        cache.evictEntityData(Wagon.class);
+        cache.evictCollectionData(Train.class.getName() + ".wagons");
+    }
+
+    /**
+     * Retrieves hit, miss and put counters of every region. The counters are only kept while
+     * tickets.cache-statistics.enabled is set, it is off by default as it adds bookkeeping to
+     * every session.
+     * @return Counters by name, empty if statistics are disabled.
+     */
+    public Map<String, Long> getStatistics() {
+        Statistics statistics = sessionFactory.getStatistics();
+        Map<String, Long> counters = new LinkedHashMap<>();
+        if (!statistics.isStatisticsEnabled()) {
+            return counters;
+        }
+        for (String region : REGIONS) {
+            CacheRegionStatistics regionStatistics = statistics.getDomainDataRegionStatistics(region);
+            counters.put(region + ".hits", regionStatistics.getHitCount());
+            counters.put(region + ".misses", regionStatistics.getMissCount());
+            counters.put(region + ".puts", regionStatistics.getPutCount());
+        }
+        return counters;
+    }
+}
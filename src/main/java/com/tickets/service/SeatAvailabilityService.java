@@ -0,0 +1,227 @@
+package com.tickets.service;
+
+import com.tickets.model.Seat;
+import com.tickets.model.SeatAvailability;
+import com.tickets.model.SeatPreference;
+import com.tickets.model.enums.SeatAllocationPolicy;
+import com.tickets.model.enums.SeatType;
+import com.tickets.repository.SeatRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Service class keeping an in-memory index of free seats per timetable.
+ * The index of a timetable is warmed from the seat map query on first use and then
+ * updated atomically on every reservation and cancellation.
+ * Every seat has a bitmask of its sold segments, a seat reserved for the whole
+ * timetable has all bits set. Seats are allocated by {@link TimetableSeats}.
+ * <p>
+ * Seats released on another node never reach this index, so an index short of seats is
+ * warmed again once before the buyer is turned away.
+ */
+@Service
+public class SeatAvailabilityService {
+    private static final int MAX_WARM_ATTEMPTS = 3;
+
+    private final SeatRepository seatRepository;
+    /**
+     * Availability index by timetable ID.
+     */
+    private final ConcurrentMap<Long, TimetableSeats> timetables = new ConcurrentHashMap<>();
+    /**
+     * Counts changes applied to the warmed indexes, an index warmed while it moved may have missed one.
+     */
+    private final AtomicLong changes = new AtomicLong();
+
+    @Autowired
+    public SeatAvailabilityService(SeatRepository seatRepository) {
+        this.seatRepository = seatRepository;
+    }
+
+    /**
+     * Takes free seats of a timetable kept as close together as possible and marks them as reserved in the index.
+     * @param timetableId The timetable ID to take seats from.
+     * @param numberOfSeats The number of seats to take.
+     * @return Detached copies of the taken seats, empty list if there are not enough free seats.
+     */
+    public List<Seat> takeSeats(long timetableId, int numberOfSeats) {
+        SeatPreference preference = new SeatPreference();
+        preference.setNumberOfSeats(numberOfSeats);
+        preference.setPolicies(List.of(SeatAllocationPolicy.Keep_Together));
+        return allocateSeats(timetableId, preference);
+    }
+
+    /**
+     * Takes one free seat of a timetable, preferring the given seat type.
+     * @param timetableId The timetable ID to take the seat from.
+     * @param seatType The preferred seat type.
+     * @return Detached copy of the taken seat, null if there is no free seat.
+     */
+    public Seat takeSeat(long timetableId, SeatType seatType) {
+        SeatPreference preference = new SeatPreference();
+        preference.setSeatType(seatType);
+        preference.setPolicies(List.of(SeatAllocationPolicy.Nearest_Seat_Type));
+        List<Seat> seats = allocateSeats(timetableId, preference);
+        return seats.isEmpty() ? null : seats.get(0);
+    }
+
+    /**
+     * Allocates free seats of a timetable matching the preference and marks them as reserved in the index.
+     * @param timetableId The timetable ID to allocate seats on.
+     * @param preference The number of seats and the allocation policies.
+     * @return Detached copies of the allocated seats, empty list if no seats match the preference.
+     */
+    public List<Seat> allocateSeats(long timetableId, SeatPreference preference) {
+        return allocate(timetableId, timetableSeats -> timetableSeats.allocate(preference));
+    }
+
+    /**
+     * Takes free seats of a timetable for the given segments and marks the segments as sold in the index.
+     * @param timetableId The timetable ID to take seats from.
+     * @param numberOfSeats The number of seats to take.
+     * @param segmentMask Bitmask of the segments to take.
+     * @return Detached copies of the taken seats, empty list if there are not enough free seats.
+     */
+    public List<Seat> takeSegments(long timetableId, int numberOfSeats, long segmentMask) {
+        return allocate(timetableId, timetableSeats -> timetableSeats.take(numberOfSeats, segmentMask));
+    }
+
+    /**
+     * Gives segments back to the index of a timetable, e.g. when persisting the reservation failed.
+     * @param timetableId The timetable ID the seats belong to.
+     * @param seatIds The seat IDs whose segments are freed.
+     * @param segmentMask Bitmask of the freed segments.
+     */
+    public void returnSegments(long timetableId, Collection<Long> seatIds, long segmentMask) {
+        TimetableSeats timetableSeats = timetables.get(timetableId);
+        if (timetableSeats != null) {
+            timetableSeats.release(seatIds, segmentMask);
+        }
+    }
+
+    /**
+     * Marks segments of seats as free in every warmed timetable index.
+     * @param seatIds The seat IDs whose segments were released.
+     * @param segmentMask Bitmask of the released segments.
+     */
+    public void releaseSegments(Collection<Long> seatIds, long segmentMask) {
+        changes.incrementAndGet();
+        for (TimetableSeats timetableSeats : timetables.values()) {
+            timetableSeats.release(seatIds, segmentMask);
+        }
+    }
+
+    /**
+     * Marks seats reserved in the database without the index as reserved in the index of a timetable,
+     * so the index stays current for availability and segment reservations. An index which is not
+     * warmed is left alone, it reads the seats when it is warmed.
+     * @param timetableId The timetable ID the seats belong to.
+     * @param seatIds The seat IDs which were reserved.
+     */
+    public void markSeatsReserved(long timetableId, Collection<Long> seatIds) {
+        TimetableSeats timetableSeats = timetables.get(timetableId);
+        changes.incrementAndGet();
+        if (timetableSeats != null && !seatIds.isEmpty()) {
+            timetableSeats.reserve(seatIds, TimetableSeats.WHOLE_TIMETABLE);
+        }
+    }
+
+    /**
+     * Gives seats back to the index of a timetable, e.g. when persisting the reservation failed.
+     * @param timetableId The timetable ID the seats belong to.
+     * @param seatIds The seat IDs to mark as free.
+     */
+    public void returnSeats(long timetableId, Collection<Long> seatIds) {
+        TimetableSeats timetableSeats = timetables.get(timetableId);
+        if (timetableSeats != null) {
+            timetableSeats.release(seatIds, TimetableSeats.WHOLE_TIMETABLE);
+        }
+    }
+
+    /**
+     * Marks seats as free in every warmed timetable index.
+     * @param seatIds The seat IDs which were released.
+     */
+    public void releaseSeats(Collection<Long> seatIds) {
+        if (seatIds.isEmpty()) {
+            return;
+        }
+        changes.incrementAndGet();
+        for (TimetableSeats timetableSeats : timetables.values()) {
+            timetableSeats.release(seatIds, TimetableSeats.WHOLE_TIMETABLE);
+        }
+    }
+
+    /**
+     * Counts free seats of a timetable from the counters of its index, without querying the seats.
+     * @param timetableId The timetable ID to count free seats of.
+     * @return Free seats in total and by seat type and wagon type.
+     */
+    public SeatAvailability getAvailability(long timetableId) {
+        return getTimetableSeats(timetableId).availability();
+    }
+
+    /**
+     * Drops the index of a timetable, it is warmed again on next use.
+     * @param timetableId The timetable ID to evict.
+     */
+    public void evict(long timetableId) {
+        changes.incrementAndGet();
+        timetables.remove(timetableId);
+    }
+
+    /**
+     * Drops every index, used when the layout of trains, wagons or seats changes.
+     */
+    public void evictAll() {
+        changes.incrementAndGet();
+        timetables.clear();
+    }
+
+    /**
+     * Allocates seats from the index of a timetable. When a warmed index has no matching seats,
+     * it is warmed again from the database and asked once more.
+     */
+    private List<Seat> allocate(long timetableId, Function<TimetableSeats, List<Seat>> allocation) {
+        TimetableSeats warmed = timetables.get(timetableId);
+        List<Seat> seats = allocation.apply(warmed != null ? warmed : getTimetableSeats(timetableId));
+        if (seats.isEmpty() && warmed != null) {
+            timetables.remove(timetableId, warmed);
+            seats = allocation.apply(getTimetableSeats(timetableId));
+        }
+        return seats;
+    }
+
+    /**
+     * Returns the index of a timetable, warming it from the seat map query when missing. An index
+     * warmed while a change was applied to the other indexes is not kept, the change may have
+     * looked for it before it was added. It is warmed again, and after the last attempt used once.
+     */
+    private TimetableSeats getTimetableSeats(long timetableId) {
+        TimetableSeats loaded = null;
+        for (int attempt = 0; attempt < MAX_WARM_ATTEMPTS; attempt++) {
+            TimetableSeats timetableSeats = timetables.get(timetableId);
+            if (timetableSeats != null) {
+                return timetableSeats;
+            }
+            long changesBefore = changes.get();
+            loaded = new TimetableSeats(seatRepository.findSeatMapByTimetableId(timetableId));
+            timetableSeats = timetables.putIfAbsent(timetableId, loaded);
+            if (timetableSeats != null) {
+                return timetableSeats;
+            }
+            if (changes.get() == changesBefore) {
+                return loaded;
+            }
+            timetables.remove(timetableId, loaded);
+        }
+        return loaded;
+    }
+}
@@ -0,0 +1,240 @@
+package com.tickets.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.tickets.model.SeatDelta;
+import com.tickets.model.enums.SeatDeltaType;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Service class streaming committed seat changes of timetables as server-sent events.
+ * Every watched timetable has one {@link SeatDeltaRing} of encoded changes shared by all of its
+ * watchers, so a change is encoded once however many clients watch it. Every watcher reads
+ * the ring from its own position on a virtual thread, so a slow client only delays itself.
+ * A watcher whose changes were overwritten before it read them is disconnected, and is told
+ * to reload the seats when it reconnects.
+ * <p>
+ * The ring of a timetable is dropped once nobody watched it for the idle timeout, or when the
+ * timetable is deleted. Event IDs of a ring start at the time it was created times 1000, so a
+ * client of a dropped ring, or of an earlier run, is told to reload instead of resuming from
+ * the wrong changes.
+ */
+@Service
+public class SeatDeltaFeed {
+    private static final String SEATS_EVENT = "seats";
+    private static final String RESET_EVENT = "reset";
+
+    private final ObjectWriter objectWriter;
+    private final int bufferSize;
+    private final long timeoutMillis;
+    private final long idleTimeoutMillis;
+    /**
+     * Rings and watchers by timetable ID, created for the first watcher and dropped when idle.
+     */
+    private final ConcurrentMap<Long, TimetableFeed> feeds = new ConcurrentHashMap<>();
+    private final AtomicInteger watchers = new AtomicInteger();
+    private final ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor();
+
+    @Autowired
+    public SeatDeltaFeed(ObjectMapper objectMapper,
+                         @Value("${tickets.seat-feed.buffer-size}") int bufferSize,
+                         @Value("${tickets.seat-feed.timeout}") Duration timeout,
+                         @Value("${tickets.seat-feed.idle-timeout}") Duration idleTimeout) {
+        this.objectWriter = objectMapper.writer();
+        this.bufferSize = bufferSize;
+        this.timeoutMillis = timeout.toMillis();
+        this.idleTimeoutMillis = idleTimeout.toMillis();
+    }
+
+    /**
+     * Checks that any timetable is watched, so changes need to be published at all.
+     * @return True if there is at least one watcher.
+     */
+    public boolean hasWatchers() {
+        return watchers.get() > 0;
+    }
+
+    /**
+     * Publishes a committed change of seats to the watchers of its timetable.
+     * @param timetableId The timetable ID the seats belong to.
+     * @param reservationId The reservation which reserved or released the seats.
+     * @param type Whether the seats were reserved or released.
+     * @param segmentMask Bitmask of the changed segments, all bits for the whole timetable.
+     * @param seatIds The changed seat IDs.
+     */
+    public void publish(long timetableId, long reservationId, SeatDeltaType type, long segmentMask, List<Long> seatIds) {
+        TimetableFeed feed = feeds.get(timetableId);
+        if (feed == null || seatIds.isEmpty()) {
+            return;
+        }
+        feed.ring.publish(encode(new SeatDelta(timetableId, reservationId, type, segmentMask, seatIds)));
+        for (Watcher watcher : feed.watchers) {
+            schedule(watcher);
+        }
+    }
+
+    /**
+     * Starts streaming changes of a timetable. Changes after the last event the client received
+     * are sent first while they are still buffered, otherwise the client is told to reload the seats.
+     * @param timetableId The timetable ID to watch.
+     * @param lastEventId ID of the last event the client received, null for a new client.
+     * @return The event stream.
+     */
+    public SseEmitter watch(long timetableId, Long lastEventId) {
+        pruneIdleFeeds();
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Watcher[] added = new Watcher[1];
+        // Added while the map entry is locked, so an idle feed is never dropped with a new watcher.
+        feeds.compute(timetableId, (id, existing) -> {
+            TimetableFeed feed = existing != null ? existing
+                    : new TimetableFeed(new SeatDeltaRing(bufferSize, System.currentTimeMillis() * 1000));
+            Watcher watcher = new Watcher(feed, emitter);
+            if (lastEventId != null && feed.ring.canResumeAfter(lastEventId)) {
+                watcher.cursor = lastEventId + 1;
+            } else {
+                watcher.cursor = feed.ring.published();
+                watcher.reset = lastEventId != null;
+            }
+            feed.watchers.add(watcher);
+            added[0] = watcher;
+            return feed;
+        });
+        Watcher watcher = added[0];
+        watchers.incrementAndGet();
+        emitter.onCompletion(() -> remove(watcher));
+        emitter.onError(exception -> remove(watcher));
+        schedule(watcher);
+        return emitter;
+    }
+
+    /**
+     * Closes the streams of a deleted timetable and drops its ring.
+     * @param timetableId The deleted timetable ID.
+     */
+    public void close(long timetableId) {
+        TimetableFeed feed = feeds.remove(timetableId);
+        if (feed != null) {
+            for (Watcher watcher : feed.watchers) {
+                remove(watcher);
+                watcher.emitter.complete();
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        senders.shutdownNow();
+    }
+
+    private void schedule(Watcher watcher) {
+        if (watcher.draining.compareAndSet(false, true)) {
+            senders.execute(() -> drain(watcher));
+        }
+    }
+
+    /**
+     * Sends every buffered change the watcher has not received yet. Runs for one watcher at a time.
+     */
+    private void drain(Watcher watcher) {
+        SeatDeltaRing ring = watcher.feed.ring;
+        try {
+            do {
+                if (watcher.reset) {
+                    watcher.emitter.send(SseEmitter.event().id(Long.toString(watcher.cursor - 1)).name(RESET_EVENT).data(""));
+                    watcher.reset = false;
+                }
+                for (long published = ring.published(); watcher.cursor < published; watcher.cursor++) {
+                    String data = ring.get(watcher.cursor);
+                    if (data == null) {
+                        // The watcher is a full ring behind, it reconnects and reloads the seats.
+                        remove(watcher);
+                        watcher.emitter.complete();
+                        return;
+                    }
+                    watcher.emitter.send(SseEmitter.event().id(Long.toString(watcher.cursor)).name(SEATS_EVENT)
+                            .data(data, MediaType.APPLICATION_JSON));
+                }
+                watcher.draining.set(false);
+            } while (watcher.cursor < ring.published() && watcher.draining.compareAndSet(false, true));
+        } catch (IOException | IllegalStateException exception) {
+            // The client disconnected or the stream timed out.
+            remove(watcher);
+            watcher.emitter.completeWithError(exception);
+        }
+    }
+
+    private void remove(Watcher watcher) {
+        if (watcher.feed.watchers.remove(watcher)) {
+            watchers.decrementAndGet();
+            if (watcher.feed.watchers.isEmpty()) {
+                watcher.feed.idleSince = System.currentTimeMillis();
+            }
+        }
+    }
+
+    /**
+     * Drops the rings nobody watched for the idle timeout.
+     */
+    private void pruneIdleFeeds() {
+        long idleBefore = System.currentTimeMillis() - idleTimeoutMillis;
+        for (Long timetableId : feeds.keySet()) {
+            feeds.computeIfPresent(timetableId, (id, feed) ->
+                    feed.watchers.isEmpty() && feed.idleSince < idleBefore ? null : feed);
+        }
+    }
+
+    private String encode(SeatDelta delta) {
+        try {
+            return objectWriter.writeValueAsString(delta);
+        } catch (JsonProcessingException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    private static final class TimetableFeed {
+        private final SeatDeltaRing ring;
+        private final Set<Watcher> watchers = ConcurrentHashMap.newKeySet();
+        /**
+         * When the last watcher left, in milliseconds.
+         */
+        private volatile long idleSince = System.currentTimeMillis();
+
+        TimetableFeed(SeatDeltaRing ring) {
+            this.ring = ring;
+        }
+    }
+
+    private static final class Watcher {
+        private final TimetableFeed feed;
+        private final SseEmitter emitter;
+        private final AtomicBoolean draining = new AtomicBoolean();
+        /**
+         * Sequence of the next change to send, written by the draining thread only.
+         */
+        private long cursor;
+        private boolean reset;
+
+        Watcher(TimetableFeed feed, SseEmitter emitter) {
+            this.feed = feed;
+            this.emitter = emitter;
+        }
+    }
+}
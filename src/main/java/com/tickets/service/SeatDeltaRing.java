@@ -0,0 +1,76 @@
+package com.tickets.service;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded ring of the encoded seat changes of one timetable, shared by all of its watchers.
+ * Publishers write one change at a time, watchers read without locks from their own position
+ * and detect a change overwritten before they read it by the sequence stored with it.
+ */
+final class SeatDeltaRing {
+    private final AtomicReferenceArray<Event> events;
+    private final int mask;
+    /**
+     * Sequence of the first change.
+     */
+    private final long first;
+    /**
+     * Sequence of the next change, every change before it can be read.
+     */
+    private volatile long published;
+
+    /**
+     * Creates the ring.
+     * @param size Number of buffered changes, rounded up to a power of two.
+     * @param first Sequence of the first change.
+     */
+    SeatDeltaRing(int size, long first) {
+        int capacity = Integer.highestOneBit(Math.max(size - 1, 1)) << 1;
+        this.events = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+        this.first = first;
+        this.published = first;
+    }
+
+    /**
+     * Appends a change, overwriting the oldest one when the ring is full.
+     * @param data The encoded change.
+     * @return The sequence of the change.
+     */
+    synchronized long publish(String data) {
+        long sequence = published;
+        events.set((int) (sequence & mask), new Event(sequence, data));
+        published = sequence + 1;
+        return sequence;
+    }
+
+    /**
+     * Retrieves the sequence of the next change, every change before it can be read.
+     */
+    long published() {
+        return published;
+    }
+
+    /**
+     * Retrieves a published change.
+     * @param sequence The sequence of the change, lower than {@link #published()}.
+     * @return The encoded change, null if it was already overwritten.
+     */
+    String get(long sequence) {
+        Event event = events.get((int) (sequence & mask));
+        return event != null && event.sequence() == sequence ? event.data() : null;
+    }
+
+    /**
+     * Checks that every change after the given one is still buffered.
+     * @param sequence The sequence of the last change a watcher received.
+     * @return True if the watcher can continue after the change, False if it has to reload the seats.
+     */
+    boolean canResumeAfter(long sequence) {
+        long current = published;
+        return sequence >= first - 1 && sequence < current && sequence >= current - mask - 2;
+    }
+
+    private record Event(long sequence, String data) {
+    }
+}
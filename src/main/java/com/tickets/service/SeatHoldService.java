@@ -0,0 +1,146 @@
+package com.tickets.service;
+
+import com.tickets.model.Reservation;
+import com.tickets.model.Seat;
+import com.tickets.model.SeatHold;
+import com.tickets.model.SeatPreference;
+import com.tickets.model.Timetable;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Service class holding seats while a buyer pays. A hold reserves the seats like any other
+ * reservation, and is released when it is not confirmed in time. Deadlines are kept in a
+ * timing wheel ticked by one thread, so expiring a hold never scans the reservations table.
+ */
+@Service
+public class SeatHoldService {
+    private final ReservationService reservationService;
+    private final Duration holdDuration;
+    private final long tickMillis;
+    private final HoldExpiryWheel wheel;
+    /**
+     * IDs of holds neither confirmed nor released yet. Holds leaving the set early are skipped by the wheel.
+     */
+    private final Set<Long> activeHolds = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("seat-hold-expiry").daemon().factory());
+    private final ExecutorService expirations = Executors.newVirtualThreadPerTaskExecutor();
+
+    @Autowired
+    public SeatHoldService(ReservationService reservationService,
+                           @Value("${tickets.seat-holds.duration}") Duration holdDuration,
+                           @Value("${tickets.seat-holds.tick}") Duration tick,
+                           @Value("${tickets.seat-holds.wheel-size}") int wheelSize) {
+        this.reservationService = reservationService;
+        this.holdDuration = holdDuration;
+        this.tickMillis = tick.toMillis();
+        this.wheel = new HoldExpiryWheel(tickMillis, wheelSize, System.currentTimeMillis());
+    }
+
+    /**
+     * Schedules the expiry of holds made before the application started and starts ticking the wheel.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        for (Reservation reservation : reservationService.getHeldReservations()) {
+            activeHolds.add(reservation.getId());
+            wheel.schedule(reservation.getId(), toMillis(reservation.getHoldExpiresAt()));
+        }
+        ticker.scheduleAtFixedRate(() -> expireHolds(System.currentTimeMillis()), tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Holds free seats of a timetable allocated by the policies of the preference.
+     * @param timetable The timetable to hold seats on.
+     * @param preference The number of seats and the allocation policies.
+     * @return The hold, null if no seats match the preference.
+     */
+    public SeatHold hold(Timetable timetable, SeatPreference preference) {
+        LocalDateTime expiresAt = LocalDateTime.now().plus(holdDuration);
+        List<Seat> seats = reservationService.holdSeats(timetable, preference, expiresAt);
+        if (seats.isEmpty()) {
+            return null;
+        }
+        Reservation reservation = seats.get(0).getReservation();
+        activeHolds.add(reservation.getId());
+        wheel.schedule(reservation.getId(), toMillis(expiresAt));
+        return new SeatHold(reservation.getId(), reservation.getHoldToken(), expiresAt, seats);
+    }
+
+    /**
+     * Confirms a hold, so its seats stay reserved.
+     * @param reservationId The reservation ID of the hold.
+     * @param holdToken The token of the hold.
+     * @return True if the hold was confirmed, False if it does not exist, has expired or the token does not match.
+     */
+    public boolean confirm(long reservationId, String holdToken) {
+        boolean confirmed = reservationService.confirmHeldReservation(reservationId, holdToken);
+        if (confirmed) {
+            activeHolds.remove(reservationId);
+        }
+        return confirmed;
+    }
+
+    /**
+     * Releases a hold and its seats before it expires. The hold stays scheduled until it is
+     * released, so a hold whose release failed still expires.
+     * @param reservationId The reservation ID of the hold.
+     * @param holdToken The token of the hold.
+     * @return True if the hold was released, False if it does not exist, is already confirmed or the token does not match.
+     */
+    public boolean release(long reservationId, String holdToken) {
+        boolean released = reservationService.releaseHeldReservation(reservationId, holdToken);
+        if (released) {
+            activeHolds.remove(reservationId);
+        }
+        return released;
+    }
+
+    /**
+     * Releases the holds due by the given time. Called by the ticker thread only.
+     * @param nowMillis The current time in milliseconds.
+     */
+    void expireHolds(long nowMillis) {
+        for (long reservationId : wheel.expire(nowMillis)) {
+            if (activeHolds.remove(reservationId)) {
+                expirations.execute(() -> expire(reservationId));
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        ticker.shutdownNow();
+        expirations.shutdownNow();
+    }
+
+    private void expire(long reservationId) {
+        try {
+            reservationService.releaseHeldReservation(reservationId);
+        } catch (RuntimeException exception) {
+            // The database is unavailable, try again on the next tick.
+            activeHolds.add(reservationId);
+            wheel.schedule(reservationId, System.currentTimeMillis() + tickMillis);
+        }
+    }
+
+    private static long toMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
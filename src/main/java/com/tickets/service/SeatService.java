@@ -1,11 +1,24 @@
 package com.tickets.service;
 
+import com.tickets.model.CursorPage;
+import com.tickets.model.Reservation;
+import com.tickets.model.ReservedSegment;
 import com.tickets.model.Seat;
+import com.tickets.model.enums.SeatType;
+import com.tickets.repository.ReservedSegmentRepository;
 import com.tickets.repository.SeatRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Service class for managing seats and related operations.
@@ -13,9 +26,15 @@ import java.util.List;
 @Service
 public class SeatService {
     private final SeatRepository seatRepository;
+    private final ReservedSegmentRepository reservedSegmentRepository;
+    private final SeatAvailabilityService seatAvailabilityService;
     @Autowired
-    public SeatService(SeatRepository seatRepository) {
+    public SeatService(SeatRepository seatRepository,
+                       ReservedSegmentRepository reservedSegmentRepository,
+                       SeatAvailabilityService seatAvailabilityService) {
         this.seatRepository = seatRepository;
+        this.reservedSegmentRepository = reservedSegmentRepository;
+        this.seatAvailabilityService = seatAvailabilityService;
     }
 
     /**
@@ -24,7 +43,9 @@ public class SeatService {
      * @return The created seat.
      */
     public Seat addSeat(Seat seat){
-        return seatRepository.save(seat);
+        Seat addedSeat = seatRepository.save(seat);
+        seatAvailabilityService.evictAll();
+        return addedSeat;
     }
 
     /**
@@ -33,6 +54,7 @@ public class SeatService {
      */
     public void deleteSeatById(long id){
         seatRepository.deleteById(id);
+        seatAvailabilityService.evictAll();
     }
 
     /**
@@ -52,6 +74,24 @@ public class SeatService {
         return seatRepository.findAll();
     }
 
+    /**
+     * Retrieves one page of seats ordered by ID.
+     * @param afterId The ID after which the page starts, 0 for the first page.
+     * @param size The number of seats of the page.
+     * @return The page with the ID the next page starts after.
+     */
+    public CursorPage<Seat> getSeatsPage(long afterId, int size) {
+        return CursorPage.of(seatRepository.findByIdGreaterThanOrderByIdAsc(afterId, PageRequest.of(0, size)), size, Seat::getId);
+    }
+
+    /**
+     * Streams all seats ordered by ID. The stream must be read and closed inside a transaction.
+     * @return Stream of all seats.
+     */
+    public Stream<Seat> streamAllSeats() {
+        return seatRepository.streamAllByOrderByIdAsc();
+    }
+
     /**
      * Checks that seat exists by ID.
      * @param id The seat ID to check.
@@ -60,11 +100,172 @@ public class SeatService {
     public boolean existSeat(long id) { return seatRepository.existsById(id); }
 
     /**
-     * Updates seat.
+     * Updates seat. Segments sold separately are not part of the seat model, they are kept as they are
+     * stored. A seat whose reservation was removed is freed in the availability index after commit,
+     * except for the segments still sold.
      * @param seat based on the provided seat model.
      * @return Updated seat.
      */
-    public Seat updateSeat(Seat seat) { return seatRepository.save(seat); }
+    @Transactional
+    public Seat updateSeat(Seat seat) {
+        List<Seat> stored = seatRepository.findSeatsForUpdate(List.of(seat.getId()));
+        long soldSegments = stored.isEmpty() ? 0 : stored.get(0).getSoldSegments();
+        boolean reserved = !stored.isEmpty() && stored.get(0).getReservation() != null;
+        seat.setSoldSegments(soldSegments);
+        Seat updatedSeat = seatRepository.save(seat);
+        if (reserved && updatedSeat.getReservation() == null) {
+            List<Long> seatIds = List.of(updatedSeat.getId());
+            afterCommit(() -> seatAvailabilityService.releaseSegments(seatIds, TimetableSeats.WHOLE_TIMETABLE & ~soldSegments));
+        }
+        return updatedSeat;
+    }
+
+    /**
+     * Claims not reserved seats for reservation in one update.
+     * @param seatIds The seat IDs to claim.
+     * @param reservation The reservation the seats belong to.
+     * @return Number of claimed seats, less than requested when some seats were already reserved.
+     */
+    @Transactional
+    public int claimSeats(List<Long> seatIds, Reservation reservation) {
+        return seatRepository.claimSeats(reservation, seatIds);
+    }
+
+    /**
+     * Selects the first free seats of a timetable in the database and assigns reservation to them.
+     * Only the selected seats are loaded, seats being claimed by another transaction are skipped.
+     * @param timetableId The timetable ID to claim seats on.
+     * @param numberOfSeats The number of seats to claim.
+     * @param reservation The reservation the seats belong to.
+     * @return Claimed seats, empty list if there are not enough free seats.
+     */
+    @Transactional
+    public List<Seat> claimFreeSeats(long timetableId, int numberOfSeats, Reservation reservation) {
+        if (numberOfSeats <= 0) {
+            return new ArrayList<>();
+        }
+        List<Seat> seats = seatRepository.findFreeSeatsForUpdate(timetableId, PageRequest.ofSize(numberOfSeats));
+        if (seats.size() < numberOfSeats) {
+            return new ArrayList<>();
+        }
+        seats.forEach(seat -> seat.setReservation(reservation));
+        return seats;
+    }
+
+    /**
+     * Selects one free seat of a timetable in the database, preferring the given seat type, and
+     * assigns reservation to it. Seats being claimed by another transaction are skipped.
+     * @param timetableId The timetable ID to claim the seat on.
+     * @param seatType The preferred seat type.
+     * @param reservation The reservation the seat belongs to.
+     * @return Claimed seat, null if there is no free seat.
+     */
+    @Transactional
+    public Seat claimFreeSeat(long timetableId, SeatType seatType, Reservation reservation) {
+        List<Seat> seats = seatRepository.findFreeSeatsOfTypeForUpdate(timetableId, seatType, PageRequest.ofSize(1));
+        if (seats.isEmpty()) {
+            seats = seatRepository.findFreeSeatsForUpdate(timetableId, PageRequest.ofSize(1));
+        }
+        if (seats.isEmpty()) {
+            return null;
+        }
+        Seat seat = seats.get(0);
+        seat.setReservation(reservation);
+        return seat;
+    }
+
+    /**
+     * Releases all seats of reservation in one update. The seats are freed in the availability
+     * index once the transaction commits, so they are never allocated while still reserved.
+     * @param reservationId The reservation ID whose seats are released.
+     * @return IDs of the released seats.
+     */
+    @Transactional
+    public List<Long> releaseSeatsByReservationId(long reservationId) {
+        List<Long> seatIds = seatRepository.findSeatIdsByReservationId(reservationId);
+        if (!seatIds.isEmpty()) {
+            seatRepository.releaseSeats(seatIds);
+            afterCommit(() -> seatAvailabilityService.releaseSeats(seatIds));
+        }
+        return seatIds;
+    }
+
+    /**
+     * Claims segments of seats for reservation. Seats are locked, so two buyers of
+     * overlapping segments cannot both see them as free.
+     * @param seatIds The seat IDs to claim.
+     * @param segmentMask Bitmask of the claimed segments.
+     * @param reservation The reservation the segments belong to.
+     * @return True if the segments of every seat were claimed, False if any of them was already sold.
+     */
+    @Transactional
+    public boolean claimSegments(List<Long> seatIds, long segmentMask, Reservation reservation) {
+        List<Seat> seats = seatRepository.findSeatsForUpdate(seatIds);
+        if (seats.size() != seatIds.size()) {
+            return false;
+        }
+        for (Seat seat : seats) {
+            if (seat.getReservation() != null || (seat.getSoldSegments() & segmentMask) != 0) {
+                return false;
+            }
+        }
+        List<ReservedSegment> reservedSegments = new ArrayList<>(seats.size());
+        for (Seat seat : seats) {
+            seat.setSoldSegments(seat.getSoldSegments() | segmentMask);
+            ReservedSegment reservedSegment = new ReservedSegment();
+            reservedSegment.setSeat(seat);
+            reservedSegment.setReservation(reservation);
+            reservedSegment.setSegmentMask(segmentMask);
+            reservedSegments.add(reservedSegment);
+        }
+        reservedSegmentRepository.saveAll(reservedSegments);
+        return true;
+    }
+
+    /**
+     * Releases all segments of reservation, one update per distinct segment mask. The segments
+     * are freed in the availability index once the transaction commits.
+     * @param reservationId The reservation ID whose segments are released.
+     * @return IDs of the seats whose segments were released, by segment mask.
+     */
+    @Transactional
+    public Map<Long, List<Long>> releaseSegmentsByReservationId(long reservationId) {
+        List<ReservedSegment> reservedSegments = reservedSegmentRepository.findAllByReservationId(reservationId);
+        if (reservedSegments.isEmpty()) {
+            return Map.of();
+        }
+        Map<Long, List<Long>> seatIdsByMask = reservedSegments.stream()
+                .collect(Collectors.groupingBy(ReservedSegment::getSegmentMask,
+                        Collectors.mapping(reservedSegment -> reservedSegment.getSeat().getId(), Collectors.toList())));
+        reservedSegmentRepository.deleteAllInBatch(reservedSegments);
+        seatIdsByMask.forEach((segmentMask, seatIds) -> seatRepository.releaseSegments(segmentMask, seatIds));
+        afterCommit(() -> seatIdsByMask.forEach((segmentMask, seatIds) ->
+                seatAvailabilityService.releaseSegments(seatIds, segmentMask)));
+        return seatIdsByMask;
+    }
+
+    /**
+     * Runs an update of the availability index after the current transaction commits, or at once without a transaction.
+     */
+    private static void afterCommit(Runnable update) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            update.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                update.run();
+            }
+        });
+    }
+
+    /**
+     * Retrieves the ID of the timetable a seat belongs to.
+     * @param seatId The seat ID.
+     * @return The timetable ID, null if the seat does not exist or its train has no timetable.
+     */
+    public Long getTimetableIdBySeatId(long seatId) { return seatRepository.findTimetableIdBySeatId(seatId); }
 
      /**
      * Retrieves list of seats by reservation ID.
@@ -0,0 +1,263 @@
+package com.tickets.service;
+
+import com.tickets.model.Timetable;
+import com.tickets.model.enums.Station;
+import com.tickets.repository.TimetableRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Service class keeping all timetables in memory, indexed by start station,
+ * end station and start time. The index is loaded once the application is ready
+ * and kept current by {@link TimetableService} on every added or deleted timetable.
+ * Timetables added or deleted on other nodes are picked up by reloading the index
+ * every refresh interval.
+ */
+@Service
+public class TimetableIndex {
+    private final TimetableRepository timetableRepository;
+    private final long refreshIntervalMillis;
+    /**
+     * Timetables by start station, end station, start time and ID. Maps for every pair of
+     * stations are created upfront, so only the time maps change after construction.
+     */
+    private final EnumMap<Station, EnumMap<Station, NavigableMap<Slot, Timetable>>> timetables =
+            new EnumMap<>(Station.class);
+    /**
+     * Where every indexed timetable is kept by ID, so an updated or deleted timetable is removed
+     * from the place it was indexed at, whatever its current stations and start time are.
+     */
+    private final ConcurrentMap<Long, Key> keys = new ConcurrentHashMap<>();
+    private volatile boolean loaded;
+    /**
+     * Incremented on every change of the index, used to detect stale views built from it.
+     */
+    private final AtomicLong version = new AtomicLong();
+    private final ScheduledExecutorService refresher = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("timetable-index-refresh").daemon().factory());
+
+    @Autowired
+    public TimetableIndex(TimetableRepository timetableRepository,
+                          @Value("${tickets.timetable-index.refresh-interval}") Duration refreshInterval) {
+        this.timetableRepository = timetableRepository;
+        this.refreshIntervalMillis = refreshInterval.toMillis();
+        for (Station startStation : Station.values()) {
+            EnumMap<Station, NavigableMap<Slot, Timetable>> byEndStation = new EnumMap<>(Station.class);
+            for (Station endStation : Station.values()) {
+                byEndStation.put(endStation, new ConcurrentSkipListMap<>());
+            }
+            timetables.put(startStation, byEndStation);
+        }
+    }
+
+    /**
+     * Loads all timetables from the database into the index and starts refreshing it.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        while (!refresh()) {
+            // A timetable was added or deleted while the timetables were read.
+        }
+        loaded = true;
+        version.incrementAndGet();
+        refresher.scheduleWithFixedDelay(() -> {
+            try {
+                refresh();
+            } catch (DataAccessException exception) {
+                // The database is unavailable, the index is reloaded on the next interval.
+            }
+        }, refreshIntervalMillis, refreshIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refresher.shutdownNow();
+    }
+
+    /**
+     * Reloads the index from the database, adding, moving and removing the timetables which
+     * changed on any node. The reload is skipped when the index changed while the timetables
+     * were read, the read may be older than that change.
+     * @return True if the index was reloaded, False if it was skipped.
+     */
+    boolean refresh() {
+        long versionBefore = version.get();
+        List<Timetable> stored = timetableRepository.findAll();
+        synchronized (this) {
+            if (version.get() != versionBefore) {
+                return false;
+            }
+            Set<Long> storedIds = new HashSet<>();
+            for (Timetable timetable : stored) {
+                storedIds.add(timetable.getId());
+                Timetable indexed = get(keys.get(timetable.getId()), timetable.getId());
+                if (indexed == null ? isIndexable(timetable) : !sameSchedule(indexed, timetable)) {
+                    put(timetable);
+                }
+            }
+            for (Long id : List.copyOf(keys.keySet())) {
+                if (!storedIds.contains(id)) {
+                    remove(keys.remove(id), id);
+                    version.incrementAndGet();
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks that the index is loaded and can answer lookups.
+     * @return True if the index is loaded, False if lookups have to go to the database.
+     */
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Retrieves the version of the index.
+     * @return Number which changes whenever a timetable is added or removed.
+     */
+    public long getVersion() {
+        return version.get();
+    }
+
+    /**
+     * Adds timetable to the index, or moves it when it was updated.
+     * @param timetable The added or updated timetable.
+     */
+    public synchronized void put(Timetable timetable) {
+        Key previous = keys.remove(timetable.getId());
+        if (previous != null) {
+            remove(previous, timetable.getId());
+        }
+        if (isIndexable(timetable)) {
+            Key key = new Key(timetable.getStartStation(), timetable.getEndStation(), timetable.getStartTime());
+            timetablesBetween(key.startStation(), key.endStation()).put(new Slot(key.startTime(), timetable.getId()), timetable);
+            keys.put(timetable.getId(), key);
+        }
+        version.incrementAndGet();
+    }
+
+    /**
+     * Removes timetable from the index.
+     * @param timetable The deleted timetable.
+     */
+    public synchronized void remove(Timetable timetable) {
+        Key previous = keys.remove(timetable.getId());
+        if (previous != null) {
+            remove(previous, timetable.getId());
+            version.incrementAndGet();
+        }
+    }
+
+    /**
+     * Retrieves timetable by StartStation, EndStation and StartTime.
+     * @param startStation The startStation of the timetable.
+     * @param endStation The endStation of the timetable.
+     * @param startTime The startTime of the timetable.
+     * @return Timetable associated with the stations and startTime with the lowest ID, null if there is none.
+     */
+    public Timetable get(Station startStation, Station endStation, LocalDateTime startTime) {
+        Map.Entry<Slot, Timetable> first = timetablesBetween(startStation, endStation)
+                .ceilingEntry(new Slot(startTime, Long.MIN_VALUE));
+        return first != null && first.getKey().startTime().equals(startTime) ? first.getValue() : null;
+    }
+
+    /**
+     * Retrieves all timetables by StartStation ordered by EndStation and StartTime.
+     * @param startStation The startStation of the timetables.
+     * @return All timetables associated with the startStation.
+     */
+    public List<Timetable> getByStartStation(Station startStation) {
+        List<Timetable> result = new ArrayList<>();
+        for (NavigableMap<Slot, Timetable> byStartTime : timetables.get(startStation).values()) {
+            result.addAll(byStartTime.values());
+        }
+        return result;
+    }
+
+    /**
+     * Retrieves all timetables by StartStation and EndStation ordered by StartTime.
+     * @param startStation The startStation of the timetables.
+     * @param endStation The endStation of the timetables.
+     * @return All timetables associated with the startStation and endStation.
+     */
+    public List<Timetable> getByStartAndEndStation(Station startStation, Station endStation) {
+        return new ArrayList<>(timetablesBetween(startStation, endStation).values());
+    }
+
+    /**
+     * Retrieves all timetables in the index.
+     * @return All timetables.
+     */
+    public List<Timetable> getAll() {
+        List<Timetable> result = new ArrayList<>();
+        for (Station startStation : Station.values()) {
+            result.addAll(getByStartStation(startStation));
+        }
+        return result;
+    }
+
+    private NavigableMap<Slot, Timetable> timetablesBetween(Station startStation, Station endStation) {
+        return timetables.get(startStation).get(endStation);
+    }
+
+    private Timetable get(Key key, long id) {
+        return key == null ? null : timetablesBetween(key.startStation(), key.endStation()).get(new Slot(key.startTime(), id));
+    }
+
+    private void remove(Key key, long id) {
+        timetablesBetween(key.startStation(), key.endStation()).remove(new Slot(key.startTime(), id));
+    }
+
+    private static boolean isIndexable(Timetable timetable) {
+        return timetable.getStartStation() != null && timetable.getEndStation() != null && timetable.getStartTime() != null;
+    }
+
+    private static boolean sameSchedule(Timetable indexed, Timetable stored) {
+        return indexed.getStartStation() == stored.getStartStation()
+                && indexed.getEndStation() == stored.getEndStation()
+                && Objects.equals(indexed.getStartTime(), stored.getStartTime())
+                && Objects.equals(indexed.getEndTime(), stored.getEndTime())
+                && Objects.equals(indexed.getStops(), stored.getStops());
+    }
+
+    private record Key(Station startStation, Station endStation, LocalDateTime startTime) {
+    }
+
+    /**
+     * Position of a timetable in the time map, timetables with the same start time are ordered by ID.
+     */
+    private record Slot(LocalDateTime startTime, long id) implements Comparable<Slot> {
+        private static final Comparator<Slot> ORDER = Comparator.comparing(Slot::startTime).thenComparingLong(Slot::id);
+
+        @Override
+        public int compareTo(Slot other) {
+            return ORDER.compare(this, other);
+        }
+    }
+}
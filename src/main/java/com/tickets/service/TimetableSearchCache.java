@@ -0,0 +1,185 @@
+package com.tickets.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.tickets.model.Timetable;
+import com.tickets.model.TimetableSearch;
+import com.tickets.model.enums.Station;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Service class caching results of the public timetable searches.
+ * Entries are bounded in number, expire after a fixed time and are invalidated
+ * for the stations of every added or deleted timetable.
+ * <p>
+ * Every entry also has a version, a fingerprint of the fields of its timetables which only changes
+ * when a timetable of the search is added, updated or deleted. The version is the entity tag of the
+ * search response, so a client holding the tag is answered without encoding the timetables. Tags
+ * depend on nothing but the timetables, so every node, every reload and shared caches in front of
+ * the nodes agree on them.
+ */
+@Service
+public class TimetableSearchCache {
+    /**
+     * Bytes of the digest kept in the version.
+     */
+    private static final int VERSION_BYTES = 16;
+
+    private final Cache<Station, TimetableSearch> byStartStation;
+    private final Cache<StationPair, TimetableSearch> byStartAndEndStation;
+    private final Duration maxAge;
+
+    public TimetableSearchCache(@Value("${tickets.search-cache.maximum-size}") long maximumSize,
+                                @Value("${tickets.search-cache.expire-after-write}") Duration expireAfterWrite,
+                                @Value("${tickets.search-cache.max-age}") Duration maxAge) {
+        this.byStartStation = newCache(maximumSize, expireAfterWrite);
+        this.byStartAndEndStation = newCache(maximumSize, expireAfterWrite);
+        this.maxAge = maxAge;
+    }
+
+    /**
+     * Retrieves timetables by StartStation, loading them on a miss.
+     * @param startStation The startStation of the timetables.
+     * @param loader Loads the timetables when they are not cached.
+     * @return Cached timetables associated with the startStation and their entity tag.
+     */
+    public TimetableSearch getByStartStation(Station startStation, Supplier<List<Timetable>> loader) {
+        return byStartStation.get(startStation, key -> load(loader));
+    }
+
+    /**
+     * Retrieves timetables by StartStation and EndStation, loading them on a miss.
+     * @param startStation The startStation of the timetables.
+     * @param endStation The endStation of the timetables.
+     * @param loader Loads the timetables when they are not cached.
+     * @return Cached timetables associated with the startStation and endStation and their entity tag.
+     */
+    public TimetableSearch getByStartAndEndStation(Station startStation, Station endStation, Supplier<List<Timetable>> loader) {
+        return byStartAndEndStation.get(new StationPair(startStation, endStation), key -> load(loader));
+    }
+
+    /**
+     * Matches the entity tags the client has against the result of the search by StartStation,
+     * loading it on a miss.
+     * @param startStation The startStation of the timetables.
+     * @param ifNoneMatch Value of the If-None-Match request header, may be null.
+     * @param loader Loads the timetables when they are not cached.
+     * @return The entity tag of the result if the header lists it, null if the result has to be sent.
+     */
+    public String matchETag(Station startStation, String ifNoneMatch, Supplier<List<Timetable>> loader) {
+        return ifNoneMatch == null ? null : match(ifNoneMatch, getByStartStation(startStation, loader));
+    }
+
+    /**
+     * Matches the entity tags the client has against the result of the search by StartStation
+     * and EndStation, loading it on a miss.
+     * @param startStation The startStation of the timetables.
+     * @param endStation The endStation of the timetables.
+     * @param ifNoneMatch Value of the If-None-Match request header, may be null.
+     * @param loader Loads the timetables when they are not cached.
+     * @return The entity tag of the result if the header lists it, null if the result has to be sent.
+     */
+    public String matchETag(Station startStation, Station endStation, String ifNoneMatch, Supplier<List<Timetable>> loader) {
+        return ifNoneMatch == null ? null : match(ifNoneMatch, getByStartAndEndStation(startStation, endStation, loader));
+    }
+
+    /**
+     * Retrieves how long clients and shared caches may reuse a search response without revalidating it.
+     * @return The max-age of search responses.
+     */
+    public Duration getMaxAge() {
+        return maxAge;
+    }
+
+    /**
+     * Invalidates every search whose result contains timetables between the stations.
+     * @param startStation The startStation of the changed timetable.
+     * @param endStation The endStation of the changed timetable.
+     */
+    public void invalidate(Station startStation, Station endStation) {
+        byStartStation.invalidate(startStation);
+        byStartAndEndStation.invalidate(new StationPair(startStation, endStation));
+    }
+
+    /**
+     * Retrieves hit, miss and eviction counters of both searches.
+     * @return Counters by name.
+     */
+    public Map<String, Long> getStatistics() {
+        Map<String, Long> statistics = new LinkedHashMap<>();
+        putStatistics(statistics, "startStation", byStartStation);
+        putStatistics(statistics, "startAndEndStation", byStartAndEndStation);
+        return statistics;
+    }
+
+    private static void putStatistics(Map<String, Long> statistics, String name, Cache<?, ?> cache) {
+        CacheStats stats = cache.stats();
+        statistics.put(name + ".hits", stats.hitCount());
+        statistics.put(name + ".misses", stats.missCount());
+        statistics.put(name + ".evictions", stats.evictionCount());
+        statistics.put(name + ".size", cache.estimatedSize());
+    }
+
+    private static TimetableSearch load(Supplier<List<Timetable>> loader) {
+        List<Timetable> timetables = List.copyOf(loader.get());
+        return new TimetableSearch(timetables, "\"" + version(timetables) + "\"");
+    }
+
+    /**
+     * Computes the version of search results from every field of the timetables sent to clients.
+     */
+    static String version(List<Timetable> timetables) {
+        MessageDigest digest = newDigest();
+        for (Timetable timetable : timetables) {
+            String fields = timetable.getId() + "|" + timetable.getStartStation() + "|" + timetable.getEndStation()
+                    + "|" + timetable.getStartTime() + "|" + timetable.getEndTime() + "|" + timetable.getStops() + "\n";
+            digest.update(fields.getBytes(StandardCharsets.UTF_8));
+        }
+        return HexFormat.of().formatHex(digest.digest(), 0, VERSION_BYTES);
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException exception) {
+            throw new IllegalStateException(exception);
+        }
+    }
+
+    private static String match(String ifNoneMatch, TimetableSearch search) {
+        // An empty result is answered with 404 and no entity tag, so it is never current for a client.
+        if (search == null || search.getTimetables().isEmpty()) {
+            return null;
+        }
+        for (String tag : ifNoneMatch.split(",")) {
+            String trimmed = tag.trim();
+            if (trimmed.equals("*") || trimmed.equals(search.getETag()) || trimmed.equals("W/" + search.getETag())) {
+                return search.getETag();
+            }
+        }
+        return null;
+    }
+
+    private static <K> Cache<K, TimetableSearch> newCache(long maximumSize, Duration expireAfterWrite) {
+        return Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+    }
+
+    private record StationPair(Station startStation, Station endStation) {
+    }
+}
@@ -0,0 +1,89 @@
+package com.tickets.service;
+
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import com.tickets.model.Timetable;
+import com.tickets.model.TimetableSearchResult;
+import org.springframework.stereotype.Service;
+
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * Service class encoding timetable search results. Every timetable is formatted and encoded as
+ * a JSON string once and the bytes are reused by every response containing it, so a search
+ * only allocates the list of fragments. Fragments are evicted when their timetable is saved or deleted.
+ */
+@Service
+public class TimetableSearchEncoder {
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm");
+
+    /**
+     * Fragments by timetable ID, created on first search.
+     */
+    private final ConcurrentMap<Long, Fragments> fragments = new ConcurrentHashMap<>();
+
+    /**
+     * Encodes the end stations and start times of timetables, as "EndStation dd-MM-yyyy HH:mm".
+     * @param timetables The found timetables.
+     * @return The encoded result.
+     */
+    public TimetableSearchResult encodeEndStations(List<Timetable> timetables) {
+        return encode(timetables, Fragments::endStation);
+    }
+
+    /**
+     * Encodes the stations and times of timetables, as "StartStation: dd-MM-yyyy HH:mm, EndStation dd-MM-yyyy HH:mm".
+     * @param timetables The found timetables.
+     * @return The encoded result.
+     */
+    public TimetableSearchResult encodeConnections(List<Timetable> timetables) {
+        return encode(timetables, Fragments::connection);
+    }
+
+    /**
+     * Evicts the fragments of a saved or deleted timetable.
+     * @param timetableId The timetable ID.
+     */
+    public void evict(long timetableId) {
+        fragments.remove(timetableId);
+    }
+
+    private TimetableSearchResult encode(List<Timetable> timetables, Function<Fragments, byte[]> format) {
+        List<byte[]> encoded = new ArrayList<>(timetables.size());
+        for (Timetable timetable : timetables) {
+            encoded.add(format.apply(fragmentsOf(timetable)));
+        }
+        return new TimetableSearchResult(encoded);
+    }
+
+    private Fragments fragmentsOf(Timetable timetable) {
+        // Timetables which were never saved have no ID to cache them by.
+        if (timetable.getId() == 0) {
+            return Fragments.of(timetable);
+        }
+        return fragments.computeIfAbsent(timetable.getId(), id -> Fragments.of(timetable));
+    }
+
+    private record Fragments(byte[] endStation, byte[] connection) {
+        static Fragments of(Timetable timetable) {
+            String startTime = timetable.getStartTime() == null ? "null" : timetable.getStartTime().format(FORMATTER);
+            String endTime = timetable.getEndTime() == null ? "null" : timetable.getEndTime().format(FORMATTER);
+            return new Fragments(
+                    quote(timetable.getEndStation() + " " + startTime),
+                    quote(timetable.getStartStation() + ": " + startTime + ", " + timetable.getEndStation() + " " + endTime));
+        }
+
+        private static byte[] quote(String value) {
+            byte[] quoted = JsonStringEncoder.getInstance().quoteAsUTF8(value);
+            byte[] bytes = new byte[quoted.length + 2];
+            bytes[0] = '"';
+            System.arraycopy(quoted, 0, bytes, 1, quoted.length);
+            bytes[bytes.length - 1] = '"';
+            return bytes;
+        }
+    }
+}
@@ -0,0 +1,523 @@
+package com.tickets.service;
+
+import com.tickets.model.Seat;
+import com.tickets.model.SeatAvailability;
+import com.tickets.model.SeatMapEntry;
+import com.tickets.model.SeatPreference;
+import com.tickets.model.enums.SeatAllocationPolicy;
+import com.tickets.model.enums.SeatType;
+import com.tickets.model.enums.WagonType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Free-seat index of one timetable and the seat allocation engine working on it.
+ * Seats are kept in seat map order, by wagon number and seat number, so the seats of a wagon
+ * take one range of positions. Bit {@code i} of {@code free} is set when the seat at position
+ * {@code i} has no sold segment, {@code freeByType} holds the same bits split by seat type and
+ * {@code freeCounts} counts free seats by wagon and seat type, so checking whether a wagon has
+ * enough seats of a type is one lookup instead of a scan of its seats. Runs of free seats with
+ * consecutive seat numbers are kept by a {@link FreeRunTree} of every wagon.
+ * <p>
+ * Free seats of the whole timetable are also counted by seat type and wagon type in atomic
+ * counters. They are written under the lock like the rest of the index, but read without it,
+ * so availability requests never wait for an allocation.
+ */
+final class TimetableSeats {
+    /**
+     * Segment mask of a seat reserved for the whole timetable.
+     */
+    static final long WHOLE_TIMETABLE = -1L;
+    private static final SeatType[] SEAT_TYPES = SeatType.values();
+    private static final WagonType[] WAGON_TYPES = WagonType.values();
+    /**
+     * Seat types tried in order by the nearest seat type policy.
+     */
+    private static final Map<SeatType, SeatType[]> NEAREST_SEAT_TYPES = new EnumMap<>(SeatType.class);
+
+    static {
+        NEAREST_SEAT_TYPES.put(SeatType.Window, new SeatType[]{SeatType.Window, SeatType.Corridor, SeatType.Middle, SeatType.Couchette});
+        NEAREST_SEAT_TYPES.put(SeatType.Corridor, new SeatType[]{SeatType.Corridor, SeatType.Window, SeatType.Middle, SeatType.Couchette});
+        NEAREST_SEAT_TYPES.put(SeatType.Middle, new SeatType[]{SeatType.Middle, SeatType.Corridor, SeatType.Window, SeatType.Couchette});
+        NEAREST_SEAT_TYPES.put(SeatType.Couchette, new SeatType[]{SeatType.Couchette, SeatType.Window, SeatType.Corridor, SeatType.Middle});
+    }
+
+    private final long[] seatIds;
+    private final long[] seatNumbers;
+    private final SeatType[] seatTypes;
+    private final long[] soldSegments;
+    private final int[] wagonOfSeat;
+    /**
+     * Seat IDs in ascending order and the position of every one of them, used to find seats by ID.
+     */
+    private final long[] sortedSeatIds;
+    private final int[] positionsOfSortedSeatIds;
+    /**
+     * First position of every wagon, the last element is the number of seats.
+     */
+    private final int[] wagonStarts;
+    private final WagonType[] wagonTypes;
+    private final BitSet free;
+    private final BitSet[] freeByType;
+    private final int[][] freeCounts;
+    private final int[] freeInWagon;
+    private final FreeRunTree[] freeRuns;
+    private final AtomicIntegerArray freeBySeatType = new AtomicIntegerArray(SEAT_TYPES.length);
+    private final AtomicIntegerArray freeByWagonType = new AtomicIntegerArray(WAGON_TYPES.length);
+    private volatile int freeSeats;
+
+    TimetableSeats(List<SeatMapEntry> seatMap) {
+        SeatMapEntry[] seats = seatMap.toArray(new SeatMapEntry[0]);
+        Arrays.sort(seats, Comparator.comparingInt(SeatMapEntry::getWagonNumber)
+                .thenComparingLong(SeatMapEntry::getWagonId)
+                .thenComparingLong(SeatMapEntry::getSeatNumber)
+                .thenComparingLong(SeatMapEntry::getSeatId));
+        int count = seats.length;
+        seatIds = new long[count];
+        seatNumbers = new long[count];
+        seatTypes = new SeatType[count];
+        soldSegments = new long[count];
+        wagonOfSeat = new int[count];
+        free = new BitSet(count);
+        freeByType = new BitSet[SEAT_TYPES.length];
+        for (int type = 0; type < SEAT_TYPES.length; type++) {
+            freeByType[type] = new BitSet(count);
+        }
+
+        List<Integer> starts = new ArrayList<>();
+        List<WagonType> types = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            if (i == 0 || seats[i].getWagonId() != seats[i - 1].getWagonId()) {
+                starts.add(i);
+                types.add(seats[i].getWagonType());
+            }
+            seatIds[i] = seats[i].getSeatId();
+            seatNumbers[i] = seats[i].getSeatNumber();
+            seatTypes[i] = seats[i].getSeatType();
+            wagonOfSeat[i] = starts.size() - 1;
+        }
+        wagonStarts = new int[starts.size() + 1];
+        for (int wagon = 0; wagon < starts.size(); wagon++) {
+            wagonStarts[wagon] = starts.get(wagon);
+        }
+        wagonStarts[starts.size()] = count;
+        wagonTypes = types.toArray(new WagonType[0]);
+        freeCounts = new int[wagonTypes.length][SEAT_TYPES.length];
+        freeInWagon = new int[wagonTypes.length];
+        freeRuns = new FreeRunTree[wagonTypes.length];
+        for (int wagon = 0; wagon < wagonTypes.length; wagon++) {
+            freeRuns[wagon] = new FreeRunTree(Arrays.copyOfRange(seatNumbers, wagonStarts[wagon], wagonStarts[wagon + 1]));
+        }
+
+        Integer[] byId = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            byId[i] = i;
+        }
+        Arrays.sort(byId, Comparator.comparingLong(position -> seatIds[position]));
+        sortedSeatIds = new long[count];
+        positionsOfSortedSeatIds = new int[count];
+        for (int i = 0; i < count; i++) {
+            sortedSeatIds[i] = seatIds[byId[i]];
+            positionsOfSortedSeatIds[i] = byId[i];
+        }
+
+        for (int i = 0; i < count; i++) {
+            soldSegments[i] = seats[i].getReservationId() != null ? WHOLE_TIMETABLE : seats[i].getSoldSegments();
+            if (soldSegments[i] == 0) {
+                markFree(i);
+            }
+        }
+    }
+
+    /**
+     * Allocates free seats matching the preference and marks them as reserved.
+     * @param preference The number of seats and the allocation policies.
+     * @return Detached copies of the allocated seats, empty list if no seats match the preference.
+     */
+    synchronized List<Seat> allocate(SeatPreference preference) {
+        int numberOfSeats = preference.getNumberOfSeats();
+        if (numberOfSeats <= 0 || freeSeats < numberOfSeats) {
+            return new ArrayList<>();
+        }
+        Set<SeatAllocationPolicy> policies = preference.getPolicies() == null || preference.getPolicies().isEmpty()
+                ? EnumSet.noneOf(SeatAllocationPolicy.class)
+                : EnumSet.copyOf(preference.getPolicies());
+        SeatType[] types = seatTypeOrder(preference.getSeatType(), policies);
+        int[] wagons = wagonOrder(preference.getWagonType(), policies);
+
+        int[] chosen = find(numberOfSeats, types, wagons, policies);
+        if (chosen == null && types != null && !policies.contains(SeatAllocationPolicy.Exact_Seat_Type)) {
+            // The nearest seat type policy ends with seats of any type.
+            chosen = find(numberOfSeats, null, wagons, policies);
+        }
+        if (chosen == null) {
+            return new ArrayList<>();
+        }
+        List<Seat> allocated = new ArrayList<>(numberOfSeats);
+        for (int position : chosen) {
+            sell(position, WHOLE_TIMETABLE);
+            allocated.add(copyOf(position));
+        }
+        return allocated;
+    }
+
+    /**
+     * Takes free seats for the given segments and marks the segments as sold.
+     * @param numberOfSeats The number of seats to take.
+     * @param segmentMask Bitmask of the segments to take.
+     * @return Detached copies of the taken seats, empty list if there are not enough free seats.
+     */
+    synchronized List<Seat> take(int numberOfSeats, long segmentMask) {
+        if (numberOfSeats <= 0 || numberOfSeats > soldSegments.length) {
+            return new ArrayList<>();
+        }
+        int[] chosen = new int[numberOfSeats];
+        int found = 0;
+        for (int i = 0; i < soldSegments.length && found < numberOfSeats; i++) {
+            if ((soldSegments[i] & segmentMask) == 0) {
+                chosen[found++] = i;
+            }
+        }
+        if (found < numberOfSeats) {
+            return new ArrayList<>();
+        }
+        List<Seat> taken = new ArrayList<>(numberOfSeats);
+        for (int i : chosen) {
+            sell(i, segmentMask);
+            taken.add(copyOf(i));
+        }
+        return taken;
+    }
+
+    /**
+     * Marks segments of seats reserved without the index as sold.
+     * @param ids The seat IDs whose segments were sold, IDs of other timetables are ignored.
+     * @param segmentMask Bitmask of the sold segments.
+     */
+    synchronized void reserve(Collection<Long> ids, long segmentMask) {
+        for (long id : ids) {
+            int position = positionOf(id);
+            if (position >= 0) {
+                sell(position, segmentMask);
+            }
+        }
+    }
+
+    /**
+     * Marks segments of seats as free, seats without sold segments become free.
+     * @param ids The seat IDs whose segments are freed, IDs of other timetables are ignored.
+     * @param segmentMask Bitmask of the freed segments.
+     */
+    synchronized void release(Collection<Long> ids, long segmentMask) {
+        for (long id : ids) {
+            int position = positionOf(id);
+            if (position >= 0) {
+                soldSegments[position] &= ~segmentMask;
+                if (soldSegments[position] == 0 && !free.get(position)) {
+                    markFree(position);
+                }
+            }
+        }
+    }
+
+    /**
+     * Counts free seats without taking the lock. Every counter is exact, but counters may be
+     * read on both sides of a concurrent allocation.
+     * @return Free seats in total and by seat type and wagon type.
+     */
+    SeatAvailability availability() {
+        Map<SeatType, Integer> bySeatType = new EnumMap<>(SeatType.class);
+        for (SeatType seatType : SEAT_TYPES) {
+            bySeatType.put(seatType, freeBySeatType.get(seatType.ordinal()));
+        }
+        Map<WagonType, Integer> byWagonType = new EnumMap<>(WagonType.class);
+        for (WagonType wagonType : WAGON_TYPES) {
+            byWagonType.put(wagonType, freeByWagonType.get(wagonType.ordinal()));
+        }
+        return new SeatAvailability(freeSeats, bySeatType, byWagonType);
+    }
+
+    private int[] find(int numberOfSeats, SeatType[] types, int[] wagons, Set<SeatAllocationPolicy> policies) {
+        if (policies.contains(SeatAllocationPolicy.Adjacent_Seats)) {
+            return findAdjacent(numberOfSeats, types, wagons);
+        }
+        if (policies.contains(SeatAllocationPolicy.Same_Wagon)) {
+            return findInOneWagon(numberOfSeats, types, wagons);
+        }
+        if (policies.contains(SeatAllocationPolicy.Keep_Together) && numberOfSeats > 1) {
+            int[] chosen = findAdjacent(numberOfSeats, types, wagons);
+            if (chosen == null) {
+                chosen = findInOneWagon(numberOfSeats, types, wagons);
+            }
+            if (chosen == null) {
+                chosen = findInNeighbouringWagons(numberOfSeats, types);
+            }
+            if (chosen != null) {
+                return chosen;
+            }
+        }
+        return findAnywhere(numberOfSeats, types, wagons);
+    }
+
+    /**
+     * Picks seats in the order of seat types first and wagons second.
+     */
+    private int[] findAnywhere(int numberOfSeats, SeatType[] types, int[] wagons) {
+        if (countFree(types, types == null ? 0 : types.length, wagons) < numberOfSeats) {
+            return null;
+        }
+        int[] chosen = new int[numberOfSeats];
+        int found = 0;
+        if (types == null) {
+            for (int wagon : wagons) {
+                found = collect(free, wagon, chosen, found);
+            }
+            return chosen;
+        }
+        for (SeatType type : types) {
+            for (int wagon : wagons) {
+                found = collect(freeByType[type.ordinal()], wagon, chosen, found);
+            }
+        }
+        return chosen;
+    }
+
+    /**
+     * Picks seats in the first wagon having enough of them, wagons having enough seats of the
+     * preferred types are tried before wagons which need the less preferred types.
+     */
+    private int[] findInOneWagon(int numberOfSeats, SeatType[] types, int[] wagons) {
+        int passes = types == null ? 1 : types.length;
+        for (int pass = 1; pass <= passes; pass++) {
+            for (int wagon : wagons) {
+                if (countFree(types, pass, new int[]{wagon}) < numberOfSeats) {
+                    continue;
+                }
+                int[] chosen = new int[numberOfSeats];
+                int found = 0;
+                if (types == null) {
+                    collect(free, wagon, chosen, found);
+                    return chosen;
+                }
+                for (int type = 0; type < pass; type++) {
+                    found = collect(freeByType[types[type].ordinal()], wagon, chosen, found);
+                }
+                return chosen;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Picks seats with consecutive seat numbers in one wagon, runs made only of the preferred
+     * types are tried before runs which need the less preferred types. Without seat types the
+     * run is found by the {@link FreeRunTree} of every wagon, with seat types the seats of every
+     * wagon having enough free seats of them are scanned, as the trees do not know seat types.
+     */
+    private int[] findAdjacent(int numberOfSeats, SeatType[] types, int[] wagons) {
+        if (types == null) {
+            for (int wagon : wagons) {
+                int start = freeRuns[wagon].findRun(numberOfSeats);
+                if (start >= 0) {
+                    return range(wagonStarts[wagon] + start, numberOfSeats);
+                }
+            }
+            return null;
+        }
+        for (int pass = 1; pass <= types.length; pass++) {
+            boolean[] allowed = allowedTypes(types, pass);
+            for (int wagon : wagons) {
+                if (countFree(types, pass, new int[]{wagon}) < numberOfSeats) {
+                    continue;
+                }
+                int run = 0;
+                for (int position = wagonStarts[wagon]; position < wagonStarts[wagon + 1]; position++) {
+                    boolean usable = free.get(position)
+                            && seatTypes[position] != null && allowed[seatTypes[position].ordinal()];
+                    if (!usable) {
+                        run = 0;
+                        continue;
+                    }
+                    run = run > 0 && seatNumbers[position] == seatNumbers[position - 1] + 1 ? run + 1 : 1;
+                    if (run == numberOfSeats) {
+                        return range(position - numberOfSeats + 1, numberOfSeats);
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Picks seats in the shortest sequence of neighbouring wagons having enough of them,
+     * in the order of seat types first and wagons second.
+     */
+    private int[] findInNeighbouringWagons(int numberOfSeats, SeatType[] types) {
+        int[] counts = new int[wagonTypes.length];
+        for (int wagon = 0; wagon < counts.length; wagon++) {
+            counts[wagon] = countFree(types, types == null ? 0 : types.length, new int[]{wagon});
+        }
+        int bestFirst = -1;
+        int bestLast = counts.length;
+        int count = 0;
+        for (int first = 0, last = 0; last < counts.length; last++) {
+            count += counts[last];
+            while (count - counts[first] >= numberOfSeats) {
+                count -= counts[first++];
+            }
+            if (count >= numberOfSeats && last - first < bestLast - bestFirst) {
+                bestFirst = first;
+                bestLast = last;
+            }
+        }
+        if (bestFirst < 0) {
+            return null;
+        }
+        int[] wagons = new int[bestLast - bestFirst + 1];
+        for (int i = 0; i < wagons.length; i++) {
+            wagons[i] = bestFirst + i;
+        }
+        return findAnywhere(numberOfSeats, types, wagons);
+    }
+
+    private static int[] range(int first, int length) {
+        int[] positions = new int[length];
+        for (int i = 0; i < length; i++) {
+            positions[i] = first + i;
+        }
+        return positions;
+    }
+
+    /**
+     * Adds free seats of a wagon set in the bitmap to the chosen positions until enough are chosen.
+     * @return The number of chosen positions.
+     */
+    private int collect(BitSet bitmap, int wagon, int[] chosen, int found) {
+        int end = wagonStarts[wagon + 1];
+        for (int position = bitmap.nextSetBit(wagonStarts[wagon]);
+             found < chosen.length && position >= 0 && position < end;
+             position = bitmap.nextSetBit(position + 1)) {
+            chosen[found++] = position;
+        }
+        return found;
+    }
+
+    /**
+     * Counts free seats of the first seat types in the wagons, seats of any type when types are null.
+     */
+    private int countFree(SeatType[] types, int numberOfTypes, int[] wagons) {
+        int count = 0;
+        for (int wagon : wagons) {
+            if (types == null) {
+                count += freeInWagon[wagon];
+                continue;
+            }
+            for (int type = 0; type < numberOfTypes; type++) {
+                count += freeCounts[wagon][types[type].ordinal()];
+            }
+        }
+        return count;
+    }
+
+    private static boolean[] allowedTypes(SeatType[] types, int numberOfTypes) {
+        boolean[] allowed = new boolean[SEAT_TYPES.length];
+        for (int type = 0; type < numberOfTypes; type++) {
+            allowed[types[type].ordinal()] = true;
+        }
+        return allowed;
+    }
+
+    /**
+     * Seat types in the order they are tried, null when the seat type does not matter.
+     */
+    private static SeatType[] seatTypeOrder(SeatType seatType, Set<SeatAllocationPolicy> policies) {
+        if (seatType == null) {
+            return null;
+        }
+        if (policies.contains(SeatAllocationPolicy.Exact_Seat_Type)) {
+            return new SeatType[]{seatType};
+        }
+        if (policies.contains(SeatAllocationPolicy.Nearest_Seat_Type)) {
+            return NEAREST_SEAT_TYPES.get(seatType);
+        }
+        return null;
+    }
+
+    /**
+     * Wagons in the order they are tried, wagons of the preferred wagon type first.
+     */
+    private int[] wagonOrder(WagonType wagonType, Set<SeatAllocationPolicy> policies) {
+        int[] wagons = new int[wagonTypes.length];
+        int next = 0;
+        boolean preferWagonType = wagonType != null && policies.contains(SeatAllocationPolicy.Wagon_Type);
+        if (preferWagonType) {
+            for (int wagon = 0; wagon < wagonTypes.length; wagon++) {
+                if (wagonTypes[wagon] == wagonType) {
+                    wagons[next++] = wagon;
+                }
+            }
+        }
+        for (int wagon = 0; wagon < wagonTypes.length; wagon++) {
+            if (!preferWagonType || wagonTypes[wagon] != wagonType) {
+                wagons[next++] = wagon;
+            }
+        }
+        return wagons;
+    }
+
+    /**
+     * Finds the position of a seat by ID.
+     * @return The position, -1 if the seat does not belong to the timetable.
+     */
+    private int positionOf(long id) {
+        int index = Arrays.binarySearch(sortedSeatIds, id);
+        return index >= 0 ? positionsOfSortedSeatIds[index] : -1;
+    }
+
+    private void sell(int position, long segmentMask) {
+        soldSegments[position] |= segmentMask;
+        if (free.get(position)) {
+            updateFree(position, false);
+        }
+    }
+
+    private void markFree(int position) {
+        updateFree(position, true);
+    }
+
+    private void updateFree(int position, boolean isFree) {
+        int delta = isFree ? 1 : -1;
+        int wagon = wagonOfSeat[position];
+        free.set(position, isFree);
+        freeSeats += delta;
+        freeInWagon[wagon] += delta;
+        freeRuns[wagon].set(position - wagonStarts[wagon], isFree);
+        if (seatTypes[position] != null) {
+            int type = seatTypes[position].ordinal();
+            freeByType[type].set(position, isFree);
+            freeCounts[wagon][type] += delta;
+            freeBySeatType.addAndGet(type, delta);
+        }
+        if (wagonTypes[wagon] != null) {
+            freeByWagonType.addAndGet(wagonTypes[wagon].ordinal(), delta);
+        }
+    }
+
+    private Seat copyOf(int position) {
+        Seat seat = new Seat();
+        seat.setId(seatIds[position]);
+        seat.setSeatNumber(seatNumbers[position]);
+        seat.setSeatType(seatTypes[position]);
+        return seat;
+    }
+}
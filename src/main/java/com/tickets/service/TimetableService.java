@@ -4,10 +4,14 @@ import com.tickets.model.*;
 import com.tickets.model.enums.Station;
 import com.tickets.repository.TimetableRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 /**
  * Service class for managing timetables and related operations.
@@ -15,18 +19,45 @@ import java.util.List;
 @Service
 public class TimetableService {
     private final TimetableRepository timetableRepository;
+    private final SeatAvailabilityService seatAvailabilityService;
+    private final TimetableSearchCache timetableSearchCache;
+    private final TimetableIndex timetableIndex;
+    private final TimetableSearchEncoder timetableSearchEncoder;
+    private final SeatDeltaFeed seatDeltaFeed;
     @Autowired
-    public TimetableService(TimetableRepository timetableRepository) {
+    public TimetableService(TimetableRepository timetableRepository,
+                            SeatAvailabilityService seatAvailabilityService,
+                            TimetableSearchCache timetableSearchCache,
+                            TimetableIndex timetableIndex,
+                            TimetableSearchEncoder timetableSearchEncoder,
+                            SeatDeltaFeed seatDeltaFeed) {
         this.timetableRepository = timetableRepository;
+        this.seatAvailabilityService = seatAvailabilityService;
+        this.timetableSearchCache = timetableSearchCache;
+        this.timetableIndex = timetableIndex;
+        this.timetableSearchEncoder = timetableSearchEncoder;
+        this.seatDeltaFeed = seatDeltaFeed;
     }
 
     /**
-     * Creates new timetable.
+     * Creates new timetable, or updates it when the ID of an existing one is given.
+     * Searches between the previous stations of an updated timetable are invalidated too.
      * @param timetable Create a new timetable based on the provided timetable model.
      * @return The created timetable.
      */
     public Timetable addTimetable(Timetable timetable){
-        return timetableRepository.save(timetable);
+        Timetable previous = timetable.getId() != 0 ? getTimetableById(timetable.getId()) : null;
+        // Read before saving, which may merge the new values into the same managed entity.
+        Station previousStartStation = previous != null ? previous.getStartStation() : null;
+        Station previousEndStation = previous != null ? previous.getEndStation() : null;
+        Timetable addedTimetable = timetableRepository.save(timetable);
+        timetableSearchEncoder.evict(addedTimetable.getId());
+        timetableIndex.put(addedTimetable);
+        if (previousStartStation != null && previousEndStation != null) {
+            timetableSearchCache.invalidate(previousStartStation, previousEndStation);
+        }
+        timetableSearchCache.invalidate(addedTimetable.getStartStation(), addedTimetable.getEndStation());
+        return addedTimetable;
     }
 
     /**
@@ -34,7 +65,15 @@ public class TimetableService {
      * @param id The timetable ID to be canceled.
      */
     public void deleteTimetableById(long id){
+        Timetable timetable = getTimetableById(id);
         timetableRepository.deleteById(id);
+        seatAvailabilityService.evict(id);
+        timetableSearchEncoder.evict(id);
+        seatDeltaFeed.close(id);
+        if (timetable != null) {
+            timetableIndex.remove(timetable);
+            timetableSearchCache.invalidate(timetable.getStartStation(), timetable.getEndStation());
+        }
     }
 
     /**
@@ -54,13 +93,40 @@ public class TimetableService {
         return timetableRepository.findAll();
     }
 
+    /**
+     * Retrieves one page of timetables ordered by ID.
+     * @param afterId The ID after which the page starts, 0 for the first page.
+     * @param size The number of timetables of the page.
+     * @return The page with the ID the next page starts after.
+     */
+    public CursorPage<Timetable> getTimetablesPage(long afterId, int size) {
+        return CursorPage.of(timetableRepository.findByIdGreaterThanOrderByIdAsc(afterId, PageRequest.of(0, size)), size, Timetable::getId);
+    }
+
+    /**
+     * Streams all timetables ordered by ID. The stream must be read and closed inside a transaction.
+     * @return Stream of all timetables.
+     */
+    public Stream<Timetable> streamAllTimetables() {
+        return timetableRepository.streamAllByOrderByIdAsc();
+    }
+
     /**
      * Retrieves all timetables by StartStation.
      * @param startStation The startStation of the timetable for which all timetables are retrieved.
      * @return all timetables associated with the startStation.
      */
     public List<Timetable> getAllTimetablesByStartStation(Station startStation){
-        return timetableRepository.findAllByStartStation(startStation);
+        return searchTimetablesByStartStation(startStation).getTimetables();
+    }
+
+    /**
+     * Retrieves all timetables by StartStation with the entity tag of their version.
+     * @param startStation The startStation of the timetable for which all timetables are retrieved.
+     * @return All timetables associated with the startStation and their entity tag.
+     */
+    public TimetableSearch searchTimetablesByStartStation(Station startStation){
+        return timetableSearchCache.getByStartStation(startStation, () -> loadTimetablesByStartStation(startStation));
     }
 
     /**
@@ -70,18 +136,65 @@ public class TimetableService {
      * @return All timetables associated with the startStation and endStation.
      */
     public List<Timetable> getAllTimetablesByStartStationAndEndStation(Station startStation, Station endStation){
-        return timetableRepository.findAllByStartStationAndEndStation(startStation, endStation);
+        return searchTimetablesByStartStationAndEndStation(startStation, endStation).getTimetables();
+    }
+
+    /**
+     * Retrieves all timetables by StartStation and EndStation with the entity tag of their version.
+     * @param startStation The startStation of the timetable for which all timetables are retrieved.
+     * @param endStation The endStation of the timetable for which all timetables are retrieved.
+     * @return All timetables associated with the startStation and endStation and their entity tag.
+     */
+    public TimetableSearch searchTimetablesByStartStationAndEndStation(Station startStation, Station endStation){
+        return timetableSearchCache.getByStartAndEndStation(startStation, endStation,
+                () -> loadTimetablesByStartStationAndEndStation(startStation, endStation));
     }
 
     /**
-     * Retrieves timetable by StartStation, EndStation and StartTime.
+     * Checks that the client already has the current timetables by StartStation, without encoding them.
+     * @param startStation The startStation of the timetables.
+     * @param ifNoneMatch Value of the If-None-Match request header, may be null.
+     * @return The entity tag of the timetables if they did not change since the client received them, null if not.
+     */
+    public String getUnmodifiedTimetablesByStartStationETag(Station startStation, String ifNoneMatch) {
+        return timetableSearchCache.matchETag(startStation, ifNoneMatch, () -> loadTimetablesByStartStation(startStation));
+    }
+
+    /**
+     * Checks that the client already has the current timetables by StartStation and EndStation, without encoding them.
+     * @param startStation The startStation of the timetables.
+     * @param endStation The endStation of the timetables.
+     * @param ifNoneMatch Value of the If-None-Match request header, may be null.
+     * @return The entity tag of the timetables if they did not change since the client received them, null if not.
+     */
+    public String getUnmodifiedTimetablesByStartStationAndEndStationETag(Station startStation, Station endStation,
+                                                                         String ifNoneMatch) {
+        return timetableSearchCache.matchETag(startStation, endStation, ifNoneMatch,
+                () -> loadTimetablesByStartStationAndEndStation(startStation, endStation));
+    }
+
+    /**
+     * Retrieves how long timetable search responses may be reused without revalidating them.
+     * @return The max-age of search responses.
+     */
+    public Duration getSearchMaxAge() { return timetableSearchCache.getMaxAge(); }
+
+    /**
+     * Retrieves timetable by StartStation, EndStation and StartTime. A timetable missing from the index,
+     * e.g. added on another node since the index was refreshed, is looked up in the database.
      * @param startStation The startStation of the timetable for which timetable is retrieved.
      * @param endStation The endStation of the timetable for which timetable is retrieved.
      * @param startTime The startTime of the timetable for which timetable is retrieved.
      * @return Timetable associated with the startStation, endStation and startTime.
      */
     public Timetable getTimetableByStartStationAndEndStationAndStartTime(Station startStation, Station endStation, LocalDateTime startTime){
-        return timetableRepository.findByStartStationAndEndStationAndStartTime(startStation, endStation, startTime);
+        if (timetableIndex.isLoaded()) {
+            Timetable timetable = timetableIndex.get(startStation, endStation, startTime);
+            if (timetable != null) {
+                return timetable;
+            }
+        }
+        return timetableRepository.findFirstByStartStationAndEndStationAndStartTimeOrderByIdAsc(startStation, endStation, startTime);
     }
 
     /**
@@ -91,4 +204,22 @@ public class TimetableService {
      */
     public boolean existTimetable(long id) { return timetableRepository.existsById(id); }
 
+    /**
+     * Retrieves counters of the timetable search cache.
+     * @return Hit, miss and eviction counters by name.
+     */
+    public Map<String, Long> getSearchCacheStatistics() { return timetableSearchCache.getStatistics(); }
+
+    private List<Timetable> loadTimetablesByStartStation(Station startStation) {
+        return timetableIndex.isLoaded()
+                ? timetableIndex.getByStartStation(startStation)
+                : timetableRepository.findAllByStartStation(startStation);
+    }
+
+    private List<Timetable> loadTimetablesByStartStationAndEndStation(Station startStation, Station endStation) {
+        return timetableIndex.isLoaded()
+                ? timetableIndex.getByStartAndEndStation(startStation, endStation)
+                : timetableRepository.findAllByStartStationAndEndStation(startStation, endStation);
+    }
+
 }
\ No newline at end of file
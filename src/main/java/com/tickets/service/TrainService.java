@@ -1,10 +1,21 @@
 package com.tickets.service;
 
-import com.tickets.model.Train;
+import com.tickets.model.*;
+import com.tickets.model.enums.SeatType;
+import com.tickets.model.enums.WagonType;
 import com.tickets.repository.TrainRepository;
+import com.tickets.repository.WagonRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 /**
  * Service class for managing trains and related operations.
@@ -12,9 +23,16 @@ import java.util.List;
 @Service
 public class TrainService {
     private final TrainRepository trainRepository;
+    private final WagonRepository wagonRepository;
+    private final SeatAvailabilityService seatAvailabilityService;
+    private final RollingStockCache rollingStockCache;
     @Autowired
-    public TrainService(TrainRepository trainRepository) {
+    public TrainService(TrainRepository trainRepository, WagonRepository wagonRepository,
+                        SeatAvailabilityService seatAvailabilityService, RollingStockCache rollingStockCache) {
         this.trainRepository = trainRepository;
+        this.wagonRepository = wagonRepository;
+        this.seatAvailabilityService = seatAvailabilityService;
+        this.rollingStockCache = rollingStockCache;
     }
 
     /**
@@ -22,13 +40,22 @@ public class TrainService {
      * @param train Create a new train based on the provided train model.
      * @return The created train.
      */
-    public Train addTrain(Train train){return trainRepository.save(train);}
+    public Train addTrain(Train train){
+        Train addedTrain = trainRepository.save(train);
+        seatAvailabilityService.evictAll();
+        rollingStockCache.evictAll();
+        return addedTrain;
+    }
 
     /**
      * Deletes train by ID.
      * @param id The train ID to be canceled.
      */
-    public void deleteTrainById(long id) {trainRepository.deleteById(id);}
+    public void deleteTrainById(long id) {
+        trainRepository.deleteById(id);
+        seatAvailabilityService.evictAll();
+        rollingStockCache.evictAll();
+    }
 
     /**
      * Retrieves train by ID.
@@ -45,6 +72,24 @@ public class TrainService {
     public List<Train> getAllTrains(){
         return trainRepository.findAll();
     }
+
+    /**
+     * Retrieves one page of trains ordered by ID.
+     * @param afterId The ID after which the page starts, 0 for the first page.
+     * @param size The number of trains of the page.
+     * @return The page with the ID the next page starts after.
+     */
+    public CursorPage<Train> getTrainsPage(long afterId, int size) {
+        return CursorPage.of(trainRepository.findByIdGreaterThanOrderByIdAsc(afterId, PageRequest.of(0, size)), size, Train::getId);
+    }
+
+    /**
+     * Streams all trains ordered by ID. The stream must be read and closed inside a transaction.
+     * @return Stream of all trains.
+     */
+    public Stream<Train> streamAllTrains() {
+        return trainRepository.streamAllByOrderByIdAsc();
+    }
     /**
      * Checks that train exists by ID.
      * @param id The train ID to check.
@@ -58,4 +103,142 @@ public class TrainService {
      */
     public boolean existTrainByTimetableID(long timetable) { return (trainRepository.findByTimetableId(timetable)!=null); }
 
+    /**
+     * Checks that train layout can be provisioned.
+     * @param layout The train layout to check.
+     * @return True if every wagon has a type, no seat count is negative and the wagons and seats
+     * are within {@link TrainLayout#MAX_WAGONS}, {@link WagonLayout#MAX_SEATS} and {@link TrainLayout#MAX_SEATS}, False if not.
+     */
+    public boolean isValidLayout(TrainLayout layout) {
+        if (layout.getWagons() == null || layout.getWagons().isEmpty() || layout.getWagons().size() > TrainLayout.MAX_WAGONS) {
+            return false;
+        }
+        long trainSeats = 0;
+        for (WagonLayout wagonLayout : layout.getWagons()) {
+            if (wagonLayout == null || wagonLayout.getWagonType() == null) {
+                return false;
+            }
+            long wagonSeats = 0;
+            if (wagonLayout.getSeats() != null) {
+                for (Integer count : wagonLayout.getSeats().values()) {
+                    if (count == null || count < 0) {
+                        return false;
+                    }
+                    wagonSeats += count;
+                }
+            }
+            if (wagonSeats > WagonLayout.MAX_SEATS) {
+                return false;
+            }
+            trainSeats += wagonSeats;
+        }
+        return trainSeats <= TrainLayout.MAX_SEATS;
+    }
+
+    /**
+     * Retrieves hit, miss and put counters of the train and wagon cache regions.
+     * @return Counters by name, empty if cache statistics are disabled.
+     */
+    public Map<String, Long> getCacheStatistics() {
+        return rollingStockCache.getStatistics();
+    }
+
+    /**
+     * Creates new train with all its wagons and seats in one transaction.
+     * Wagons are numbered from 1 in the order of the layout.
+     * @param layout The layout of the train to create.
+     * @param timetable The timetable to associate the train with.
+     * @return The created train.
+     */
+    @Transactional
+    public Train provisionTrain(TrainLayout layout, Timetable timetable) {
+        Train train = newTrain(layout.getTrainName(), layout.getTrainNumber(), timetable);
+        int wagonNumber = 1;
+        for (WagonLayout wagonLayout : layout.getWagons()) {
+            Wagon wagon = newWagon(train, wagonNumber++, wagonLayout.getWagonType());
+            Map<SeatType, Integer> seatCounts = wagonLayout.getSeats() == null ? Map.of() : wagonLayout.getSeats();
+            long seatNumber = 1;
+            for (SeatType seatType : SeatType.values()) {
+                int count = seatCounts.getOrDefault(seatType, 0);
+                for (int i = 0; i < count; i++) {
+                    newSeat(wagon, seatNumber++, seatType);
+                }
+            }
+        }
+        return saveProvisionedTrain(train);
+    }
+
+    /**
+     * Creates a copy of train with the same wagons and seats for another timetable.
+     * @param trainId The ID of the train whose layout is copied.
+     * @param timetable The timetable to associate the copy with.
+     * @return The created train.
+     */
+    @Transactional
+    public Train cloneTrain(long trainId, Timetable timetable) {
+        Train source = trainRepository.findById(trainId).orElseThrow();
+        Train train = newTrain(source.getTrainName(), source.getTrainNumber(), timetable);
+        for (Wagon sourceWagon : wagonRepository.findWagonsWithSeatsByTrainId(trainId)) {
+            Wagon wagon = newWagon(train, sourceWagon.getWagonNumber(), sourceWagon.getWagonType());
+            for (Seat sourceSeat : sourceWagon.getSeats()) {
+                newSeat(wagon, sourceSeat.getSeatNumber(), sourceSeat.getSeatType());
+            }
+        }
+        return saveProvisionedTrain(train);
+    }
+
+    private Train saveProvisionedTrain(Train train) {
+        Train addedTrain = trainRepository.save(train);
+        long timetableId = train.getTimetable().getId();
+        // Evicted after commit, an index warmed before would keep the layout without the new seats.
+        afterCommit(() -> {
+            seatAvailabilityService.evict(timetableId);
+            rollingStockCache.evictAll();
+        });
+        return addedTrain;
+    }
+
+    /**
+     * Runs an eviction after the current transaction commits, or at once without a transaction.
+     */
+    private static void afterCommit(Runnable eviction) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            eviction.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                eviction.run();
+            }
+        });
+    }
+
+    private static Train newTrain(String trainName, long trainNumber, Timetable timetable) {
+        Train train = new Train();
+        train.setTrainName(trainName);
+        train.setTrainNumber(trainNumber);
+        train.setTimetable(timetable);
+        train.setWagons(new ArrayList<>());
+        return train;
+    }
+
+    private static Wagon newWagon(Train train, int wagonNumber, WagonType wagonType) {
+        Wagon wagon = new Wagon();
+        wagon.setWagonNumber(wagonNumber);
+        wagon.setWagonType(wagonType);
+        wagon.setTrain(train);
+        wagon.setSeats(new ArrayList<>());
+        train.getWagons().add(wagon);
+        return wagon;
+    }
+
+    private static Seat newSeat(Wagon wagon, long seatNumber, SeatType seatType) {
+        Seat seat = new Seat();
+        seat.setSeatNumber(seatNumber);
+        seat.setSeatType(seatType);
+        seat.setWagon(wagon);
+        wagon.getSeats().add(seat);
+        return seat;
+    }
 }
@@ -1,20 +1,28 @@
 package com.tickets.service;
 
+import com.tickets.model.CursorPage;
 import com.tickets.model.Wagon;
 import com.tickets.repository.WagonRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.stream.Stream;
 /**
  * Service class for managing wagons and related operations.
  */
 @Service
 public class WagonService {
     private final WagonRepository wagonRepository;
+    private final SeatAvailabilityService seatAvailabilityService;
+    private final RollingStockCache rollingStockCache;
     @Autowired
-    public WagonService(WagonRepository wagonRepository){
+    public WagonService(WagonRepository wagonRepository, SeatAvailabilityService seatAvailabilityService,
+                        RollingStockCache rollingStockCache){
         this.wagonRepository = wagonRepository;
+        this.seatAvailabilityService = seatAvailabilityService;
+        this.rollingStockCache = rollingStockCache;
     }
 
     /**
@@ -23,7 +31,9 @@ public class WagonService {
      * @return The created wagon.
      */
     public Wagon addWagon(Wagon wagon){
-        return wagonRepository.save(wagon);
+        Wagon addedWagon = wagonRepository.save(wagon);
+        rollingStockCache.evictAll();
+        return addedWagon;
     }
 
     /**
@@ -32,6 +42,8 @@ public class WagonService {
      */
     public void deleteWagonById(long id){
         wagonRepository.deleteById(id);
+        seatAvailabilityService.evictAll();
+        rollingStockCache.evictAll();
     }
 
     /**
@@ -49,6 +61,24 @@ public class WagonService {
         return wagonRepository.findAll();
     }
 
+    /**
+     * Retrieves one page of wagons ordered by ID.
+     * @param afterId The ID after which the page starts, 0 for the first page.
+     * @param size The number of wagons of the page.
+     * @return The page with the ID the next page starts after.
+     */
+    public CursorPage<Wagon> getWagonsPage(long afterId, int size) {
+        return CursorPage.of(wagonRepository.findByIdGreaterThanOrderByIdAsc(afterId, PageRequest.of(0, size)), size, Wagon::getId);
+    }
+
+    /**
+     * Streams all wagons ordered by ID. The stream must be read and closed inside a transaction.
+     * @return Stream of all wagons.
+     */
+    public Stream<Wagon> streamAllWagons() {
+        return wagonRepository.streamAllByOrderByIdAsc();
+    }
+
     /**
      * Checks that wagon exists by ID.
      * @param id The wagon ID to check.
@@ -0,0 +1,32 @@
+-- Migrates existing PostgreSQL tables from IDENTITY columns to the pooled sequences
+-- used by PooledSequenceGenerator. Run once, before the application is started
+-- with sequence based IDs, otherwise Hibernate creates the sequences starting at 1.
+--
+-- The increment has to be equal to tickets.id.allocation_size (50 by default), pass it
+-- when running the script, the application refuses to start on a sequence with another one:
+--
+--     psql -v allocation_size=50 -f identity-to-sequences.sql
+--
+-- The pooled-lo optimizer uses the value returned by the sequence as the first ID
+-- of a block, so every sequence starts right after the highest existing ID.
+
+\set ON_ERROR_STOP on
+SELECT set_config('tickets.allocation_size', :'allocation_size', false);
+
+DO $$
+DECLARE
+    table_name text;
+    allocation_size integer := current_setting('tickets.allocation_size')::integer;
+BEGIN
+    IF allocation_size < 1 THEN
+        RAISE EXCEPTION 'allocation_size must be positive, got %', allocation_size;
+    END IF;
+    FOREACH table_name IN ARRAY ARRAY['timetables', 'trains', 'wagons', 'seats', 'reservations']
+    LOOP
+        EXECUTE format('CREATE SEQUENCE IF NOT EXISTS %I INCREMENT BY %s', table_name || '_seq', allocation_size);
+        EXECUTE format('ALTER SEQUENCE %I INCREMENT BY %s', table_name || '_seq', allocation_size);
+        EXECUTE format('SELECT setval(%L, (SELECT coalesce(max(id), 0) + 1 FROM %I), false)',
+                       table_name || '_seq', table_name);
+        EXECUTE format('ALTER TABLE %I ALTER COLUMN id DROP IDENTITY IF EXISTS', table_name);
+    END LOOP;
+END $$;
@@ -0,0 +1,9 @@
+-- Runs after Hibernate has updated the schema (spring.jpa.defer-datasource-initialization).
+-- Partial indexes of free seats in the order the first free seats of a train are selected,
+-- so the selection reads only as many seats as it returns and never visits the reserved ones.
+-- JPA cannot declare partial indexes.
+DROP INDEX IF EXISTS seats_free_wagon_id_idx;
+CREATE INDEX IF NOT EXISTS seats_free_wagon_id_id_idx ON seats (wagon_id, id)
+    WHERE reservation_id IS NULL AND sold_segments = 0;
+CREATE INDEX IF NOT EXISTS seats_free_wagon_id_seat_type_idx ON seats (wagon_id, seat_type, id)
+    WHERE reservation_id IS NULL AND sold_segments = 0;
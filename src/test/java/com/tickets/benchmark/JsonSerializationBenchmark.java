@@ -0,0 +1,106 @@
+package com.tickets.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tickets.model.Seat;
+import com.tickets.model.Timetable;
+import com.tickets.model.TimetableSearchResult;
+import com.tickets.model.enums.SeatType;
+import com.tickets.model.enums.Station;
+import com.tickets.service.TimetableSearchEncoder;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures JSON serialization of the seat and timetable lists returned by the controllers,
+ * using an object mapper configured the same way Spring MVC configures its own, and of the
+ * timetable search results formatted per request or written from pre-encoded fragments.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonSerializationBenchmark {
+    private static final int SEATS = 80;
+    private static final int TIMETABLES = 200;
+
+    private ObjectMapper objectMapper;
+    private List<Seat> seats;
+    private List<Timetable> timetables;
+    private TimetableSearchEncoder timetableSearchEncoder;
+    private ByteArrayOutputStream responseBody;
+    private final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm");
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        seats = new ArrayList<>(SEATS);
+        for (int i = 1; i <= SEATS; i++) {
+            Seat seat = new Seat();
+            seat.setId(i);
+            seat.setSeatNumber(i);
+            seat.setSeatType(SeatType.values()[i % SeatType.values().length]);
+            seats.add(seat);
+        }
+        timetables = new ArrayList<>(TIMETABLES);
+        LocalDateTime firstDeparture = LocalDateTime.of(2023, 8, 20, 0, 0);
+        for (int i = 0; i < TIMETABLES; i++) {
+            Timetable timetable = new Timetable();
+            timetable.setId(i + 1);
+            timetable.setStartStation(Station.values()[i % Station.values().length]);
+            timetable.setEndStation(Station.values()[(i + 1) % Station.values().length]);
+            timetable.setStartTime(firstDeparture.plusMinutes(30L * i));
+            timetable.setEndTime(firstDeparture.plusMinutes(30L * i + 180));
+            timetables.add(timetable);
+        }
+        timetableSearchEncoder = new TimetableSearchEncoder();
+        responseBody = new ByteArrayOutputStream(1 << 16);
+    }
+
+    @Benchmark
+    public byte[] seats() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(seats);
+    }
+
+    @Benchmark
+    public byte[] timetables() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(timetables);
+    }
+
+    @Benchmark
+    public byte[] timetableSearchFormattedPerRequest() throws JsonProcessingException {
+        List<String> connections = new ArrayList<>();
+        for (Timetable timetable : timetables) {
+            connections.add(timetable.getStartStation() + ": " + timetable.getStartTime().format(formatter) + ", "
+                    + timetable.getEndStation() + " " + timetable.getEndTime().format(formatter));
+        }
+        return objectMapper.writeValueAsBytes(connections);
+    }
+
+    @Benchmark
+    public int timetableSearchPreEncoded() throws IOException {
+        TimetableSearchResult result = timetableSearchEncoder.encodeConnections(timetables);
+        responseBody.reset();
+        result.writeTo(responseBody);
+        return responseBody.size();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JsonSerializationBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
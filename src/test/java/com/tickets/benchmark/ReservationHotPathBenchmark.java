@@ -0,0 +1,175 @@
+package com.tickets.benchmark;
+
+import com.tickets.controller.ReservationController;
+import com.tickets.model.Seat;
+import com.tickets.model.Timetable;
+import com.tickets.model.TrainLayout;
+import com.tickets.model.WagonLayout;
+import com.tickets.model.enums.SeatType;
+import com.tickets.model.enums.Station;
+import com.tickets.model.enums.WagonType;
+import com.tickets.service.ReservationService;
+import com.tickets.service.SeatAvailabilityService;
+import com.tickets.service.TimetableService;
+import com.tickets.service.TrainService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.ResponseEntity;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the reservation hot path: seat selection in {@link SeatAvailabilityService}
+ * alone and the whole {@link ReservationController} call including the database claim.
+ * Every reservation is cancelled in the same invocation, so the train never sells out.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReservationHotPathBenchmark {
+    private static final int WAGONS = 8;
+    private static final int SEATS_PER_TYPE = 20;
+    /**
+     * Seats of the open coaches of the busy train, which is sold out apart from scattered seats.
+     */
+    private static final int OPEN_COACH_SEATS = 80;
+    private static final int GROUP_SIZE = 4;
+    private static final Station START_STATION = Station.Szczecin;
+    private static final Station END_STATION = Station.Krakow;
+    private static final LocalDateTime START_TIME = LocalDateTime.of(2023, 8, 20, 15, 0);
+
+    private ConfigurableApplicationContext context;
+    private ReservationController reservationController;
+    private ReservationService reservationService;
+    private SeatAvailabilityService seatAvailabilityService;
+    private long timetableId;
+    private long busyTimetableId;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkApplication.start();
+        reservationController = context.getBean(ReservationController.class);
+        reservationService = context.getBean(ReservationService.class);
+        seatAvailabilityService = context.getBean(SeatAvailabilityService.class);
+
+        Timetable timetable = new Timetable();
+        timetable.setStartStation(START_STATION);
+        timetable.setEndStation(END_STATION);
+        timetable.setStartTime(START_TIME);
+        timetable.setEndTime(START_TIME.plusHours(7));
+        timetable = context.getBean(TimetableService.class).addTimetable(timetable);
+        timetableId = timetable.getId();
+
+        Map<SeatType, Integer> seats = new EnumMap<>(SeatType.class);
+        seats.put(SeatType.Window, SEATS_PER_TYPE);
+        seats.put(SeatType.Middle, SEATS_PER_TYPE);
+        seats.put(SeatType.Corridor, SEATS_PER_TYPE);
+        List<WagonLayout> wagons = new ArrayList<>();
+        for (int wagon = 0; wagon < WAGONS; wagon++) {
+            WagonLayout wagonLayout = new WagonLayout();
+            wagonLayout.setWagonType(WagonType.Open_Coach);
+            wagonLayout.setSeats(seats);
+            wagons.add(wagonLayout);
+        }
+        TrainLayout layout = new TrainLayout();
+        layout.setTrainName("Benchmark");
+        layout.setTrainNumber(1);
+        layout.setWagons(wagons);
+        context.getBean(TrainService.class).provisionTrain(layout, timetable);
+
+        busyTimetableId = provisionBusyTrain();
+    }
+
+    /**
+     * Provisions a train of 80-seat open coaches and sells 85% of its seats, leaving
+     * free runs of at most 3 seats, so a group does not fit in any run.
+     */
+    private long provisionBusyTrain() {
+        Timetable timetable = new Timetable();
+        timetable.setStartStation(START_STATION);
+        timetable.setEndStation(END_STATION);
+        timetable.setStartTime(START_TIME.plusHours(1));
+        timetable.setEndTime(START_TIME.plusHours(8));
+        timetable = context.getBean(TimetableService.class).addTimetable(timetable);
+
+        List<WagonLayout> wagons = new ArrayList<>();
+        for (int wagon = 0; wagon < WAGONS; wagon++) {
+            WagonLayout wagonLayout = new WagonLayout();
+            wagonLayout.setWagonType(WagonType.Open_Coach);
+            wagonLayout.setSeats(Map.of(SeatType.Window, OPEN_COACH_SEATS));
+            wagons.add(wagonLayout);
+        }
+        TrainLayout layout = new TrainLayout();
+        layout.setTrainName("Busy");
+        layout.setTrainNumber(2);
+        layout.setWagons(wagons);
+        context.getBean(TrainService.class).provisionTrain(layout, timetable);
+
+        List<Long> freeSeatIds = new ArrayList<>();
+        int seats = WAGONS * OPEN_COACH_SEATS;
+        for (Seat seat : seatAvailabilityService.takeSeats(timetable.getId(), seats)) {
+            if (seat.getSeatNumber() % 20 < 3) {
+                freeSeatIds.add(seat.getId());
+            }
+        }
+        seatAvailabilityService.returnSeats(timetable.getId(), freeSeatIds);
+        return timetable.getId();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Seat> selectSeats() {
+        List<Seat> seats = seatAvailabilityService.takeSeats(timetableId, 2);
+        seatAvailabilityService.returnSeats(timetableId, seats.stream().map(Seat::getId).toList());
+        return seats;
+    }
+
+    @Benchmark
+    public Seat selectSeatOfType() {
+        Seat seat = seatAvailabilityService.takeSeat(timetableId, SeatType.Corridor);
+        seatAvailabilityService.returnSeats(timetableId, List.of(seat.getId()));
+        return seat;
+    }
+
+    @Benchmark
+    public List<Seat> selectGroupOnBusyTrain() {
+        List<Seat> seats = seatAvailabilityService.takeSeats(busyTimetableId, GROUP_SIZE);
+        seatAvailabilityService.returnSeats(busyTimetableId, seats.stream().map(Seat::getId).toList());
+        return seats;
+    }
+
+    @Benchmark
+    public ResponseEntity<List<Seat>> reserveSeats() {
+        ResponseEntity<List<Seat>> response = reservationController.reserveSeats(START_STATION, END_STATION, START_TIME, 2);
+        reservationService.deleteReservationById(response.getBody().get(0).getReservation().getId());
+        return response;
+    }
+
+    @Benchmark
+    public ResponseEntity<Seat> reserveSeat() {
+        ResponseEntity<Seat> response = reservationController.reserveSeat(START_STATION, END_STATION, START_TIME, SeatType.Corridor);
+        reservationService.deleteReservationById(response.getBody().getReservation().getId());
+        return response;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ReservationHotPathBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
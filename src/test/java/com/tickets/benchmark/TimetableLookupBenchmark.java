@@ -0,0 +1,94 @@
+package com.tickets.benchmark;
+
+import com.tickets.model.Timetable;
+import com.tickets.model.enums.Station;
+import com.tickets.repository.TimetableRepository;
+import com.tickets.service.TimetableIndex;
+import com.tickets.service.TimetableService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares timetable lookups served by {@link TimetableIndex} with the same lookups
+ * going through {@link TimetableRepository}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TimetableLookupBenchmark {
+    private static final int DEPARTURES_PER_CONNECTION = 24;
+    private static final LocalDateTime FIRST_DEPARTURE = LocalDateTime.of(2023, 8, 20, 0, 0);
+
+    private ConfigurableApplicationContext context;
+    private TimetableRepository timetableRepository;
+    private TimetableIndex timetableIndex;
+    private int lookup;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkApplication.start();
+        timetableRepository = context.getBean(TimetableRepository.class);
+        timetableIndex = context.getBean(TimetableIndex.class);
+        TimetableService timetableService = context.getBean(TimetableService.class);
+        for (Station startStation : Station.values()) {
+            for (Station endStation : Station.values()) {
+                if (startStation == endStation) {
+                    continue;
+                }
+                for (int departure = 0; departure < DEPARTURES_PER_CONNECTION; departure++) {
+                    Timetable timetable = new Timetable();
+                    timetable.setStartStation(startStation);
+                    timetable.setEndStation(endStation);
+                    timetable.setStartTime(FIRST_DEPARTURE.plusHours(departure));
+                    timetable.setEndTime(FIRST_DEPARTURE.plusHours(departure + 3));
+                    timetableService.addTimetable(timetable);
+                }
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Timetable repositoryByStartStationAndEndStationAndStartTime() {
+        int next = lookup++;
+        return timetableRepository.findFirstByStartStationAndEndStationAndStartTimeOrderByIdAsc(
+                Station.Szczecin, Station.Krakow, FIRST_DEPARTURE.plusHours(next % DEPARTURES_PER_CONNECTION));
+    }
+
+    @Benchmark
+    public Timetable indexByStartStationAndEndStationAndStartTime() {
+        int next = lookup++;
+        return timetableIndex.get(
+                Station.Szczecin, Station.Krakow, FIRST_DEPARTURE.plusHours(next % DEPARTURES_PER_CONNECTION));
+    }
+
+    @Benchmark
+    public List<Timetable> repositoryByStartStation() {
+        return timetableRepository.findAllByStartStation(Station.Szczecin);
+    }
+
+    @Benchmark
+    public List<Timetable> indexByStartStation() {
+        return timetableIndex.getByStartStation(Station.Szczecin);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(TimetableLookupBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
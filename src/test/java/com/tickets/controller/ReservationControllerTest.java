@@ -1,22 +1,41 @@
     package com.tickets.controller;
 
+    import com.fasterxml.jackson.core.type.TypeReference;
+    import com.fasterxml.jackson.databind.ObjectMapper;
     import com.tickets.model.*;
+    import com.tickets.model.enums.ReservationStatus;
+    import com.tickets.model.enums.SeatAllocationPolicy;
     import com.tickets.model.enums.SeatType;
     import com.tickets.model.enums.Station;
+    import com.tickets.service.JourneyPlannerService;
+    import com.tickets.service.NdjsonExportService;
+    import com.tickets.service.ReservationQueueService;
+    import com.tickets.service.ReservationTicketService;
     import com.tickets.service.ReservationService;
-    import com.tickets.service.SeatService;
+    import com.tickets.service.SeatDeltaFeed;
+    import com.tickets.service.SeatHoldService;
+    import com.tickets.service.TimetableSearchEncoder;
     import com.tickets.service.TimetableService;
     import org.junit.jupiter.api.BeforeEach;
     import org.junit.jupiter.api.Test;
+    import org.springframework.http.HttpHeaders;
     import org.springframework.http.HttpStatus;
     import org.springframework.http.ResponseEntity;
+    import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+    import java.io.ByteArrayOutputStream;
+    import java.io.IOException;
+    import java.io.UncheckedIOException;
+    import java.time.Duration;
     import java.time.LocalDateTime;
     import java.time.LocalTime;
     import java.time.format.DateTimeFormatter;
     import java.util.Arrays;
     import java.util.Collections;
     import java.util.List;
+    import java.util.Map;
+    import java.util.concurrent.CompletableFuture;
+    import java.util.concurrent.TimeoutException;
 
     import static org.junit.jupiter.api.Assertions.*;
     import static org.mockito.Mockito.*;
@@ -26,17 +45,29 @@
         private ReservationService reservationServiceMock;
         private ReservationController reservationController;
         private TimetableService timetableServiceMock;
-        private SeatService seatServiceMock;
+        private JourneyPlannerService journeyPlannerServiceMock;
+        private ReservationQueueService reservationQueueServiceMock;
+        private ReservationTicketService reservationTicketServiceMock;
+        private SeatHoldService seatHoldServiceMock;
+        private SeatDeltaFeed seatDeltaFeedMock;
         private TimetableController timetableController;
 
         @BeforeEach
         void setUp() {
             timetableServiceMock = mock(TimetableService.class);
-            seatServiceMock = mock(SeatService.class);
+            when(timetableServiceMock.getSearchMaxAge()).thenReturn(Duration.ofSeconds(5));
+            journeyPlannerServiceMock = mock(JourneyPlannerService.class);
+
+            reservationQueueServiceMock = mock(ReservationQueueService.class);
+            reservationTicketServiceMock = mock(ReservationTicketService.class);
+            seatHoldServiceMock = mock(SeatHoldService.class);
+            seatDeltaFeedMock = mock(SeatDeltaFeed.class);
 
             reservationServiceMock = mock(ReservationService.class);
-            reservationController = new ReservationController(reservationServiceMock, timetableServiceMock, seatServiceMock);
-            timetableController = new TimetableController(timetableServiceMock);
+            reservationController = new ReservationController(reservationServiceMock, timetableServiceMock, journeyPlannerServiceMock,
+                    reservationQueueServiceMock, reservationTicketServiceMock, seatHoldServiceMock, mock(NdjsonExportService.class),
+                    new TimetableSearchEncoder(), seatDeltaFeedMock, Duration.ofSeconds(30));
+            timetableController = new TimetableController(timetableServiceMock, mock(NdjsonExportService.class));
         }
 
         @Test
@@ -90,30 +121,170 @@
             Seat seat2 = new Seat();
             List<Seat> seats = Arrays.asList(seat1, seat2);
 
-            Train train = new Train();
-            Wagon wagon = new Wagon();
-            wagon.setSeats(seats);
-            train.setWagons(Arrays.asList(wagon));
+            when(timetableServiceMock.getTimetableByStartStationAndEndStationAndStartTime(startStation, endStation, startTime)).thenReturn(timetable);
+            when(reservationQueueServiceMock.submit(timetable, numberOfSeats)).thenReturn(CompletableFuture.completedFuture(seats));
+
+            ResponseEntity<List<Seat>> response = reservationController.reserveSeats(startStation, endStation, startTime, numberOfSeats);
 
-            timetable.setTrain(train);
+            assertEquals(HttpStatus.OK, response.getStatusCode());
+            assertEquals(2, response.getBody().size());
+            verify(reservationQueueServiceMock, times(1)).submit(timetable, numberOfSeats);
+        }
 
-            TimetableService timetableServiceMock = mock(TimetableService.class);
-            SeatService seatServiceMock = mock(SeatService.class);
-            ReservationService reservationServiceMock = mock(ReservationService.class);
+        @Test
+        void testReserveSeatsWithNotEnoughSeats() {
+            Station startStation = Station.Bydgoszcz;
+            Station endStation = Station.Gdansk;
+            LocalDateTime startTime = LocalDateTime.now();
+            Timetable timetable = new Timetable();
 
             when(timetableServiceMock.getTimetableByStartStationAndEndStationAndStartTime(startStation, endStation, startTime)).thenReturn(timetable);
-            when(seatServiceMock.updateSeat(any(Seat.class))).thenAnswer(invocation -> invocation.getArgument(0));
+            when(reservationQueueServiceMock.submit(timetable, 3)).thenReturn(CompletableFuture.completedFuture(Collections.emptyList()));
 
+            ResponseEntity<List<Seat>> response = reservationController.reserveSeats(startStation, endStation, startTime, 3);
 
+            assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        }
 
-            ReservationController reservationController = new ReservationController(reservationServiceMock, timetableServiceMock, seatServiceMock);
+        @Test
+        void testReserveSeatsWithFullQueue() {
+            Station startStation = Station.Bydgoszcz;
+            Station endStation = Station.Gdansk;
+            LocalDateTime startTime = LocalDateTime.now();
+            Timetable timetable = new Timetable();
 
-            ResponseEntity<List<Seat>> response = reservationController.reserveSeats(startStation, endStation, startTime, numberOfSeats);
+            when(timetableServiceMock.getTimetableByStartStationAndEndStationAndStartTime(startStation, endStation, startTime)).thenReturn(timetable);
+            when(reservationQueueServiceMock.submit(timetable, 2)).thenReturn(null);
+            when(reservationQueueServiceMock.getRetryAfter()).thenReturn(Duration.ofSeconds(1));
+
+            ResponseEntity<List<Seat>> response = reservationController.reserveSeats(startStation, endStation, startTime, 2);
+
+            assertEquals(HttpStatus.TOO_MANY_REQUESTS, response.getStatusCode());
+            assertEquals("1", response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        }
+
+        @Test
+        void testReserveSeatsWithTimedOutQueue() {
+            Station startStation = Station.Bydgoszcz;
+            Station endStation = Station.Gdansk;
+            LocalDateTime startTime = LocalDateTime.now();
+            Timetable timetable = new Timetable();
+
+            when(timetableServiceMock.getTimetableByStartStationAndEndStationAndStartTime(startStation, endStation, startTime)).thenReturn(timetable);
+            when(reservationQueueServiceMock.submit(timetable, 2)).thenReturn(CompletableFuture.failedFuture(new TimeoutException()));
+            when(reservationQueueServiceMock.getRetryAfter()).thenReturn(Duration.ofSeconds(1));
+
+            ResponseEntity<List<Seat>> response = reservationController.reserveSeats(startStation, endStation, startTime, 2);
+
+            assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+            assertEquals("1", response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        }
+
+        @Test
+        void testReserveSeatsAsync() {
+            Station startStation = Station.Bydgoszcz;
+            Station endStation = Station.Gdansk;
+            LocalDateTime startTime = LocalDateTime.now();
+            Timetable timetable = new Timetable();
+            ReservationTicket ticket = new ReservationTicket();
+            ticket.setId("ticket-1");
+
+            when(timetableServiceMock.getTimetableByStartStationAndEndStationAndStartTime(startStation, endStation, startTime)).thenReturn(timetable);
+            when(reservationTicketServiceMock.submit(timetable, 2)).thenReturn(ticket);
+
+            ResponseEntity<ReservationTicket> response = reservationController.reserveSeatsAsync(startStation, endStation, startTime, 2);
+
+            assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+            assertEquals(ticket, response.getBody());
+            assertEquals("/reservations/tickets/ticket-1", response.getHeaders().getLocation().toString());
+        }
+
+        @Test
+        void testReserveSeatsAsyncWithFullQueue() {
+            Station startStation = Station.Bydgoszcz;
+            Station endStation = Station.Gdansk;
+            LocalDateTime startTime = LocalDateTime.now();
+            Timetable timetable = new Timetable();
+
+            when(timetableServiceMock.getTimetableByStartStationAndEndStationAndStartTime(startStation, endStation, startTime)).thenReturn(timetable);
+            when(reservationTicketServiceMock.submit(timetable, 2)).thenReturn(null);
+            when(reservationQueueServiceMock.getRetryAfter()).thenReturn(Duration.ofSeconds(1));
+
+            ResponseEntity<ReservationTicket> response = reservationController.reserveSeatsAsync(startStation, endStation, startTime, 2);
+
+            assertEquals(HttpStatus.TOO_MANY_REQUESTS, response.getStatusCode());
+            assertEquals("1", response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        }
+
+        @Test
+        void testGetReservationTicket() {
+            ReservationTicket ticket = new ReservationTicket();
+            ticket.setId("ticket-1");
+            ticket.setStatus(ReservationStatus.Reserved);
+            when(reservationTicketServiceMock.getTicket("ticket-1")).thenReturn(ticket);
+
+            ResponseEntity<ReservationTicket> response = reservationController.getReservationTicket("ticket-1");
 
             assertEquals(HttpStatus.OK, response.getStatusCode());
-            assertEquals(2, response.getBody().size());
-            verify(reservationServiceMock, times(1)).addReservation(any(Reservation.class));
+            assertEquals(ReservationStatus.Reserved, response.getBody().getStatus());
+            assertEquals(HttpStatus.NOT_FOUND, reservationController.getReservationTicket("unknown").getStatusCode());
         }
+
+        @Test
+        void testGetReservationTicketEvents() {
+            when(reservationTicketServiceMock.getOutcome("ticket-1")).thenReturn(new CompletableFuture<>());
+
+            ResponseEntity<SseEmitter> response = reservationController.getReservationTicketEvents("ticket-1");
+
+            assertEquals(HttpStatus.OK, response.getStatusCode());
+            assertNotNull(response.getBody());
+            assertEquals(HttpStatus.NOT_FOUND, reservationController.getReservationTicketEvents("unknown").getStatusCode());
+        }
+
+        @Test
+        void testReserveSegmentSeats() {
+            Station startStation = Station.Szczecin;
+            Station endStation = Station.Krakow;
+            LocalDateTime startTime = LocalDateTime.now();
+            Timetable timetable = new Timetable();
+            List<Seat> seats = Arrays.asList(new Seat());
+
+            when(timetableServiceMock.getTimetableByStartStationAndEndStationAndStartTime(startStation, endStation, startTime)).thenReturn(timetable);
+            when(reservationServiceMock.reserveSegmentSeats(timetable, Station.Wroclaw, Station.Katowice, 1)).thenReturn(seats);
+
+            ResponseEntity<List<Seat>> response = reservationController.reserveSegmentSeats(
+                    startStation, endStation, startTime, Station.Wroclaw, Station.Katowice, 1);
+
+            assertEquals(HttpStatus.OK, response.getStatusCode());
+            assertEquals(1, response.getBody().size());
+            verify(reservationServiceMock, times(1)).reserveSegmentSeats(timetable, Station.Wroclaw, Station.Katowice, 1);
+        }
+
+        @Test
+        void testReserveSegmentSeatsWithStationsNotOnRoute() {
+            Station startStation = Station.Szczecin;
+            Station endStation = Station.Krakow;
+            LocalDateTime startTime = LocalDateTime.now();
+            Timetable timetable = new Timetable();
+
+            when(timetableServiceMock.getTimetableByStartStationAndEndStationAndStartTime(startStation, endStation, startTime)).thenReturn(timetable);
+            when(reservationServiceMock.reserveSegmentSeats(timetable, Station.Gdansk, Station.Lodz, 1)).thenReturn(Collections.emptyList());
+
+            ResponseEntity<List<Seat>> response = reservationController.reserveSegmentSeats(
+                    startStation, endStation, startTime, Station.Gdansk, Station.Lodz, 1);
+
+            assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        }
+
+        @Test
+        void testReserveSegmentSeatsWithTooManySeats() {
+            ResponseEntity<List<Seat>> response = reservationController.reserveSegmentSeats(
+                    Station.Szczecin, Station.Krakow, LocalDateTime.now(), Station.Wroclaw, Station.Katowice, Integer.MAX_VALUE);
+
+            assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+            verifyNoInteractions(timetableServiceMock, reservationServiceMock);
+        }
+
         @Test
         void testGetEndStationsByStartStationWithValidData() {
             DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm");
@@ -126,15 +297,47 @@
             timetable2.setStartTime(LocalDateTime.now().plusHours(1));
             List<Timetable> timetables = Arrays.asList(timetable1, timetable2);
 
-            when(timetableServiceMock.getAllTimetablesByStartStation(any(Station.class))).thenReturn(timetables);
+            when(timetableServiceMock.searchTimetablesByStartStation(any(Station.class)))
+                    .thenReturn(new TimetableSearch(timetables, "\"1f-1\""));
 
-            ResponseEntity<List<String>> response = reservationController.getEndStationsByStartStation(startStation);
+            ResponseEntity<TimetableSearchResult> response = reservationController.getEndStationsByStartStation(startStation, null);
 
             assertEquals(HttpStatus.OK, response.getStatusCode());
             assertNotNull(response.getBody());
-            assertEquals(2, response.getBody().size());
-            assertTrue(response.getBody().contains(timetable1.getEndStation() + " " + timetable1.getStartTime().format(formatter)));
-            assertTrue(response.getBody().contains(timetable2.getEndStation() + " " + timetable2.getStartTime().format(formatter)));
+            List<String> body = decode(response.getBody());
+            assertEquals(2, body.size());
+            assertTrue(body.contains(timetable1.getEndStation() + " " + timetable1.getStartTime().format(formatter)));
+            assertTrue(body.contains(timetable2.getEndStation() + " " + timetable2.getStartTime().format(formatter)));
+        }
+
+        @Test
+        void testGetEndStationsByStartStationNotModified() {
+            String eTag = "\"1f-3\"";
+            when(timetableServiceMock.getUnmodifiedTimetablesByStartStationETag(Station.Bydgoszcz, eTag)).thenReturn(eTag);
+
+            ResponseEntity<TimetableSearchResult> response = reservationController.getEndStationsByStartStation(Station.Bydgoszcz, eTag);
+
+            assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+            assertEquals(eTag, response.getHeaders().getETag());
+            assertEquals("max-age=5, public", response.getHeaders().getCacheControl());
+            assertNull(response.getBody());
+            verify(timetableServiceMock, never()).searchTimetablesByStartStation(any(Station.class));
+        }
+
+        @Test
+        void testGetTimeTableByStartAndEndStationSendsVersionETag() {
+            Timetable timetable = new Timetable();
+            timetable.setStartStation(Station.Bydgoszcz);
+            timetable.setEndStation(Station.Gdansk);
+            when(timetableServiceMock.searchTimetablesByStartStationAndEndStation(Station.Bydgoszcz, Station.Gdansk))
+                    .thenReturn(new TimetableSearch(List.of(timetable), "\"1f-4\""));
+
+            ResponseEntity<TimetableSearchResult> response =
+                    reservationController.getTimeTableByStartAndEndStation(Station.Bydgoszcz, Station.Gdansk, "\"1f-3\"");
+
+            assertEquals(HttpStatus.OK, response.getStatusCode());
+            assertEquals("\"1f-4\"", response.getHeaders().getETag());
+            assertEquals("max-age=5, public", response.getHeaders().getCacheControl());
         }
 
         @Test
@@ -160,15 +363,16 @@
             timetable2.setEndTime(LocalDateTime.of(
                     2023, 8, 20, 22, 0));
 
-            when(timetableServiceMock.getAllTimetablesByStartStationAndEndStation(startStation, endStation))
-                    .thenReturn(Arrays.asList(timetable1, timetable2));
+            when(timetableServiceMock.searchTimetablesByStartStationAndEndStation(startStation, endStation))
+                    .thenReturn(new TimetableSearch(Arrays.asList(timetable1, timetable2), "\"1f-1\""));
 
 
-            ResponseEntity<List<String>> response = reservationController.getTimeTableByStartAndEndStation(startStation, endStation);
+            ResponseEntity<TimetableSearchResult> response = reservationController.getTimeTableByStartAndEndStation(startStation, endStation, null);
 
             assertEquals(200, response.getStatusCodeValue());
-            assertTrue(response.getBody().contains(startStation + ": " + timetable1.getStartTime().format(formatter) + ", " + endStation + " " + timetable1.getEndTime().format(formatter)));
-            assertTrue(response.getBody().contains(startStation + ": " + timetable2.getStartTime().format(formatter) + ", " + endStation + " " + timetable2.getEndTime().format(formatter)));
+            List<String> body = decode(response.getBody());
+            assertTrue(body.contains(startStation + ": " + timetable1.getStartTime().format(formatter) + ", " + endStation + " " + timetable1.getEndTime().format(formatter)));
+            assertTrue(body.contains(startStation + ": " + timetable2.getStartTime().format(formatter) + ", " + endStation + " " + timetable2.getEndTime().format(formatter)));
         }
 
         @Test
@@ -178,22 +382,13 @@
             LocalDateTime startTime = LocalDateTime.of(2023, 8, 20, 15, 0);
             SeatType seatType = SeatType.Corridor;
 
-            Timetable timetable = mock(Timetable.class);
-            Train train = mock(Train.class);
-            Wagon wagon = mock(Wagon.class);
-            Seat seat1 = new Seat();
-            Seat seat2 = new Seat();
-            seat1.setSeatType(seatType);
-            seat2.setSeatType(seatType);
-            Reservation reservation = new Reservation();
+            Timetable timetable = new Timetable();
+            Seat seat = new Seat();
+            seat.setSeatType(seatType);
+            seat.setReservation(new Reservation());
 
             when(timetableServiceMock.getTimetableByStartStationAndEndStationAndStartTime(startStation, endStation, startTime)).thenReturn(timetable);
-            when(timetable.getTrain()).thenReturn(train);
-            when(train.getWagons()).thenReturn(Collections.singletonList(wagon));
-            when(wagon.getSeats()).thenReturn(Arrays.asList(seat1, seat2));
-            when(seatServiceMock.existSeat(anyLong())).thenReturn(true);
-            when(reservationServiceMock.addReservation(any(Reservation.class))).thenReturn(reservation);
-            when(seatServiceMock.updateSeat(any(Seat.class))).thenReturn(seat2); // this can be adjusted based on the actual implementation
+            when(reservationServiceMock.reserveSeat(timetable, seatType)).thenReturn(seat);
 
             ResponseEntity<Seat> response = reservationController.reserveSeat(startStation, endStation, startTime, seatType);
 
@@ -201,5 +396,194 @@
             assertEquals(seatType, response.getBody().getSeatType());
             assertNotNull(response.getBody().getReservation());
         }
-    }
 
+        @Test
+        void testReserveSeatsByPreference() {
+            Station startStation = Station.Bydgoszcz;
+            Station endStation = Station.Gdansk;
+            LocalDateTime startTime = LocalDateTime.of(2023, 8, 20, 15, 0);
+            Timetable timetable = new Timetable();
+            SeatPreference preference = new SeatPreference();
+            preference.setNumberOfSeats(2);
+            preference.setSeatType(SeatType.Window);
+            preference.setPolicies(List.of(SeatAllocationPolicy.Nearest_Seat_Type, SeatAllocationPolicy.Adjacent_Seats));
+            List<Seat> seats = List.of(new Seat(), new Seat());
+
+            when(timetableServiceMock.getTimetableByStartStationAndEndStationAndStartTime(startStation, endStation, startTime)).thenReturn(timetable);
+            when(reservationServiceMock.reserveSeats(timetable, preference)).thenReturn(seats);
+
+            ResponseEntity<List<Seat>> response = reservationController.reserveSeatsByPreference(startStation, endStation, startTime, preference);
+
+            assertEquals(HttpStatus.OK, response.getStatusCode());
+            assertEquals(seats, response.getBody());
+        }
+
+        @Test
+        void testReserveSeatsByPreferenceWithoutMatchingSeats() {
+            Station startStation = Station.Bydgoszcz;
+            Station endStation = Station.Gdansk;
+            LocalDateTime startTime = LocalDateTime.of(2023, 8, 20, 15, 0);
+            Timetable timetable = new Timetable();
+            SeatPreference preference = new SeatPreference();
+            preference.setSeatType(SeatType.Couchette);
+            preference.setPolicies(List.of(SeatAllocationPolicy.Exact_Seat_Type));
+
+            when(timetableServiceMock.getTimetableByStartStationAndEndStationAndStartTime(startStation, endStation, startTime)).thenReturn(timetable);
+            when(reservationServiceMock.reserveSeats(timetable, preference)).thenReturn(Collections.emptyList());
+
+            ResponseEntity<List<Seat>> response = reservationController.reserveSeatsByPreference(startStation, endStation, startTime, preference);
+
+            assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        }
+
+        @Test
+        void testGetSeatAvailability() {
+            LocalDateTime startTime = LocalDateTime.of(2023, 8, 20, 15, 0);
+            Timetable timetable = new Timetable();
+            SeatAvailability availability = new SeatAvailability(12, Map.of(SeatType.Window, 12), Map.of());
+
+            when(timetableServiceMock.getTimetableByStartStationAndEndStationAndStartTime(Station.Bydgoszcz, Station.Gdansk, startTime)).thenReturn(timetable);
+            when(reservationServiceMock.getSeatAvailability(timetable)).thenReturn(availability);
+
+            ResponseEntity<SeatAvailability> response = reservationController.getSeatAvailability(Station.Bydgoszcz, Station.Gdansk, startTime);
+
+            assertEquals(HttpStatus.OK, response.getStatusCode());
+            assertEquals(availability, response.getBody());
+        }
+
+        @Test
+        void testGetSeatAvailabilityOfMissingConnection() {
+            LocalDateTime startTime = LocalDateTime.of(2023, 8, 20, 15, 0);
+
+            ResponseEntity<SeatAvailability> response = reservationController.getSeatAvailability(Station.Bydgoszcz, Station.Gdansk, startTime);
+
+            assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+            verify(reservationServiceMock, never()).getSeatAvailability(any(Timetable.class));
+        }
+
+        @Test
+        void testGetSeatEvents() {
+            LocalDateTime startTime = LocalDateTime.of(2023, 8, 20, 15, 0);
+            Timetable timetable = new Timetable();
+            timetable.setId(7);
+            SseEmitter emitter = new SseEmitter();
+
+            when(timetableServiceMock.getTimetableByStartStationAndEndStationAndStartTime(Station.Bydgoszcz, Station.Gdansk, startTime)).thenReturn(timetable);
+            when(seatDeltaFeedMock.watch(7, 41L)).thenReturn(emitter);
+
+            ResponseEntity<SseEmitter> response = reservationController.getSeatEvents(Station.Bydgoszcz, Station.Gdansk, startTime, 41L);
+
+            assertEquals(HttpStatus.OK, response.getStatusCode());
+            assertSame(emitter, response.getBody());
+            assertEquals(HttpStatus.NOT_FOUND,
+                    reservationController.getSeatEvents(Station.Bydgoszcz, Station.Katowice, startTime, null).getStatusCode());
+        }
+
+        @Test
+        void testHoldSeats() {
+            Station startStation = Station.Bydgoszcz;
+            Station endStation = Station.Gdansk;
+            LocalDateTime startTime = LocalDateTime.of(2023, 8, 20, 15, 0);
+            Timetable timetable = new Timetable();
+            SeatPreference preference = new SeatPreference();
+            preference.setNumberOfSeats(2);
+            SeatHold hold = new SeatHold(1L, "token", LocalDateTime.of(2023, 8, 20, 12, 5), List.of(new Seat(), new Seat()));
+
+            when(timetableServiceMock.getTimetableByStartStationAndEndStationAndStartTime(startStation, endStation, startTime)).thenReturn(timetable);
+            when(seatHoldServiceMock.hold(timetable, preference)).thenReturn(hold);
+
+            ResponseEntity<SeatHold> response = reservationController.holdSeats(startStation, endStation, startTime, preference);
+
+            assertEquals(HttpStatus.OK, response.getStatusCode());
+            assertEquals(hold, response.getBody());
+        }
+
+        @Test
+        void testHoldSeatsWithoutMatchingSeats() {
+            Timetable timetable = new Timetable();
+            SeatPreference preference = new SeatPreference();
+            LocalDateTime startTime = LocalDateTime.of(2023, 8, 20, 15, 0);
+
+            when(timetableServiceMock.getTimetableByStartStationAndEndStationAndStartTime(Station.Bydgoszcz, Station.Gdansk, startTime)).thenReturn(timetable);
+            when(seatHoldServiceMock.hold(timetable, preference)).thenReturn(null);
+
+            ResponseEntity<SeatHold> response = reservationController.holdSeats(Station.Bydgoszcz, Station.Gdansk, startTime, preference);
+
+            assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        }
+
+        @Test
+        void testConfirmHold() {
+            when(reservationServiceMock.existHold(1L, "token")).thenReturn(true);
+            when(seatHoldServiceMock.confirm(1L, "token")).thenReturn(true);
+
+            ResponseEntity<String> response = reservationController.confirmHold(1L, "token");
+
+            assertEquals(HttpStatus.OK, response.getStatusCode());
+        }
+
+        @Test
+        void testConfirmExpiredHold() {
+            when(reservationServiceMock.existHold(1L, "token")).thenReturn(true);
+            when(seatHoldServiceMock.confirm(1L, "token")).thenReturn(false);
+
+            ResponseEntity<String> response = reservationController.confirmHold(1L, "token");
+
+            assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
+        }
+
+        @Test
+        void testReleaseHoldNotFound() {
+            when(reservationServiceMock.existHold(1L, "token")).thenReturn(false);
+
+            ResponseEntity<String> response = reservationController.releaseHold(1L, "token");
+
+            assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+            verify(seatHoldServiceMock, never()).release(anyLong(), anyString());
+        }
+
+        @Test
+        void testConfirmHoldWithWrongToken() {
+            when(reservationServiceMock.existHold(1L, "guessed")).thenReturn(false);
+
+            ResponseEntity<String> response = reservationController.confirmHold(1L, "guessed");
+
+            assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+            verify(seatHoldServiceMock, never()).confirm(anyLong(), anyString());
+        }
+
+        @Test
+        void testGetJourneys() {
+            Station startStation = Station.Szczecin;
+            Station endStation = Station.Krakow;
+            LocalDateTime departureTime = LocalDateTime.of(2023, 8, 20, 6, 0);
+            Journey journey = new Journey();
+
+            when(journeyPlannerServiceMock.planJourneys(startStation, endStation, departureTime)).thenReturn(List.of(journey));
+
+            ResponseEntity<List<Journey>> response = reservationController.getJourneys(startStation, endStation, departureTime);
+
+            assertEquals(HttpStatus.OK, response.getStatusCode());
+            assertEquals(List.of(journey), response.getBody());
+        }
+
+        @Test
+        void testGetJourneysNotFound() {
+            LocalDateTime departureTime = LocalDateTime.of(2023, 8, 20, 6, 0);
+            when(journeyPlannerServiceMock.planJourneys(any(), any(), any())).thenReturn(Collections.emptyList());
+
+            ResponseEntity<List<Journey>> response = reservationController.getJourneys(Station.Szczecin, Station.Krakow, departureTime);
+
+            assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+        }
+
+        private static List<String> decode(TimetableSearchResult result) {
+            try {
+                ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+                result.writeTo(outputStream);
+                return new ObjectMapper().readValue(outputStream.toByteArray(), new TypeReference<List<String>>() { });
+            } catch (IOException exception) {
+                throw new UncheckedIOException(exception);
+            }
+        }
+    }
@@ -1,7 +1,9 @@
 package com.tickets.controller;
 
+import com.tickets.model.CursorPage;
 import com.tickets.model.Seat;
 import com.tickets.model.Wagon;
+import com.tickets.service.NdjsonExportService;
 import com.tickets.service.SeatService;
 import com.tickets.service.WagonService;
 import org.junit.jupiter.api.BeforeEach;
@@ -27,6 +29,9 @@ class SeatControllerTest {
     @Mock
     private WagonService wagonService;
 
+    @Mock
+    private NdjsonExportService ndjsonExportService;
+
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
@@ -72,4 +77,20 @@ class SeatControllerTest {
         assertEquals(200, response.getStatusCodeValue());
         assertEquals(seats, response.getBody());
     }
+
+    @Test
+    void getSeatsPage() {
+        CursorPage<Seat> page = new CursorPage<>(List.of(new Seat()), 1L);
+        when(seatService.getSeatsPage(0, 1)).thenReturn(page);
+        ResponseEntity<CursorPage<Seat>> response = seatController.getSeatsPage(0, 1);
+        assertEquals(200, response.getStatusCodeValue());
+        assertEquals(page, response.getBody());
+    }
+
+    @Test
+    void getSeatsPageWithSizeOutOfRange() {
+        ResponseEntity<CursorPage<Seat>> response = seatController.getSeatsPage(0, CursorPage.MAX_SIZE + 1);
+        assertEquals(400, response.getStatusCodeValue());
+        verify(seatService, never()).getSeatsPage(anyLong(), anyInt());
+    }
 }
\ No newline at end of file
@@ -12,6 +12,7 @@ import org.springframework.http.ResponseEntity;
 import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.*;
@@ -66,4 +67,13 @@ class TimetableControllerTest {
         assertEquals(200, response.getStatusCodeValue());
         assertEquals(timetables, response.getBody());
     }
-}
\ No newline at end of file
+
+    @Test
+    void getSearchCacheStatistics() {
+        Map<String, Long> statistics = Map.of("startStation.hits", 1L);
+        when(timetableService.getSearchCacheStatistics()).thenReturn(statistics);
+        ResponseEntity<Map<String, Long>> response = timetableController.getSearchCacheStatistics();
+        assertEquals(200, response.getStatusCodeValue());
+        assertEquals(statistics, response.getBody());
+    }
+}
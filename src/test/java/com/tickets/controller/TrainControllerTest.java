@@ -1,6 +1,8 @@
 package com.tickets.controller;
 
+import com.tickets.model.Timetable;
 import com.tickets.model.Train;
+import com.tickets.model.TrainLayout;
 import com.tickets.service.TimetableService;
 import com.tickets.service.TrainService;
 import org.junit.jupiter.api.BeforeEach;
@@ -12,6 +14,7 @@ import org.springframework.http.ResponseEntity;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.*;
@@ -43,6 +46,49 @@ class TrainControllerTest {
         assertEquals(train, response.getBody());
     }
 
+    @Test
+    void provisionTrain() {
+        Long timetableId = 1L;
+        TrainLayout layout = new TrainLayout();
+        Timetable timetable = new Timetable();
+        Train train = new Train();
+        when(timetableService.existTimetable(timetableId)).thenReturn(true);
+        when(trainService.existTrainByTimetableID(timetableId)).thenReturn(false);
+        when(trainService.isValidLayout(layout)).thenReturn(true);
+        when(timetableService.getTimetableById(timetableId)).thenReturn(timetable);
+        when(trainService.provisionTrain(layout, timetable)).thenReturn(train);
+        ResponseEntity<Train> response = trainController.provisionTrain(layout, timetableId);
+        assertEquals(200, response.getStatusCodeValue());
+        assertEquals(train, response.getBody());
+    }
+
+    @Test
+    void provisionTrainWithInvalidLayout() {
+        Long timetableId = 1L;
+        TrainLayout layout = new TrainLayout();
+        when(timetableService.existTimetable(timetableId)).thenReturn(true);
+        when(trainService.isValidLayout(layout)).thenReturn(false);
+        ResponseEntity<Train> response = trainController.provisionTrain(layout, timetableId);
+        assertEquals(400, response.getStatusCodeValue());
+        verify(trainService, never()).provisionTrain(any(), any());
+    }
+
+    @Test
+    void cloneTrain() {
+        Long trainId = 1L;
+        Long timetableId = 2L;
+        Timetable timetable = new Timetable();
+        Train train = new Train();
+        when(trainService.existTrain(trainId)).thenReturn(true);
+        when(timetableService.existTimetable(timetableId)).thenReturn(true);
+        when(trainService.existTrainByTimetableID(timetableId)).thenReturn(false);
+        when(timetableService.getTimetableById(timetableId)).thenReturn(timetable);
+        when(trainService.cloneTrain(trainId, timetable)).thenReturn(train);
+        ResponseEntity<Train> response = trainController.cloneTrain(trainId, timetableId);
+        assertEquals(200, response.getStatusCodeValue());
+        assertEquals(train, response.getBody());
+    }
+
     @Test
     void deleteTrainById() {
         Long id = 1L;
@@ -70,4 +116,13 @@ class TrainControllerTest {
         assertEquals(200, response.getStatusCodeValue());
         assertEquals(trains, response.getBody());
     }
-}
\ No newline at end of file
+
+    @Test
+    void getCacheStatistics() {
+        Map<String, Long> statistics = Map.of("trains.hits", 1L);
+        when(trainService.getCacheStatistics()).thenReturn(statistics);
+        ResponseEntity<Map<String, Long>> response = trainController.getCacheStatistics();
+        assertEquals(200, response.getStatusCodeValue());
+        assertEquals(statistics, response.getBody());
+    }
+}
@@ -0,0 +1,298 @@
+package com.tickets.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tickets.ReservationApplication;
+import com.tickets.model.Seat;
+import com.tickets.model.Timetable;
+import com.tickets.model.TrainLayout;
+import com.tickets.model.WagonLayout;
+import com.tickets.model.enums.SeatType;
+import com.tickets.model.enums.Station;
+import com.tickets.model.enums.WagonType;
+import com.tickets.repository.SeatRepository;
+import com.tickets.service.TimetableService;
+import com.tickets.service.TrainService;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.Environment;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Load generator for the reservation endpoints. Starts {@link ReservationApplication} on a random
+ * port, seeds timetables with provisioned trains and lets virtual users search, reserve and cancel
+ * over HTTP from virtual threads until the configured duration is over.
+ * <p>
+ * Options are passed as {@code --loadtest.<name>=<value>}, every other argument goes to Spring,
+ * so {@code --spring.datasource.url=jdbc:postgresql://...} runs the test against PostgreSQL.
+ * Without a datasource URL an in-memory H2 database is used.
+ */
+public final class LoadTest {
+    private static final String OPTION_PREFIX = "--loadtest.";
+    private static final LocalDateTime FIRST_DEPARTURE = LocalDateTime.of(2023, 8, 20, 6, 0);
+    private static final SeatType[] SEAT_TYPES = {SeatType.Window, SeatType.Middle, SeatType.Corridor};
+
+    private final Map<String, String> options;
+    private final int timetableCount;
+    private final int wagons;
+    private final int seatsPerType;
+    private final int users;
+    private final Duration duration;
+    private final long seed;
+    private final LoadTestReport report = new LoadTestReport();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    /**
+     * Reservation ID of every seat currently held by a virtual user, a second holder is a double booking.
+     */
+    private final ConcurrentMap<Long, Long> heldSeats = new ConcurrentHashMap<>();
+
+    private ConfigurableApplicationContext context;
+    private HttpClient httpClient;
+    private String baseUrl;
+    private String adminAuthorization;
+    private List<Timetable> timetables;
+
+    private LoadTest(Map<String, String> options) {
+        this.options = options;
+        this.timetableCount = Integer.parseInt(options.getOrDefault("timetables", "10"));
+        this.wagons = Integer.parseInt(options.getOrDefault("wagons", "4"));
+        this.seatsPerType = Integer.parseInt(options.getOrDefault("seats-per-type", "20"));
+        this.users = Integer.parseInt(options.getOrDefault("users", "200"));
+        this.duration = Duration.ofSeconds(Long.parseLong(options.getOrDefault("duration-seconds", "30")));
+        this.seed = Long.parseLong(options.getOrDefault("seed", "42"));
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        List<String> springArgs = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.startsWith(OPTION_PREFIX) && arg.contains("=")) {
+                options.put(arg.substring(OPTION_PREFIX.length(), arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            } else if (!arg.isBlank()) {
+                springArgs.add(arg);
+            }
+        }
+        LoadTest loadTest = new LoadTest(options);
+        try {
+            loadTest.start(springArgs);
+            loadTest.seed();
+            loadTest.run();
+            loadTest.verify();
+            loadTest.writeReport();
+        } finally {
+            loadTest.stop();
+        }
+    }
+
+    private void start(List<String> springArgs) {
+        List<String> args = new ArrayList<>();
+        args.add("--server.port=0");
+        args.add("--logging.level.root=WARN");
+        if (springArgs.stream().noneMatch(arg -> arg.startsWith("--spring.datasource.url="))) {
+            args.add("--spring.datasource.url=jdbc:h2:mem:loadtest;DB_CLOSE_DELAY=-1");
+            args.add("--spring.datasource.driver-class-name=org.h2.Driver");
+            args.add("--spring.datasource.username=sa");
+            args.add("--spring.datasource.password=");
+            args.add("--spring.jpa.database-platform=org.hibernate.dialect.H2Dialect");
+            args.add("--spring.sql.init.platform=h2");
+            args.add("--spring.jpa.hibernate.ddl-auto=create-drop");
+        }
+        args.addAll(springArgs);
+        context = new SpringApplicationBuilder(ReservationApplication.class).run(args.toArray(new String[0]));
+        baseUrl = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+        Environment environment = context.getEnvironment();
+        String credentials = environment.getProperty("spring.security.admin.name") + ":"
+                + environment.getProperty("spring.security.admin.password");
+        adminAuthorization = "Basic " + Base64.getEncoder().encodeToString(credentials.getBytes(StandardCharsets.UTF_8));
+        httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+    }
+
+    /**
+     * Adds timetables between neighbouring stations, every one with a provisioned train.
+     */
+    private void seed() {
+        TimetableService timetableService = context.getBean(TimetableService.class);
+        TrainService trainService = context.getBean(TrainService.class);
+        Station[] stations = Station.values();
+        timetables = new ArrayList<>(timetableCount);
+        for (int i = 0; i < timetableCount; i++) {
+            Timetable timetable = new Timetable();
+            timetable.setStartStation(stations[i % stations.length]);
+            timetable.setEndStation(stations[(i + 1) % stations.length]);
+            timetable.setStartTime(FIRST_DEPARTURE.plusHours(i / stations.length));
+            timetable.setEndTime(timetable.getStartTime().plusHours(3));
+            timetable = timetableService.addTimetable(timetable);
+            trainService.provisionTrain(trainLayout(i), timetable);
+            timetables.add(timetable);
+        }
+    }
+
+    private TrainLayout trainLayout(int trainNumber) {
+        Map<SeatType, Integer> seats = new EnumMap<>(SeatType.class);
+        for (SeatType seatType : SEAT_TYPES) {
+            seats.put(seatType, seatsPerType);
+        }
+        List<WagonLayout> wagonLayouts = new ArrayList<>(wagons);
+        for (int wagon = 0; wagon < wagons; wagon++) {
+            WagonLayout wagonLayout = new WagonLayout();
+            wagonLayout.setWagonType(WagonType.Open_Coach);
+            wagonLayout.setSeats(seats);
+            wagonLayouts.add(wagonLayout);
+        }
+        TrainLayout layout = new TrainLayout();
+        layout.setTrainName("Load test " + trainNumber);
+        layout.setTrainNumber(trainNumber);
+        layout.setWagons(wagonLayouts);
+        return layout;
+    }
+
+    private void run() {
+        long deadline = System.nanoTime() + duration.toNanos();
+        long started = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int user = 0; user < users; user++) {
+                Random random = new Random(seed + user);
+                executor.execute(() -> runUser(random, deadline));
+            }
+        }
+        report.setElapsed(Duration.ofNanos(System.nanoTime() - started));
+    }
+
+    /**
+     * One virtual user: mostly searches, reserves one or more seats and cancels some of its reservations.
+     */
+    private void runUser(Random random, long deadline) {
+        Deque<Long> reservations = new ArrayDeque<>();
+        while (System.nanoTime() < deadline) {
+            Timetable timetable = timetables.get(random.nextInt(timetables.size()));
+            int operation = random.nextInt(100);
+            try {
+                if (operation < 50) {
+                    search(timetable);
+                } else if (operation < 70) {
+                    reserveSeats(timetable, 2 + random.nextInt(3), reservations);
+                } else if (operation < 90) {
+                    reserveSeat(timetable, SEAT_TYPES[random.nextInt(SEAT_TYPES.length)], reservations);
+                } else if (!reservations.isEmpty()) {
+                    deleteReservation(reservations.poll());
+                }
+            } catch (IOException exception) {
+                report.recordError();
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void search(Timetable timetable) throws IOException, InterruptedException {
+        send(LoadTestReport.SEARCH, HttpRequest.newBuilder(uri("/reservations/startAndEndStation/"
+                + timetable.getStartStation() + "/" + timetable.getEndStation())).GET());
+    }
+
+    private void reserveSeats(Timetable timetable, int numberOfSeats, Deque<Long> reservations) throws IOException, InterruptedException {
+        HttpResponse<String> response = send(LoadTestReport.RESERVE_SEATS, HttpRequest.newBuilder(uri(reservationPath(timetable)
+                + "/numberOfSeats/" + numberOfSeats)).POST(HttpRequest.BodyPublishers.noBody()));
+        if (response.statusCode() == 200) {
+            hold(objectMapper.readTree(response.body()), reservations);
+        }
+    }
+
+    private void reserveSeat(Timetable timetable, SeatType seatType, Deque<Long> reservations) throws IOException, InterruptedException {
+        HttpResponse<String> response = send(LoadTestReport.RESERVE_SEAT, HttpRequest.newBuilder(uri(reservationPath(timetable)
+                + "/seatType/" + seatType)).POST(HttpRequest.BodyPublishers.noBody()));
+        if (response.statusCode() == 200) {
+            hold(objectMapper.createArrayNode().add(objectMapper.readTree(response.body())), reservations);
+        }
+    }
+
+    private void deleteReservation(long reservationId) throws IOException, InterruptedException {
+        // Seats are given up before the request, they can only be sold again after it released them.
+        heldSeats.values().removeIf(holder -> holder == reservationId);
+        send(LoadTestReport.DELETE_RESERVATION, HttpRequest.newBuilder(uri("/reservations/" + reservationId))
+                .header("Authorization", adminAuthorization).DELETE());
+    }
+
+    /**
+     * Records seats of a successful reservation. The response does not expose the reservation,
+     * so its ID is read from the seats table.
+     */
+    private void hold(JsonNode seats, Deque<Long> reservations) {
+        SeatRepository seatRepository = context.getBean(SeatRepository.class);
+        Long reservationId = null;
+        for (JsonNode seatNode : seats) {
+            long seatId = seatNode.get("id").asLong();
+            if (reservationId == null) {
+                Seat seat = seatRepository.findById(seatId).orElseThrow();
+                reservationId = seat.getReservation().getId();
+                reservations.add(reservationId);
+            }
+            Long previousHolder = heldSeats.putIfAbsent(seatId, reservationId);
+            if (previousHolder != null && !previousHolder.equals(reservationId)) {
+                report.recordDoubleBooking();
+            }
+        }
+    }
+
+    private HttpResponse<String> send(String operation, HttpRequest.Builder request) throws IOException, InterruptedException {
+        long started = System.nanoTime();
+        HttpResponse<String> response = httpClient.send(request.timeout(Duration.ofSeconds(30)).build(),
+                HttpResponse.BodyHandlers.ofString());
+        report.record(operation, System.nanoTime() - started, response.statusCode());
+        return response;
+    }
+
+    /**
+     * Compares seats held by the virtual users with reserved seats in the database.
+     */
+    private void verify() {
+        long reservedInDatabase = context.getBean(SeatRepository.class).findAll().stream()
+                .filter(seat -> seat.getReservation() != null)
+                .count();
+        report.setSeatCounts(heldSeats.size(), reservedInDatabase);
+    }
+
+    private void writeReport() throws IOException {
+        String text = report.format(options, timetableCount * wagons * seatsPerType * SEAT_TYPES.length);
+        System.out.println(text);
+        String reportFile = options.get("report");
+        if (reportFile != null) {
+            Path path = Path.of(reportFile);
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            Files.writeString(path, text);
+        }
+    }
+
+    private void stop() {
+        if (context != null) {
+            context.close();
+        }
+    }
+
+    private URI uri(String path) {
+        return URI.create(baseUrl + path);
+    }
+
+    private static String reservationPath(Timetable timetable) {
+        return "/reservations/startAndEndStation/" + timetable.getStartStation() + "/" + timetable.getEndStation()
+                + "/" + timetable.getStartTime();
+    }
+}
@@ -0,0 +1,94 @@
+package com.tickets.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histograms, status counts and consistency checks of one load test run.
+ */
+final class LoadTestReport {
+    static final String SEARCH = "search";
+    static final String RESERVE_SEATS = "reserveSeats";
+    static final String RESERVE_SEAT = "reserveSeat";
+    static final String DELETE_RESERVATION = "deleteReservationById";
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+    private final Map<String, Operation> operations = new LinkedHashMap<>();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder doubleBookings = new LongAdder();
+    private final AtomicLong heldSeats = new AtomicLong();
+    private final AtomicLong reservedSeats = new AtomicLong();
+    private Duration elapsed = Duration.ZERO;
+
+    LoadTestReport() {
+        for (String name : new String[]{SEARCH, RESERVE_SEATS, RESERVE_SEAT, DELETE_RESERVATION}) {
+            operations.put(name, new Operation());
+        }
+    }
+
+    void record(String operation, long nanos, int statusCode) {
+        Operation recorded = operations.get(operation);
+        recorded.latency.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(nanos), HIGHEST_TRACKABLE_MICROS));
+        recorded.statusCodes.computeIfAbsent(statusCode, code -> new LongAdder()).increment();
+    }
+
+    void recordError() {
+        errors.increment();
+    }
+
+    void recordDoubleBooking() {
+        doubleBookings.increment();
+    }
+
+    void setElapsed(Duration elapsed) {
+        this.elapsed = elapsed;
+    }
+
+    void setSeatCounts(long heldSeats, long reservedSeats) {
+        this.heldSeats.set(heldSeats);
+        this.reservedSeats.set(reservedSeats);
+    }
+
+    String format(Map<String, String> options, long seats) {
+        StringBuilder text = new StringBuilder();
+        text.append("Load test report\n");
+        text.append(String.format("options: %s, seats: %d, elapsed: %.1f s%n",
+                new TreeMap<>(options), seats, elapsed.toMillis() / 1000.0));
+        text.append(String.format("%-22s %9s %10s %9s %9s %9s %9s  %s%n",
+                "operation", "requests", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms", "status codes"));
+        double seconds = Math.max(elapsed.toMillis(), 1) / 1000.0;
+        long total = 0;
+        for (Map.Entry<String, Operation> entry : operations.entrySet()) {
+            Histogram latency = entry.getValue().latency;
+            total += latency.getTotalCount();
+            text.append(String.format("%-22s %9d %10.1f %9.2f %9.2f %9.2f %9.2f  %s%n",
+                    entry.getKey(),
+                    latency.getTotalCount(),
+                    latency.getTotalCount() / seconds,
+                    latency.getValueAtPercentile(50) / 1000.0,
+                    latency.getValueAtPercentile(99) / 1000.0,
+                    latency.getValueAtPercentile(99.9) / 1000.0,
+                    latency.getMaxValue() / 1000.0,
+                    new TreeMap<>(entry.getValue().statusCodes)));
+        }
+        text.append(String.format("total: %d requests, %.1f req/s, %d transport errors%n", total, total / seconds, errors.sum()));
+        text.append(String.format("double bookings: %d, seats held by users: %d, reserved seats in database: %d%n",
+                doubleBookings.sum(), heldSeats.get(), reservedSeats.get()));
+        return text.toString();
+    }
+
+    private static final class Operation {
+        private final Histogram latency = new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3);
+        private final Map<Integer, LongAdder> statusCodes = new ConcurrentHashMap<>();
+    }
+}
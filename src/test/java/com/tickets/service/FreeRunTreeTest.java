@@ -0,0 +1,63 @@
+package com.tickets.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FreeRunTreeTest {
+
+    @Test
+    void findsFirstRunOfConsecutiveSeatNumbers() {
+        FreeRunTree tree = new FreeRunTree(new long[]{1, 2, 3, 5, 6, 7, 8});
+        for (int seat = 0; seat < 7; seat++) {
+            tree.set(seat, true);
+        }
+
+        assertEquals(4, tree.longestRun());
+        assertEquals(0, tree.findRun(3));
+        assertEquals(3, tree.findRun(4));
+        assertEquals(-1, tree.findRun(5));
+
+        tree.set(4, false);
+        tree.set(1, false);
+        assertEquals(2, tree.longestRun());
+        assertEquals(5, tree.findRun(2));
+        assertEquals(-1, tree.findRun(3));
+    }
+
+    @Test
+    void matchesLinearScanOnRandomUpdates() {
+        long[] seatNumbers = new long[80];
+        for (int seat = 0; seat < seatNumbers.length; seat++) {
+            // Seat numbers of an open coach with a gap after every fourth row.
+            seatNumbers[seat] = seat + 1 + seat / 16;
+        }
+        FreeRunTree tree = new FreeRunTree(seatNumbers);
+        boolean[] free = new boolean[seatNumbers.length];
+        Random random = new Random(42);
+        for (int update = 0; update < 5000; update++) {
+            int seat = random.nextInt(seatNumbers.length);
+            free[seat] = random.nextInt(3) > 0;
+            tree.set(seat, free[seat]);
+            int length = 1 + random.nextInt(8);
+            assertEquals(findRunByScan(seatNumbers, free, length), tree.findRun(length));
+        }
+    }
+
+    private static int findRunByScan(long[] seatNumbers, boolean[] free, int length) {
+        int run = 0;
+        for (int seat = 0; seat < free.length; seat++) {
+            if (!free[seat]) {
+                run = 0;
+                continue;
+            }
+            run = run > 0 && seatNumbers[seat] == seatNumbers[seat - 1] + 1 ? run + 1 : 1;
+            if (run == length) {
+                return seat - length + 1;
+            }
+        }
+        return -1;
+    }
+}
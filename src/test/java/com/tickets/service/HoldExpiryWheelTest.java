@@ -0,0 +1,62 @@
+package com.tickets.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HoldExpiryWheelTest {
+    private static final long TICK = 100;
+
+    @Test
+    void holdsExpireOnTheirDeadlineTick() {
+        HoldExpiryWheel wheel = new HoldExpiryWheel(TICK, 8, 0);
+        wheel.schedule(1, 250);
+        wheel.schedule(2, 350);
+
+        assertTrue(wheel.expire(200).isEmpty());
+        assertEquals(List.of(1L), wheel.expire(300));
+        assertTrue(wheel.expire(399).isEmpty());
+        assertEquals(List.of(2L), wheel.expire(400));
+        assertTrue(wheel.expire(1_000).isEmpty());
+    }
+
+    @Test
+    void deadlinesBeyondOneRevolutionWaitForTheirRevolution() {
+        HoldExpiryWheel wheel = new HoldExpiryWheel(TICK, 4, 0);
+        wheel.schedule(1, 1_000);
+
+        for (long now = TICK; now < 1_000; now += TICK) {
+            assertTrue(wheel.expire(now).isEmpty(), "expired at " + now);
+        }
+        assertEquals(List.of(1L), wheel.expire(1_000));
+    }
+
+    @Test
+    void pastDeadlinesExpireOnTheNextTick() {
+        HoldExpiryWheel wheel = new HoldExpiryWheel(TICK, 8, 0);
+        wheel.expire(500);
+        wheel.schedule(1, 100);
+
+        assertTrue(wheel.expire(599).isEmpty());
+        assertEquals(List.of(1L), wheel.expire(600));
+    }
+
+    @Test
+    void everyHoldExpiresAfterALongPause() {
+        HoldExpiryWheel wheel = new HoldExpiryWheel(TICK, 16, 0);
+        Random random = new Random(7);
+        List<Long> scheduled = new ArrayList<>();
+        for (long id = 0; id < 10_000; id++) {
+            wheel.schedule(id, random.nextInt(100_000));
+            scheduled.add(id);
+        }
+
+        List<Long> expired = wheel.expire(100_000);
+
+        assertEquals(scheduled, expired.stream().sorted().toList());
+    }
+}
@@ -0,0 +1,92 @@
+package com.tickets.service;
+
+import com.tickets.model.Journey;
+import com.tickets.model.Timetable;
+import com.tickets.model.enums.Station;
+import com.tickets.repository.TimetableRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class JourneyPlannerServiceTest {
+    private static final LocalDateTime MORNING = LocalDateTime.of(2023, 8, 20, 6, 0);
+
+    private final List<Timetable> timetables = new ArrayList<>();
+    private TimetableIndex timetableIndex;
+    private JourneyPlannerService journeyPlannerService;
+
+    @BeforeEach
+    void setUp() {
+        TimetableRepository timetableRepository = mock(TimetableRepository.class);
+        when(timetableRepository.findAll()).thenReturn(timetables);
+        timetableIndex = new TimetableIndex(timetableRepository, Duration.ofMinutes(1));
+        journeyPlannerService = new JourneyPlannerService(timetableIndex, timetableRepository, Duration.ofMinutes(10));
+    }
+
+    @Test
+    void findsJourneyWithTransferWhenThereIsNoDirectTimetable() {
+        Timetable toWroclaw = timetable(Station.Szczecin, Station.Wroclaw, 7, 0, 11, 0);
+        Timetable toKrakow = timetable(Station.Wroclaw, Station.Krakow, 11, 30, 14, 0);
+        timetableIndex.load();
+
+        List<Journey> journeys = journeyPlannerService.planJourneys(Station.Szczecin, Station.Krakow, MORNING);
+
+        assertEquals(1, journeys.size());
+        assertEquals(List.of(toWroclaw, toKrakow), journeys.get(0).getLegs());
+        assertEquals(1, journeys.get(0).getTransfers());
+        assertEquals(toKrakow.getEndTime(), journeys.get(0).getArrivalTime());
+    }
+
+    @Test
+    void respectsMinimumTransferTime() {
+        timetable(Station.Szczecin, Station.Wroclaw, 7, 0, 11, 0);
+        timetable(Station.Wroclaw, Station.Krakow, 11, 5, 13, 0);
+        Timetable laterToKrakow = timetable(Station.Wroclaw, Station.Krakow, 12, 0, 14, 0);
+        timetableIndex.load();
+
+        List<Journey> journeys = journeyPlannerService.planJourneys(Station.Szczecin, Station.Krakow, MORNING);
+
+        assertEquals(1, journeys.size());
+        assertEquals(laterToKrakow, journeys.get(0).getLegs().get(1));
+    }
+
+    @Test
+    void returnsFewestTransfersAndEarliestArrivalJourneys() {
+        Timetable direct = timetable(Station.Szczecin, Station.Krakow, 7, 0, 16, 0);
+        timetable(Station.Szczecin, Station.Wroclaw, 7, 0, 10, 0);
+        Timetable fastToKrakow = timetable(Station.Wroclaw, Station.Krakow, 10, 30, 12, 30);
+        timetableIndex.load();
+
+        List<Journey> journeys = journeyPlannerService.planJourneys(Station.Szczecin, Station.Krakow, MORNING);
+
+        assertEquals(2, journeys.size());
+        assertEquals(List.of(direct), journeys.get(0).getLegs());
+        assertEquals(fastToKrakow.getEndTime(), journeys.get(1).getArrivalTime());
+    }
+
+    @Test
+    void ignoresTimetablesDepartingBeforeRequestedTime() {
+        timetable(Station.Szczecin, Station.Krakow, 5, 0, 12, 0);
+        timetableIndex.load();
+
+        assertTrue(journeyPlannerService.planJourneys(Station.Szczecin, Station.Krakow, MORNING).isEmpty());
+    }
+
+    private Timetable timetable(Station startStation, Station endStation, int startHour, int startMinute, int endHour, int endMinute) {
+        Timetable timetable = new Timetable();
+        timetable.setId(timetables.size() + 1);
+        timetable.setStartStation(startStation);
+        timetable.setEndStation(endStation);
+        timetable.setStartTime(MORNING.withHour(startHour).withMinute(startMinute));
+        timetable.setEndTime(MORNING.withHour(endHour).withMinute(endMinute));
+        timetables.add(timetable);
+        return timetable;
+    }
+}
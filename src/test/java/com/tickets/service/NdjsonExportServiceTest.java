@@ -0,0 +1,167 @@
+package com.tickets.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.tickets.model.*;
+import com.tickets.model.enums.SeatType;
+import com.tickets.model.enums.Station;
+import com.tickets.model.enums.WagonType;
+import com.tickets.repository.*;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.context.request.async.WebAsyncTask;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks the keyset pages and the streamed export of the admin listings.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.sql.init.platform=h2",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class NdjsonExportServiceTest {
+    private static final int TIMETABLES = 3;
+    private static final int SEATS_PER_WAGON = 25;
+    private static final Duration EXPORT_TIMEOUT = Duration.ofMinutes(30);
+
+    @Autowired
+    private TimetableRepository timetableRepository;
+    @Autowired
+    private TrainRepository trainRepository;
+    @Autowired
+    private WagonRepository wagonRepository;
+    @Autowired
+    private SeatRepository seatRepository;
+    @Autowired
+    private ReservationRepository reservationRepository;
+    @Autowired
+    private ReservedSegmentRepository reservedSegmentRepository;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final ObjectMapper objectMapper = JsonMapper.builder().findAndAddModules().build();
+    private NdjsonExportService ndjsonExportService;
+    private List<Long> seatIds;
+
+    @BeforeEach
+    void setUp() {
+        reservedSegmentRepository.deleteAll();
+        seatRepository.deleteAll();
+        reservationRepository.deleteAll();
+        wagonRepository.deleteAll();
+        trainRepository.deleteAll();
+        timetableRepository.deleteAll();
+
+        seatIds = new ArrayList<>();
+        for (int hour = 0; hour < TIMETABLES; hour++) {
+            Timetable timetable = new Timetable();
+            timetable.setStartStation(Station.Szczecin);
+            timetable.setEndStation(Station.Krakow);
+            timetable.setStartTime(LocalDateTime.of(2023, 8, 20, 8 + hour, 0));
+            timetable.setEndTime(LocalDateTime.of(2023, 8, 20, 15 + hour, 0));
+            timetable = timetableRepository.save(timetable);
+            Train train = new Train();
+            train.setTimetable(timetable);
+            train = trainRepository.save(train);
+            Wagon wagon = new Wagon();
+            wagon.setWagonNumber(1);
+            wagon.setWagonType(WagonType.Open_Coach);
+            wagon.setTrain(train);
+            wagon = wagonRepository.save(wagon);
+            for (int seatNumber = 1; seatNumber <= SEATS_PER_WAGON; seatNumber++) {
+                Seat seat = new Seat();
+                seat.setSeatNumber(seatNumber);
+                seat.setSeatType(SeatType.values()[seatNumber % 3]);
+                seat.setWagon(wagon);
+                seatIds.add(seatRepository.save(seat).getId());
+            }
+        }
+        ndjsonExportService = new NdjsonExportService(entityManager, objectMapper, transactionManager, EXPORT_TIMEOUT);
+    }
+
+    @Test
+    void keysetPagesCoverEverySeatOnce() {
+        SeatService seatService = new SeatService(seatRepository, reservedSegmentRepository,
+                new SeatAvailabilityService(seatRepository));
+
+        List<Long> paged = new ArrayList<>();
+        CursorPage<Seat> page = seatService.getSeatsPage(0, 7);
+        while (true) {
+            page.getItems().forEach(seat -> paged.add(seat.getId()));
+            if (page.getNextAfterId() == null) {
+                break;
+            }
+            page = seatService.getSeatsPage(page.getNextAfterId(), 7);
+        }
+
+        assertEquals(seatIds, paged);
+    }
+
+    @Test
+    void exportWritesOneLinePerSeatInIdOrder() throws Exception {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        ndjsonExportService.export(seatRepository::streamAllByOrderByIdAsc, outputStream);
+
+        String[] lines = outputStream.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(seatIds.size(), lines.length);
+        for (int i = 0; i < lines.length; i++) {
+            JsonNode seat = objectMapper.readTree(lines[i]);
+            assertEquals(seatIds.get(i), seat.get("id").asLong());
+        }
+    }
+
+    @Test
+    void exportTaskWritesTheResponseWithItsOwnTimeout() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        WebAsyncTask<Void> task = ndjsonExportService.exportTask(seatRepository::streamAllByOrderByIdAsc, response);
+        assertEquals(EXPORT_TIMEOUT.toMillis(), task.getTimeout());
+        task.getCallable().call();
+
+        assertEquals("application/x-ndjson", response.getContentType());
+        assertEquals(seatIds.size(), response.getContentAsString(StandardCharsets.UTF_8).split("\n").length);
+    }
+
+    @Test
+    void timetablesArePagedAndExportedWithTheirTrainsInOneStatement() throws Exception {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        assertEquals(TIMETABLES, timetableRepository.findByIdGreaterThanOrderByIdAsc(0, PageRequest.of(0, 10)).size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+
+        statistics.clear();
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ndjsonExportService.export(timetableRepository::streamAllByOrderByIdAsc, outputStream);
+
+        assertEquals(TIMETABLES, outputStream.toString(StandardCharsets.UTF_8).split("\n").length);
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+}
@@ -0,0 +1,137 @@
+package com.tickets.service;
+
+import com.tickets.model.Reservation;
+import com.tickets.model.Seat;
+import com.tickets.model.Timetable;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class ReservationQueueServiceTest {
+    private ReservationService reservationServiceMock;
+    private ReservationQueueService reservationQueueService;
+    private Timetable timetable;
+
+    @BeforeEach
+    void setUp() {
+        reservationServiceMock = mock(ReservationService.class);
+        reservationQueueService = new ReservationQueueService(reservationServiceMock, 2, 10, Duration.ofSeconds(1), Duration.ofSeconds(5), false);
+        timetable = new Timetable();
+        timetable.setId(1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        reservationQueueService.shutdown();
+    }
+
+    @Test
+    void testRequestsAreRejectedWhenQueueIsFull() throws Exception {
+        CountDownLatch workerStarted = new CountDownLatch(1);
+        CountDownLatch releaseWorker = new CountDownLatch(1);
+        List<List<Integer>> batches = new ArrayList<>();
+        when(reservationServiceMock.reserveSeatsInBatch(any(), anyList())).thenAnswer(invocation -> {
+            List<Integer> numbersOfSeats = invocation.getArgument(1);
+            batches.add(numbersOfSeats);
+            workerStarted.countDown();
+            releaseWorker.await();
+            return numbersOfSeats.stream().map(ReservationQueueServiceTest::seats).toList();
+        });
+
+        CompletableFuture<List<Seat>> first = reservationQueueService.submit(timetable, 1);
+        assertTrue(workerStarted.await(5, TimeUnit.SECONDS));
+        CompletableFuture<List<Seat>> second = reservationQueueService.submit(timetable, 2);
+        CompletableFuture<List<Seat>> third = reservationQueueService.submit(timetable, 3);
+        CompletableFuture<List<Seat>> rejected = reservationQueueService.submit(timetable, 4);
+        releaseWorker.countDown();
+
+        assertNull(rejected);
+        assertEquals(1, first.get(5, TimeUnit.SECONDS).size());
+        assertEquals(2, second.get(5, TimeUnit.SECONDS).size());
+        assertEquals(3, third.get(5, TimeUnit.SECONDS).size());
+        assertEquals(List.of(List.of(1), List.of(2, 3)), batches);
+    }
+
+    @Test
+    void testFailedBatchCompletesRequestsExceptionally() {
+        when(reservationServiceMock.reserveSeatsInBatch(any(), anyList())).thenThrow(new IllegalStateException("Database is down"));
+
+        CompletableFuture<List<Seat>> reservation = reservationQueueService.submit(timetable, 2);
+
+        assertThrows(Exception.class, () -> reservation.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testErrorInBatchCompletesRequestsExceptionally() {
+        when(reservationServiceMock.reserveSeatsInBatch(any(), anyList())).thenThrow(new StackOverflowError());
+
+        CompletableFuture<List<Seat>> reservation = reservationQueueService.submit(timetable, 2);
+
+        assertThrows(Exception.class, () -> reservation.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testTimedOutRequestIsSkippedAndLateSeatsAreReleased() throws Exception {
+        reservationQueueService = new ReservationQueueService(reservationServiceMock, 10, 1, Duration.ofSeconds(1), Duration.ofMillis(100), true);
+        CountDownLatch releaseWorker = new CountDownLatch(1);
+        Reservation reservation = new Reservation();
+        reservation.setId(7);
+        when(reservationServiceMock.reserveSeatsInBatch(any(), anyList())).thenAnswer(invocation -> {
+            releaseWorker.await();
+            List<Seat> seats = seats(1);
+            seats.get(0).setReservation(reservation);
+            return List.of(seats);
+        });
+
+        CompletableFuture<List<Seat>> running = reservationQueueService.submit(timetable, 1);
+        CompletableFuture<List<Seat>> waiting = reservationQueueService.submit(timetable, 1);
+        ExecutionException timeout = assertThrows(ExecutionException.class, () -> running.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(TimeoutException.class, timeout.getCause());
+        assertThrows(ExecutionException.class, () -> waiting.get(5, TimeUnit.SECONDS));
+        releaseWorker.countDown();
+
+        verify(reservationServiceMock, timeout(5000)).deleteReservationById(7);
+        verify(reservationServiceMock, times(1)).reserveSeatsInBatch(any(), anyList());
+    }
+
+    @Test
+    void testShutdownFailsQueuedRequests() throws Exception {
+        CountDownLatch workerStarted = new CountDownLatch(1);
+        when(reservationServiceMock.reserveSeatsInBatch(any(), anyList())).thenAnswer(invocation -> {
+            workerStarted.countDown();
+            new CountDownLatch(1).await();
+            return List.of();
+        });
+
+        reservationQueueService.submit(timetable, 1);
+        assertTrue(workerStarted.await(5, TimeUnit.SECONDS));
+        CompletableFuture<List<Seat>> queued = reservationQueueService.submit(timetable, 2);
+        reservationQueueService.shutdown();
+
+        assertThrows(ExecutionException.class, () -> queued.get(5, TimeUnit.SECONDS));
+        CompletableFuture<List<Seat>> rejected = reservationQueueService.submit(timetable, 3);
+        assertThrows(ExecutionException.class, () -> rejected.get(5, TimeUnit.SECONDS));
+    }
+
+    private static List<Seat> seats(int numberOfSeats) {
+        List<Seat> seats = new ArrayList<>();
+        for (int i = 0; i < numberOfSeats; i++) {
+            seats.add(new Seat());
+        }
+        return seats;
+    }
+}
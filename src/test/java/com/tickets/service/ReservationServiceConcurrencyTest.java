@@ -0,0 +1,403 @@
+package com.tickets.service;
+
+import com.tickets.model.*;
+import com.tickets.model.enums.SeatDeltaType;
+import com.tickets.model.enums.SeatType;
+import com.tickets.model.enums.Station;
+import com.tickets.model.enums.WagonType;
+import com.tickets.repository.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@DataJpaTest(properties = {
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.sql.init.platform=h2"
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ReservationServiceConcurrencyTest {
+    private static final int NODES = 4;
+    private static final int BUYERS = 16;
+    private static final int ATTEMPTS_PER_BUYER = 10;
+    private static final int WAGONS = 2;
+    private static final int SEATS_PER_WAGON = 20;
+
+    @Autowired
+    private TimetableRepository timetableRepository;
+    @Autowired
+    private TrainRepository trainRepository;
+    @Autowired
+    private WagonRepository wagonRepository;
+    @Autowired
+    private SeatRepository seatRepository;
+    @Autowired
+    private ReservationRepository reservationRepository;
+    @Autowired
+    private ReservedSegmentRepository reservedSegmentRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Timetable timetable;
+    private SeatDeltaFeed seatDeltaFeed;
+
+    @BeforeEach
+    void setUp() {
+        seatDeltaFeed = mock(SeatDeltaFeed.class);
+        reservedSegmentRepository.deleteAll();
+        seatRepository.deleteAll();
+        reservationRepository.deleteAll();
+        wagonRepository.deleteAll();
+        trainRepository.deleteAll();
+        timetableRepository.deleteAll();
+
+        timetable = new Timetable();
+        timetable.setStartStation(Station.Szczecin);
+        timetable.setEndStation(Station.Krakow);
+        timetable.setStartTime(LocalDateTime.of(2023, 8, 20, 15, 0));
+        timetable.setEndTime(LocalDateTime.of(2023, 8, 20, 22, 0));
+        timetable.setStops(new ArrayList<>(List.of(Station.Zielona_Gora, Station.Wroclaw, Station.Katowice)));
+        timetable = timetableRepository.save(timetable);
+
+        Train train = new Train();
+        train.setTimetable(timetable);
+        train = trainRepository.save(train);
+        for (int wagonNumber = 1; wagonNumber <= WAGONS; wagonNumber++) {
+            Wagon wagon = new Wagon();
+            wagon.setWagonNumber(wagonNumber);
+            wagon.setWagonType(WagonType.Open_Coach);
+            wagon.setTrain(train);
+            wagon = wagonRepository.save(wagon);
+            for (int seatNumber = 1; seatNumber <= SEATS_PER_WAGON; seatNumber++) {
+                Seat seat = new Seat();
+                seat.setSeatNumber(seatNumber);
+                seat.setSeatType(SeatType.values()[seatNumber % 3]);
+                seat.setWagon(wagon);
+                seatRepository.save(seat);
+            }
+        }
+    }
+
+    @Test
+    void concurrentBuyersOnSeveralNodesNeverGetTheSameSeat() throws Exception {
+        List<ReservationService> nodes = createNodes();
+
+        ExecutorService executor = Executors.newFixedThreadPool(BUYERS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<List<Seat>>> purchases = new ArrayList<>();
+        for (int buyer = 0; buyer < BUYERS; buyer++) {
+            ReservationService node = nodes.get(buyer % NODES);
+            int numberOfSeats = 2 + buyer % 2;
+            purchases.add(executor.submit(() -> {
+                start.await();
+                List<Seat> bought = new ArrayList<>();
+                for (int attempt = 0; attempt < ATTEMPTS_PER_BUYER; attempt++) {
+                    bought.addAll(node.reserveSeats(timetable, numberOfSeats));
+                }
+                return bought;
+            }));
+        }
+        start.countDown();
+
+        Map<Long, Long> soldSeats = new HashMap<>();
+        for (Future<List<Seat>> purchase : purchases) {
+            for (Seat seat : purchase.get(60, TimeUnit.SECONDS)) {
+                Long previousReservation = soldSeats.put(seat.getId(), seat.getReservation().getId());
+                assertNull(previousReservation, "Seat " + seat.getId() + " was sold twice");
+            }
+        }
+        executor.shutdown();
+
+        List<Seat> reservedInDatabase = seatRepository.findAll().stream()
+                .filter(seat -> seat.getReservation() != null)
+                .toList();
+        assertEquals(soldSeats.size(), reservedInDatabase.size());
+        for (Seat seat : reservedInDatabase) {
+            assertEquals(soldSeats.get(seat.getId()), seat.getReservation().getId());
+        }
+        assertTrue(soldSeats.size() > 0);
+    }
+
+    @Test
+    void concurrentBuyersSelectingSeatsInDatabaseNeverGetTheSameSeat() throws Exception {
+        List<ReservationService> nodes = createNodes(false);
+
+        ExecutorService executor = Executors.newFixedThreadPool(BUYERS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<List<Seat>>> purchases = new ArrayList<>();
+        for (int buyer = 0; buyer < BUYERS; buyer++) {
+            ReservationService node = nodes.get(buyer % NODES);
+            SeatType seatType = SeatType.values()[buyer % SeatType.values().length];
+            purchases.add(executor.submit(() -> {
+                start.await();
+                List<Seat> bought = new ArrayList<>();
+                for (int attempt = 0; attempt < ATTEMPTS_PER_BUYER; attempt++) {
+                    bought.addAll(node.reserveSeats(timetable, 2));
+                    Seat seat = node.reserveSeat(timetable, seatType);
+                    if (seat != null) {
+                        bought.add(seat);
+                    }
+                }
+                return bought;
+            }));
+        }
+        start.countDown();
+
+        Map<Long, Long> soldSeats = new HashMap<>();
+        for (Future<List<Seat>> purchase : purchases) {
+            for (Seat seat : purchase.get(60, TimeUnit.SECONDS)) {
+                Long previousReservation = soldSeats.put(seat.getId(), seat.getReservation().getId());
+                assertNull(previousReservation, "Seat " + seat.getId() + " was sold twice");
+            }
+        }
+        executor.shutdown();
+
+        List<Seat> reservedInDatabase = seatRepository.findAll().stream()
+                .filter(seat -> seat.getReservation() != null)
+                .toList();
+        assertEquals(WAGONS * SEATS_PER_WAGON, reservedInDatabase.size());
+        for (Seat seat : reservedInDatabase) {
+            assertEquals(soldSeats.get(seat.getId()), seat.getReservation().getId());
+        }
+    }
+
+    @Test
+    void concurrentBatchesOnSeveralNodesNeverSellTheSameSeat() throws Exception {
+        List<ReservationService> nodes = createNodes();
+
+        ExecutorService executor = Executors.newFixedThreadPool(NODES);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<List<Seat>>> purchases = new ArrayList<>();
+        for (ReservationService node : nodes) {
+            purchases.add(executor.submit(() -> {
+                start.await();
+                List<Seat> bought = new ArrayList<>();
+                for (int attempt = 0; attempt < ATTEMPTS_PER_BUYER; attempt++) {
+                    node.reserveSeatsInBatch(timetable, List.of(2, 3, 1)).forEach(bought::addAll);
+                }
+                return bought;
+            }));
+        }
+        start.countDown();
+
+        Map<Long, Long> soldSeats = new HashMap<>();
+        for (Future<List<Seat>> purchase : purchases) {
+            for (Seat seat : purchase.get(60, TimeUnit.SECONDS)) {
+                Long previousReservation = soldSeats.put(seat.getId(), seat.getReservation().getId());
+                assertNull(previousReservation, "Seat " + seat.getId() + " was sold twice");
+            }
+        }
+        executor.shutdown();
+
+        long reservedInDatabase = seatRepository.findAll().stream()
+                .filter(seat -> seat.getReservation() != null)
+                .count();
+        assertEquals(soldSeats.size(), reservedInDatabase);
+        assertEquals(WAGONS * SEATS_PER_WAGON, reservedInDatabase);
+    }
+
+    @Test
+    void concurrentBuyersOfOverlappingSegmentsNeverShareASeat() throws Exception {
+        List<ReservationService> nodes = createNodes();
+        Station[][] trips = {
+                {Station.Szczecin, Station.Wroclaw},
+                {Station.Zielona_Gora, Station.Katowice},
+                {Station.Wroclaw, Station.Krakow},
+                {Station.Katowice, Station.Krakow}
+        };
+
+        ExecutorService executor = Executors.newFixedThreadPool(BUYERS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> purchases = new ArrayList<>();
+        for (int buyer = 0; buyer < BUYERS; buyer++) {
+            ReservationService node = nodes.get(buyer % NODES);
+            Station[] trip = trips[buyer % trips.length];
+            purchases.add(executor.submit(() -> {
+                start.await();
+                for (int attempt = 0; attempt < ATTEMPTS_PER_BUYER; attempt++) {
+                    node.reserveSegmentSeats(timetable, trip[0], trip[1], 2);
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> purchase : purchases) {
+            purchase.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        Map<Long, Long> soldSegmentsBySeat = new HashMap<>();
+        for (ReservedSegment reservedSegment : reservedSegmentRepository.findAll()) {
+            long seatId = reservedSegment.getSeat().getId();
+            long sold = soldSegmentsBySeat.getOrDefault(seatId, 0L);
+            assertEquals(0, sold & reservedSegment.getSegmentMask(), "Segment of seat " + seatId + " was sold twice");
+            soldSegmentsBySeat.put(seatId, sold | reservedSegment.getSegmentMask());
+        }
+        for (Seat seat : seatRepository.findAll()) {
+            assertEquals(soldSegmentsBySeat.getOrDefault(seat.getId(), 0L), seat.getSoldSegments());
+        }
+        assertTrue(soldSegmentsBySeat.size() > 0);
+    }
+
+    @Test
+    void releasedAndExpiredHoldsReturnTheirSeatsWhileConfirmedHoldsKeepThem() {
+        ReservationService node = createNodes().get(0);
+        SeatPreference preference = new SeatPreference();
+        preference.setNumberOfSeats(2);
+        LocalDateTime expiresAt = LocalDateTime.now().plusMinutes(5);
+
+        List<Seat> confirmed = node.holdSeats(timetable, preference, expiresAt);
+        List<Seat> released = node.holdSeats(timetable, preference, expiresAt);
+        List<Seat> expired = node.holdSeats(timetable, preference, LocalDateTime.now().minusSeconds(1));
+        long confirmedId = confirmed.get(0).getReservation().getId();
+        long releasedId = released.get(0).getReservation().getId();
+        long expiredId = expired.get(0).getReservation().getId();
+        String confirmedToken = confirmed.get(0).getReservation().getHoldToken();
+        String releasedToken = released.get(0).getReservation().getHoldToken();
+        String expiredToken = expired.get(0).getReservation().getHoldToken();
+
+        assertFalse(node.confirmHeldReservation(confirmedId, releasedToken));
+        assertFalse(node.releaseHeldReservation(releasedId, confirmedToken));
+        assertFalse(node.releaseHeldReservation(releasedId, null));
+        assertTrue(node.confirmHeldReservation(confirmedId, confirmedToken));
+        assertFalse(node.confirmHeldReservation(expiredId, expiredToken));
+        assertTrue(node.releaseHeldReservation(releasedId, releasedToken));
+        assertTrue(node.releaseHeldReservation(expiredId));
+        assertFalse(node.releaseHeldReservation(confirmedId, confirmedToken));
+        assertFalse(node.confirmHeldReservation(releasedId, releasedToken));
+        assertTrue(node.existHold(confirmedId, confirmedToken));
+        assertFalse(node.existHold(confirmedId, releasedToken));
+
+        assertEquals(2, seatRepository.findSeatsByReservationId(confirmedId).size());
+        assertFalse(reservationRepository.existsById(releasedId));
+        assertEquals(WAGONS * SEATS_PER_WAGON - 2, node.reserveSeats(timetable, WAGONS * SEATS_PER_WAGON - 2).size());
+    }
+
+    @Test
+    void rolledBackReleaseKeepsSeatsReservedInTheIndex() {
+        SeatAvailabilityService seatAvailabilityService = new SeatAvailabilityService(seatRepository);
+        SeatService seatService = new SeatService(seatRepository, reservedSegmentRepository, seatAvailabilityService);
+        ReservationService node = new ReservationService(reservationRepository, seatService, seatAvailabilityService,
+                seatDeltaFeed, transactionManager, true);
+        long reservationId = node.reserveSeats(timetable, 2).get(0).getReservation().getId();
+        int freeSeats = node.getSeatAvailability(timetable).getFreeSeats();
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            seatService.releaseSeatsByReservationId(reservationId);
+            status.setRollbackOnly();
+        });
+        assertEquals(freeSeats, node.getSeatAvailability(timetable).getFreeSeats());
+
+        node.deleteReservationById(reservationId);
+        assertEquals(freeSeats + 2, node.getSeatAvailability(timetable).getFreeSeats());
+    }
+
+    @Test
+    void availabilityFollowsSeatsSelectedInDatabase() {
+        ReservationService node = createNodes(false).get(0);
+        assertEquals(WAGONS * SEATS_PER_WAGON, node.getSeatAvailability(timetable).getFreeSeats());
+
+        List<Seat> seats = node.reserveSeats(timetable, 3);
+        assertNotNull(node.reserveSeat(timetable, SeatType.Window));
+        assertEquals(WAGONS * SEATS_PER_WAGON - 4, node.getSeatAvailability(timetable).getFreeSeats());
+
+        node.deleteReservationById(seats.get(0).getReservation().getId());
+        assertEquals(WAGONS * SEATS_PER_WAGON - 1, node.getSeatAvailability(timetable).getFreeSeats());
+    }
+
+    @Test
+    void seatsReleasedOnAnotherNodeAreSoldAgain() {
+        List<ReservationService> nodes = createNodes();
+        List<Seat> firstSeats = nodes.get(0).reserveSeats(timetable, 2);
+        for (int sold = 2; sold < WAGONS * SEATS_PER_WAGON; sold += 2) {
+            assertEquals(2, nodes.get(0).reserveSeats(timetable, 2).size());
+        }
+        assertEquals(0, nodes.get(1).getSeatAvailability(timetable).getFreeSeats());
+
+        nodes.get(0).deleteReservationById(firstSeats.get(0).getReservation().getId());
+
+        List<Seat> seats = nodes.get(1).reserveSeats(timetable, 2);
+        assertEquals(Set.copyOf(firstSeats.stream().map(Seat::getId).toList()),
+                Set.copyOf(seats.stream().map(Seat::getId).toList()));
+    }
+
+    @Test
+    void removingReservationOfSeatKeepsItsSoldSegments() {
+        SeatAvailabilityService seatAvailabilityService = new SeatAvailabilityService(seatRepository);
+        SeatService seatService = new SeatService(seatRepository, reservedSegmentRepository, seatAvailabilityService);
+        ReservationService node = new ReservationService(reservationRepository, seatService, seatAvailabilityService,
+                seatDeltaFeed, transactionManager, true);
+        long segmentMask = ReservationService.segmentMask(timetable, Station.Wroclaw, Station.Krakow);
+        Seat segmentSeat = node.reserveSegmentSeats(timetable, Station.Wroclaw, Station.Krakow, 1).get(0);
+        assertEquals(WAGONS * SEATS_PER_WAGON - 1, node.getSeatAvailability(timetable).getFreeSeats());
+
+        Seat request = seatRepository.findById(segmentSeat.getId()).orElseThrow();
+        request.setSoldSegments(0);
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> seatService.updateSeat(request));
+
+        assertEquals(segmentMask, seatRepository.findById(segmentSeat.getId()).orElseThrow().getSoldSegments());
+        assertEquals(WAGONS * SEATS_PER_WAGON - 1, node.getSeatAvailability(timetable).getFreeSeats());
+    }
+
+    @Test
+    void committedReservationsAndReleasesArePublished() {
+        ReservationService node = createNodes().get(0);
+        when(seatDeltaFeed.hasWatchers()).thenReturn(true);
+
+        List<Long> seatIds = node.reserveSeats(timetable, 2).stream().map(Seat::getId).toList();
+        List<Seat> segmentSeats = node.reserveSegmentSeats(timetable, Station.Wroclaw, Station.Krakow, 1);
+        long segmentMask = ReservationService.segmentMask(timetable, Station.Wroclaw, Station.Krakow);
+        long reservationId = seatRepository.findById(seatIds.get(0)).orElseThrow().getReservation().getId();
+        long segmentReservationId = reservedSegmentRepository.findAll().get(0).getReservation().getId();
+        node.deleteReservationById(reservationId);
+        node.deleteReservationById(segmentReservationId);
+
+        List<Long> segmentSeatIds = List.of(segmentSeats.get(0).getId());
+        verify(seatDeltaFeed).publish(timetable.getId(), reservationId, SeatDeltaType.Reserved,
+                TimetableSeats.WHOLE_TIMETABLE, seatIds);
+        verify(seatDeltaFeed).publish(timetable.getId(), segmentReservationId, SeatDeltaType.Reserved, segmentMask, segmentSeatIds);
+        verify(seatDeltaFeed).publish(eq(timetable.getId()), eq(reservationId), eq(SeatDeltaType.Released),
+                eq(TimetableSeats.WHOLE_TIMETABLE), argThat(released -> new HashSet<>(released).equals(new HashSet<>(seatIds))));
+        verify(seatDeltaFeed).publish(timetable.getId(), segmentReservationId, SeatDeltaType.Released, segmentMask, segmentSeatIds);
+    }
+
+    @Test
+    void segmentMaskCoversStopsBetweenStations() {
+        assertEquals(0b0011, ReservationService.segmentMask(timetable, Station.Szczecin, Station.Wroclaw));
+        assertEquals(0b1100, ReservationService.segmentMask(timetable, Station.Wroclaw, Station.Krakow));
+        assertEquals(0b1111, ReservationService.segmentMask(timetable, Station.Szczecin, Station.Krakow));
+        assertEquals(0, ReservationService.segmentMask(timetable, Station.Krakow, Station.Szczecin));
+        assertEquals(0, ReservationService.segmentMask(timetable, Station.Gdansk, Station.Krakow));
+    }
+
+    private List<ReservationService> createNodes() {
+        return createNodes(true);
+    }
+
+    /**
+     * Every node has its own availability index, so nodes compete on the seats table.
+     */
+    private List<ReservationService> createNodes(boolean seatAvailabilityIndexEnabled) {
+        List<ReservationService> nodes = new ArrayList<>();
+        for (int i = 0; i < NODES; i++) {
+            SeatAvailabilityService seatAvailabilityService = new SeatAvailabilityService(seatRepository);
+            SeatService seatService = new SeatService(seatRepository, reservedSegmentRepository, seatAvailabilityService);
+            nodes.add(new ReservationService(reservationRepository, seatService, seatAvailabilityService, seatDeltaFeed,
+                    transactionManager, seatAvailabilityIndexEnabled));
+        }
+        return nodes;
+    }
+}
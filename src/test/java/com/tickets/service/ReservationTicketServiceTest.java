@@ -0,0 +1,132 @@
+package com.tickets.service;
+
+import com.tickets.model.Reservation;
+import com.tickets.model.ReservationTicket;
+import com.tickets.model.Seat;
+import com.tickets.model.Timetable;
+import com.tickets.model.enums.ReservationStatus;
+import com.tickets.repository.ReservationTicketRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ReservationTicketServiceTest {
+    private ReservationQueueService reservationQueueServiceMock;
+    private ReservationTicketRepository reservationTicketRepositoryMock;
+    private SeatService seatServiceMock;
+    private ReservationTicketService reservationTicketService;
+    private Timetable timetable;
+
+    @BeforeEach
+    void setUp() {
+        reservationQueueServiceMock = mock(ReservationQueueService.class);
+        reservationTicketRepositoryMock = mock(ReservationTicketRepository.class);
+        seatServiceMock = mock(SeatService.class);
+        reservationTicketService = newNode();
+        timetable = new Timetable();
+        timetable.setId(1);
+    }
+
+    @Test
+    void testTicketIsPendingUntilSeatsAreAllocated() {
+        CompletableFuture<List<Seat>> reservation = new CompletableFuture<>();
+        when(reservationQueueServiceMock.submit(timetable, 2)).thenReturn(reservation);
+
+        ReservationTicket ticket = reservationTicketService.submit(timetable, 2);
+
+        assertEquals(ReservationStatus.Pending, reservationTicketService.getTicket(ticket.getId()).getStatus());
+        CompletableFuture<ReservationTicket> outcome = reservationTicketService.getOutcome(ticket.getId());
+        assertFalse(outcome.isDone());
+
+        reservation.complete(List.of(reservedSeat(7), reservedSeat(7)));
+
+        assertTrue(outcome.isDone());
+        assertEquals(ReservationStatus.Reserved, ticket.getStatus());
+        assertEquals(2, reservationTicketService.getTicket(ticket.getId()).getSeats().size());
+        assertEquals(7, ticket.getReservationId());
+        verify(reservationTicketRepositoryMock, times(2)).save(ticket);
+    }
+
+    @Test
+    void testTicketIssuedByAnotherNodeIsReadFromTheDatabase() throws Exception {
+        CompletableFuture<List<Seat>> reservation = new CompletableFuture<>();
+        when(reservationQueueServiceMock.submit(timetable, 2)).thenReturn(reservation);
+        ReservationTicket ticket = reservationTicketService.submit(timetable, 2);
+        ReservationTicket stored = storedCopy(ticket);
+        when(reservationTicketRepositoryMock.findById(ticket.getId())).thenReturn(Optional.of(stored));
+        ReservationTicketService otherNode = newNode();
+
+        assertEquals(ReservationStatus.Pending, otherNode.getTicket(ticket.getId()).getStatus());
+        CompletableFuture<ReservationTicket> outcome = otherNode.getOutcome(ticket.getId());
+        assertFalse(outcome.isDone());
+
+        List<Seat> seats = List.of(reservedSeat(7), reservedSeat(7));
+        when(seatServiceMock.getSeatsByReservationId(7)).thenReturn(seats);
+        stored.setReservationId(7L);
+        stored.setStatus(ReservationStatus.Reserved);
+
+        assertEquals(seats, outcome.get(5, TimeUnit.SECONDS).getSeats());
+        assertEquals(seats, otherNode.getTicket(ticket.getId()).getSeats());
+    }
+
+    @Test
+    void testExpiredTicketIsNotAnswered() {
+        ReservationTicket stored = new ReservationTicket();
+        stored.setId("expired");
+        stored.setExpiresAt(LocalDateTime.now().minusSeconds(1));
+        when(reservationTicketRepositoryMock.findById("expired")).thenReturn(Optional.of(stored));
+
+        assertNull(reservationTicketService.getTicket("expired"));
+        assertNull(reservationTicketService.getOutcome("expired"));
+    }
+
+    @Test
+    void testTicketReportsMissingSeatsAndFailures() {
+        when(reservationQueueServiceMock.submit(timetable, 2)).thenReturn(CompletableFuture.completedFuture(List.of()));
+        when(reservationQueueServiceMock.submit(timetable, 3)).thenReturn(CompletableFuture.failedFuture(new IllegalStateException()));
+
+        assertEquals(ReservationStatus.Not_Enough_Seats, reservationTicketService.submit(timetable, 2).getStatus());
+        assertEquals(ReservationStatus.Failed, reservationTicketService.submit(timetable, 3).getStatus());
+    }
+
+    @Test
+    void testFullQueueIssuesNoTicket() {
+        when(reservationQueueServiceMock.submit(timetable, 2)).thenReturn(null);
+
+        assertNull(reservationTicketService.submit(timetable, 2));
+        assertNull(reservationTicketService.getTicket("unknown"));
+        assertNull(reservationTicketService.getOutcome("unknown"));
+        verify(reservationTicketRepositoryMock).deleteById(any());
+    }
+
+    private ReservationTicketService newNode() {
+        return new ReservationTicketService(reservationQueueServiceMock, reservationTicketRepositoryMock, seatServiceMock,
+                100, Duration.ofMinutes(1), Duration.ofMillis(10));
+    }
+
+    private static Seat reservedSeat(long reservationId) {
+        Reservation reservation = new Reservation();
+        reservation.setId(reservationId);
+        Seat seat = new Seat();
+        seat.setReservation(reservation);
+        return seat;
+    }
+
+    private static ReservationTicket storedCopy(ReservationTicket ticket) {
+        ReservationTicket stored = new ReservationTicket();
+        stored.setId(ticket.getId());
+        stored.setTimetableId(ticket.getTimetableId());
+        stored.setNumberOfSeats(ticket.getNumberOfSeats());
+        stored.setExpiresAt(ticket.getExpiresAt());
+        return stored;
+    }
+}
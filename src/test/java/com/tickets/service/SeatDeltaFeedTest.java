@@ -0,0 +1,37 @@
+package com.tickets.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SeatDeltaFeedTest {
+    private SeatDeltaFeed seatDeltaFeed;
+
+    @BeforeEach
+    void setUp() {
+        seatDeltaFeed = new SeatDeltaFeed(new ObjectMapper(), 16, Duration.ofMinutes(1), Duration.ofMinutes(1));
+    }
+
+    @AfterEach
+    void tearDown() {
+        seatDeltaFeed.shutdown();
+    }
+
+    @Test
+    void closingDeletedTimetableDropsItsWatchers() {
+        seatDeltaFeed.watch(1, null);
+        seatDeltaFeed.watch(1, null);
+        seatDeltaFeed.watch(2, null);
+
+        seatDeltaFeed.close(2);
+        assertTrue(seatDeltaFeed.hasWatchers());
+
+        seatDeltaFeed.close(1);
+        assertFalse(seatDeltaFeed.hasWatchers());
+    }
+}
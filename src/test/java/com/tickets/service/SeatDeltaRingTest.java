@@ -0,0 +1,61 @@
+package com.tickets.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SeatDeltaRingTest {
+
+    @Test
+    void changesAreReadInOrderOfPublishing() {
+        SeatDeltaRing ring = new SeatDeltaRing(4, 100);
+
+        assertEquals(100, ring.publish("a"));
+        assertEquals(101, ring.publish("b"));
+
+        assertEquals(102, ring.published());
+        assertEquals("a", ring.get(100));
+        assertEquals("b", ring.get(101));
+        assertNull(ring.get(99));
+    }
+
+    @Test
+    void overwrittenChangesAreNotReturned() {
+        SeatDeltaRing ring = new SeatDeltaRing(3, 0);
+        for (int i = 0; i < 6; i++) {
+            ring.publish("change " + i);
+        }
+
+        assertNull(ring.get(0));
+        assertNull(ring.get(1));
+        assertEquals("change 2", ring.get(2));
+        assertEquals("change 5", ring.get(5));
+    }
+
+    @Test
+    void watcherCanResumeWhileItsNextChangeIsBuffered() {
+        SeatDeltaRing ring = new SeatDeltaRing(4, 0);
+        assertTrue(ring.canResumeAfter(-1));
+        assertFalse(ring.canResumeAfter(0));
+
+        for (int i = 0; i < 6; i++) {
+            ring.publish("change " + i);
+        }
+
+        assertFalse(ring.canResumeAfter(0));
+        assertTrue(ring.canResumeAfter(1));
+        assertTrue(ring.canResumeAfter(5));
+        assertFalse(ring.canResumeAfter(6));
+        assertFalse(ring.canResumeAfter(-1));
+    }
+
+    @Test
+    void watcherOfAnEarlierRingCannotResume() {
+        SeatDeltaRing ring = new SeatDeltaRing(4, 1_000);
+        ring.publish("change");
+
+        assertTrue(ring.canResumeAfter(999));
+        assertFalse(ring.canResumeAfter(998));
+        assertFalse(ring.canResumeAfter(-1));
+    }
+}
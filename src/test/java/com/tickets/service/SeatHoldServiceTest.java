@@ -0,0 +1,111 @@
+package com.tickets.service;
+
+import com.tickets.model.Reservation;
+import com.tickets.model.Seat;
+import com.tickets.model.SeatHold;
+import com.tickets.model.SeatPreference;
+import com.tickets.model.Timetable;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class SeatHoldServiceTest {
+    private static final Duration HOLD_DURATION = Duration.ofMinutes(5);
+
+    private ReservationService reservationServiceMock;
+    private SeatHoldService seatHoldService;
+    private Timetable timetable;
+    private SeatPreference preference;
+
+    @BeforeEach
+    void setUp() {
+        reservationServiceMock = mock(ReservationService.class);
+        seatHoldService = new SeatHoldService(reservationServiceMock, HOLD_DURATION, Duration.ofSeconds(1), 64);
+        timetable = new Timetable();
+        timetable.setId(1);
+        preference = new SeatPreference();
+        preference.setNumberOfSeats(2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        seatHoldService.shutdown();
+    }
+
+    @Test
+    void testHoldIsReleasedWhenItExpires() {
+        when(reservationServiceMock.holdSeats(eq(timetable), eq(preference), any())).thenReturn(seats(7L));
+
+        SeatHold hold = seatHoldService.hold(timetable, preference);
+        assertEquals(7L, hold.getReservationId());
+        assertEquals("token", hold.getHoldToken());
+
+        seatHoldService.expireHolds(System.currentTimeMillis());
+        verify(reservationServiceMock, never()).releaseHeldReservation(7L);
+
+        seatHoldService.expireHolds(System.currentTimeMillis() + HOLD_DURATION.toMillis() + 1_000);
+        verify(reservationServiceMock, timeout(5_000)).releaseHeldReservation(7L);
+    }
+
+    @Test
+    void testConfirmedHoldIsNotReleased() {
+        when(reservationServiceMock.holdSeats(eq(timetable), eq(preference), any())).thenReturn(seats(7L));
+        when(reservationServiceMock.confirmHeldReservation(7L, "token")).thenReturn(true);
+
+        seatHoldService.hold(timetable, preference);
+        assertTrue(seatHoldService.confirm(7L, "token"));
+        seatHoldService.expireHolds(System.currentTimeMillis() + HOLD_DURATION.toMillis() + 1_000);
+
+        verify(reservationServiceMock, after(200).never()).releaseHeldReservation(7L);
+    }
+
+    @Test
+    void testHoldWhoseReleaseFailedStillExpires() {
+        when(reservationServiceMock.holdSeats(eq(timetable), eq(preference), any())).thenReturn(seats(7L));
+        when(reservationServiceMock.releaseHeldReservation(7L, "token")).thenThrow(new IllegalStateException("Database is down"));
+
+        seatHoldService.hold(timetable, preference);
+        assertThrows(IllegalStateException.class, () -> seatHoldService.release(7L, "token"));
+        seatHoldService.expireHolds(System.currentTimeMillis() + HOLD_DURATION.toMillis() + 1_000);
+
+        verify(reservationServiceMock, timeout(5_000)).releaseHeldReservation(7L);
+    }
+
+    @Test
+    void testHoldWithoutSeatsIsNotScheduled() {
+        when(reservationServiceMock.holdSeats(eq(timetable), eq(preference), any())).thenReturn(List.of());
+
+        assertNull(seatHoldService.hold(timetable, preference));
+    }
+
+    @Test
+    void testHoldsMadeBeforeRestartAreExpired() {
+        Reservation held = new Reservation();
+        held.setId(3L);
+        held.setHoldExpiresAt(LocalDateTime.now().minusMinutes(1));
+        when(reservationServiceMock.getHeldReservations()).thenReturn(List.of(held));
+
+        seatHoldService.start();
+
+        verify(reservationServiceMock, timeout(5_000)).releaseHeldReservation(3L);
+    }
+
+    private static List<Seat> seats(long reservationId) {
+        Reservation reservation = new Reservation();
+        reservation.setId(reservationId);
+        reservation.setHoldToken("token");
+        Seat first = new Seat();
+        first.setReservation(reservation);
+        Seat second = new Seat();
+        second.setReservation(reservation);
+        return List.of(first, second);
+    }
+}
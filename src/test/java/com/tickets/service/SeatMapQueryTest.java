@@ -0,0 +1,170 @@
+package com.tickets.service;
+
+import com.tickets.model.*;
+import com.tickets.model.enums.SeatType;
+import com.tickets.model.enums.Station;
+import com.tickets.model.enums.WagonType;
+import com.tickets.repository.*;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Guards the number of SQL statements of the queries used on the reservation path.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.sql.init.platform=h2",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class SeatMapQueryTest {
+    private static final int TIMETABLES = 5;
+    private static final int WAGONS = 3;
+    private static final int SEATS_PER_WAGON = 10;
+
+    @Autowired
+    private TimetableRepository timetableRepository;
+    @Autowired
+    private TrainRepository trainRepository;
+    @Autowired
+    private WagonRepository wagonRepository;
+    @Autowired
+    private SeatRepository seatRepository;
+    @Autowired
+    private ReservationRepository reservationRepository;
+    @Autowired
+    private ReservedSegmentRepository reservedSegmentRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Timetable timetable;
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        reservedSegmentRepository.deleteAll();
+        seatRepository.deleteAll();
+        reservationRepository.deleteAll();
+        wagonRepository.deleteAll();
+        trainRepository.deleteAll();
+        timetableRepository.deleteAll();
+
+        for (int hour = 0; hour < TIMETABLES; hour++) {
+            Timetable added = new Timetable();
+            added.setStartStation(Station.Szczecin);
+            added.setEndStation(Station.Krakow);
+            added.setStartTime(LocalDateTime.of(2023, 8, 20, 8 + hour, 0));
+            added.setEndTime(LocalDateTime.of(2023, 8, 20, 15 + hour, 0));
+            added = timetableRepository.save(added);
+            Train train = new Train();
+            train.setTimetable(added);
+            train = trainRepository.save(train);
+            for (int wagonNumber = 1; wagonNumber <= WAGONS; wagonNumber++) {
+                Wagon wagon = new Wagon();
+                wagon.setWagonNumber(wagonNumber);
+                wagon.setWagonType(WagonType.Open_Coach);
+                wagon.setTrain(train);
+                wagon = wagonRepository.save(wagon);
+                for (int seatNumber = 1; seatNumber <= SEATS_PER_WAGON; seatNumber++) {
+                    Seat seat = new Seat();
+                    seat.setSeatNumber(seatNumber);
+                    seat.setSeatType(SeatType.values()[seatNumber % 3]);
+                    seat.setWagon(wagon);
+                    seatRepository.save(seat);
+                }
+            }
+            timetable = added;
+        }
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void warmingSeatAvailabilityOfTimetableTakesOneStatement() {
+        SeatAvailabilityService seatAvailabilityService = new SeatAvailabilityService(seatRepository);
+
+        List<Seat> seats = seatAvailabilityService.takeSeats(timetable.getId(), WAGONS * SEATS_PER_WAGON);
+
+        assertEquals(WAGONS * SEATS_PER_WAGON, seats.size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    void claimingFreeSeatsInDatabaseLoadsOnlyTheClaimedSeats() {
+        SeatService seatService = new SeatService(seatRepository, reservedSegmentRepository,
+                new SeatAvailabilityService(seatRepository));
+        Reservation reservation = reservationRepository.save(new Reservation());
+        statistics.clear();
+
+        List<Seat> seats = new TransactionTemplate(transactionManager).execute(status ->
+                seatService.claimFreeSeats(timetable.getId(), 3, reservation));
+
+        assertEquals(3, seats.size());
+        assertEquals(3, statistics.getEntityLoadCount());
+        assertEquals(3, seatRepository.findSeatsByReservationId(reservation.getId()).size());
+    }
+
+    @Test
+    void seatMapMarksReservedSeats() {
+        Reservation reservation = reservationRepository.save(new Reservation());
+        long reservedSeatId = seatRepository.findSeatMapByTimetableId(timetable.getId()).get(0).getSeatId();
+        Seat reserved = seatRepository.findById(reservedSeatId).orElseThrow();
+        reserved.setReservation(reservation);
+        seatRepository.save(reserved);
+        statistics.clear();
+
+        List<SeatMapEntry> seatMap = seatRepository.findSeatMapByTimetableId(timetable.getId());
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(WAGONS * SEATS_PER_WAGON, seatMap.size());
+        assertEquals(1, seatMap.stream().filter(entry -> entry.getReservationId() != null).count());
+        assertEquals(1, seatMap.get(0).getWagonNumber());
+        assertEquals(WAGONS, seatMap.get(seatMap.size() - 1).getWagonNumber());
+    }
+
+    @Test
+    void searchingTimetablesLoadsTheirTrainsInOneStatement() {
+        List<Timetable> timetables = timetableRepository.findAllByStartStationAndEndStation(Station.Szczecin, Station.Krakow);
+
+        assertEquals(TIMETABLES, timetables.size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+        for (Timetable found : timetables) {
+            assertTrue(Hibernate.isInitialized(found.getTrain()));
+            assertNotNull(found.getTrain());
+        }
+    }
+
+    @Test
+    void loadingAllTimetablesTakesOneStatement() {
+        assertEquals(TIMETABLES, timetableRepository.findAll().size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void findingTimetableByStartTimeTakesOneStatement() {
+        Timetable found = timetableRepository.findFirstByStartStationAndEndStationAndStartTimeOrderByIdAsc(
+                Station.Szczecin, Station.Krakow, timetable.getStartTime());
+
+        assertEquals(timetable.getId(), found.getId());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+}
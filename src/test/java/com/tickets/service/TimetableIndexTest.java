@@ -0,0 +1,80 @@
+package com.tickets.service;
+
+import com.tickets.model.Timetable;
+import com.tickets.model.enums.Station;
+import com.tickets.repository.TimetableRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class TimetableIndexTest {
+    private static final LocalDateTime MORNING = LocalDateTime.of(2023, 8, 20, 7, 0);
+
+    private TimetableRepository timetableRepository;
+    private TimetableIndex timetableIndex;
+
+    @BeforeEach
+    void setUp() {
+        timetableRepository = mock(TimetableRepository.class);
+        timetableIndex = new TimetableIndex(timetableRepository, Duration.ofMinutes(1));
+    }
+
+    @Test
+    void updatedTimetableIsMovedFromItsPreviousEntry() {
+        timetableIndex.put(timetable(1, Station.Szczecin, Station.Krakow, MORNING));
+
+        timetableIndex.put(timetable(1, Station.Szczecin, Station.Gdansk, MORNING.plusHours(1)));
+
+        assertNull(timetableIndex.get(Station.Szczecin, Station.Krakow, MORNING));
+        assertEquals(1, timetableIndex.get(Station.Szczecin, Station.Gdansk, MORNING.plusHours(1)).getId());
+        assertEquals(1, timetableIndex.getAll().size());
+    }
+
+    @Test
+    void removingTimetableKeepsAnotherOneWithTheSameStartTime() {
+        timetableIndex.put(timetable(1, Station.Szczecin, Station.Krakow, MORNING));
+        Timetable replacement = timetable(2, Station.Szczecin, Station.Krakow, MORNING);
+        timetableIndex.put(replacement);
+
+        timetableIndex.remove(timetable(1, Station.Szczecin, Station.Krakow, MORNING));
+
+        assertEquals(List.of(replacement), timetableIndex.getByStartAndEndStation(Station.Szczecin, Station.Krakow));
+    }
+
+    @Test
+    void timetablesWithTheSameStationsAndStartTimeAreBothKept() {
+        Timetable first = timetable(1, Station.Szczecin, Station.Krakow, MORNING);
+        Timetable second = timetable(2, Station.Szczecin, Station.Krakow, MORNING);
+        timetableIndex.put(second);
+        timetableIndex.put(first);
+
+        assertEquals(List.of(first, second), timetableIndex.getByStartAndEndStation(Station.Szczecin, Station.Krakow));
+        assertEquals(first, timetableIndex.get(Station.Szczecin, Station.Krakow, MORNING));
+    }
+
+    @Test
+    void refreshPicksUpTimetablesChangedOnOtherNodes() {
+        timetableIndex.put(timetable(1, Station.Szczecin, Station.Krakow, MORNING));
+        Timetable added = timetable(2, Station.Szczecin, Station.Gdansk, MORNING);
+        when(timetableRepository.findAll()).thenReturn(List.of(added));
+
+        assertTrue(timetableIndex.refresh());
+
+        assertEquals(List.of(added), timetableIndex.getAll());
+    }
+
+    private static Timetable timetable(long id, Station startStation, Station endStation, LocalDateTime startTime) {
+        Timetable timetable = new Timetable();
+        timetable.setId(id);
+        timetable.setStartStation(startStation);
+        timetable.setEndStation(endStation);
+        timetable.setStartTime(startTime);
+        return timetable;
+    }
+}
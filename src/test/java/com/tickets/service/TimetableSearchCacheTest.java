@@ -0,0 +1,75 @@
+package com.tickets.service;
+
+import com.tickets.model.Timetable;
+import com.tickets.model.enums.Station;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimetableSearchCacheTest {
+    private TimetableSearchCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new TimetableSearchCache(100, Duration.ofMinutes(10), Duration.ofSeconds(5));
+    }
+
+    @Test
+    void cachedSearchMatchesItsETag() {
+        String eTag = cache.getByStartAndEndStation(Station.Bydgoszcz, Station.Gdansk, () -> List.of(timetable(1))).getETag();
+
+        assertEquals(eTag, cache.matchETag(Station.Bydgoszcz, Station.Gdansk, eTag, List::of));
+        assertEquals(eTag, cache.matchETag(Station.Bydgoszcz, Station.Gdansk, "\"other\", W/" + eTag, List::of));
+        assertNull(cache.matchETag(Station.Bydgoszcz, Station.Gdansk, "\"other\"", List::of));
+        assertNull(cache.matchETag(Station.Bydgoszcz, Station.Gdansk, null, List::of));
+        assertNull(cache.matchETag(Station.Bydgoszcz, Station.Katowice, eTag, () -> List.of(timetable(2))));
+    }
+
+    @Test
+    void changedTimetablesChangeETagOfBothSearches() {
+        String startStationETag = cache.getByStartStation(Station.Bydgoszcz, () -> List.of(timetable(1))).getETag();
+        String stationPairETag = cache.getByStartAndEndStation(Station.Bydgoszcz, Station.Gdansk,
+                () -> List.of(timetable(1))).getETag();
+        String otherPairETag = cache.getByStartAndEndStation(Station.Bydgoszcz, Station.Katowice,
+                () -> List.of(timetable(2))).getETag();
+
+        cache.invalidate(Station.Bydgoszcz, Station.Gdansk);
+
+        assertNull(cache.matchETag(Station.Bydgoszcz, startStationETag, () -> List.of(timetable(1), timetable(3))));
+        assertNotEquals(stationPairETag, cache.getByStartAndEndStation(Station.Bydgoszcz, Station.Gdansk,
+                () -> List.of(timetable(1), timetable(3))).getETag());
+        assertEquals(otherPairETag, cache.matchETag(Station.Bydgoszcz, Station.Katowice, otherPairETag, List::of));
+    }
+
+    @Test
+    void unchangedTimetablesKeepTheirETagAcrossReloadsAndNodes() {
+        String eTag = cache.getByStartStation(Station.Bydgoszcz, () -> List.of(timetable(1))).getETag();
+        TimetableSearchCache otherNode = new TimetableSearchCache(100, Duration.ofMinutes(10), Duration.ofSeconds(5));
+
+        cache.invalidate(Station.Bydgoszcz, Station.Gdansk);
+
+        assertEquals(eTag, cache.matchETag(Station.Bydgoszcz, eTag, () -> List.of(timetable(1))));
+        assertEquals(eTag, otherNode.matchETag(Station.Bydgoszcz, eTag, () -> List.of(timetable(1))));
+    }
+
+    @Test
+    void emptySearchNeverMatches() {
+        cache.getByStartStation(Station.Bydgoszcz, List::of);
+
+        assertNull(cache.matchETag(Station.Bydgoszcz, "*", List::of));
+    }
+
+    private static Timetable timetable(long id) {
+        Timetable timetable = new Timetable();
+        timetable.setId(id);
+        timetable.setStartStation(Station.Bydgoszcz);
+        timetable.setEndStation(Station.Gdansk);
+        timetable.setStartTime(LocalDateTime.of(2023, 8, 20, 7, 0).plusHours(id));
+        return timetable;
+    }
+}
@@ -0,0 +1,174 @@
+package com.tickets.service;
+
+import com.tickets.model.Seat;
+import com.tickets.model.SeatAvailability;
+import com.tickets.model.SeatMapEntry;
+import com.tickets.model.SeatPreference;
+import com.tickets.model.enums.SeatAllocationPolicy;
+import com.tickets.model.enums.SeatType;
+import com.tickets.model.enums.WagonType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimetableSeatsTest {
+    /**
+     * Seat types of every wagon by seat number, seat numbers start at 1.
+     */
+    private static final SeatType[] OPEN_COACH = {SeatType.Window, SeatType.Middle, SeatType.Corridor,
+            SeatType.Corridor, SeatType.Middle, SeatType.Window};
+    private static final SeatType[] COMPARTMENT = {SeatType.Window, SeatType.Corridor, SeatType.Window, SeatType.Corridor};
+
+    private TimetableSeats timetableSeats;
+
+    @BeforeEach
+    void setUp() {
+        List<SeatMapEntry> seatMap = new ArrayList<>();
+        addWagon(seatMap, 1, WagonType.Open_Coach, OPEN_COACH);
+        addWagon(seatMap, 2, WagonType.Compartment, COMPARTMENT);
+        timetableSeats = new TimetableSeats(seatMap);
+    }
+
+    @Test
+    void exactSeatTypeDoesNotFallBack() {
+        List<Seat> seats = timetableSeats.allocate(preference(3, SeatType.Window, null, SeatAllocationPolicy.Exact_Seat_Type));
+        assertEquals(3, seats.size());
+        seats.forEach(seat -> assertEquals(SeatType.Window, seat.getSeatType()));
+
+        assertEquals(1, timetableSeats.allocate(preference(1, SeatType.Window, null, SeatAllocationPolicy.Exact_Seat_Type)).size());
+        assertTrue(timetableSeats.allocate(preference(1, SeatType.Window, null, SeatAllocationPolicy.Exact_Seat_Type)).isEmpty());
+        assertTrue(timetableSeats.allocate(preference(1, SeatType.Couchette, null, SeatAllocationPolicy.Exact_Seat_Type)).isEmpty());
+    }
+
+    @Test
+    void nearestSeatTypeFallsBackFromWindowToCorridorToMiddle() {
+        timetableSeats.allocate(preference(4, SeatType.Window, null, SeatAllocationPolicy.Exact_Seat_Type));
+
+        List<Seat> seats = timetableSeats.allocate(preference(5, SeatType.Window, null, SeatAllocationPolicy.Nearest_Seat_Type));
+
+        assertEquals(List.of(SeatType.Corridor, SeatType.Corridor, SeatType.Corridor, SeatType.Corridor, SeatType.Middle),
+                seats.stream().map(Seat::getSeatType).toList());
+    }
+
+    @Test
+    void wagonTypeIsPreferred() {
+        List<Seat> seats = timetableSeats.allocate(preference(2, null, WagonType.Compartment, SeatAllocationPolicy.Wagon_Type));
+
+        assertEquals(List.of(201L, 202L), seats.stream().map(Seat::getId).toList());
+    }
+
+    @Test
+    void sameWagonSkipsWagonsWithoutEnoughSeats() {
+        timetableSeats.allocate(preference(3, null, WagonType.Compartment, SeatAllocationPolicy.Wagon_Type));
+
+        List<Seat> seats = timetableSeats.allocate(preference(2, null, WagonType.Compartment,
+                SeatAllocationPolicy.Wagon_Type, SeatAllocationPolicy.Same_Wagon));
+
+        assertEquals(List.of(101L, 102L), seats.stream().map(Seat::getId).toList());
+    }
+
+    @Test
+    void adjacentSeatsHaveConsecutiveSeatNumbers() {
+        timetableSeats.allocate(preference(1, SeatType.Corridor, null, SeatAllocationPolicy.Exact_Seat_Type));
+
+        List<Seat> seats = timetableSeats.allocate(preference(3, null, null, SeatAllocationPolicy.Adjacent_Seats));
+
+        assertEquals(List.of(104L, 105L, 106L), seats.stream().map(Seat::getId).toList());
+        assertTrue(timetableSeats.allocate(preference(5, null, null, SeatAllocationPolicy.Adjacent_Seats)).isEmpty());
+    }
+
+    @Test
+    void keepTogetherPrefersRunThenOneWagonThenNeighbouringWagons() {
+        timetableSeats.allocate(preference(1, SeatType.Corridor, null, SeatAllocationPolicy.Exact_Seat_Type));
+
+        List<Seat> run = timetableSeats.allocate(preference(3, null, null, SeatAllocationPolicy.Keep_Together));
+        assertEquals(List.of(104L, 105L, 106L), run.stream().map(Seat::getId).toList());
+
+        timetableSeats.allocate(preference(1, null, WagonType.Compartment, SeatAllocationPolicy.Wagon_Type));
+        List<Seat> oneWagon = timetableSeats.allocate(preference(2, null, null, SeatAllocationPolicy.Keep_Together));
+        assertEquals(List.of(101L, 102L), oneWagon.stream().map(Seat::getId).toList());
+
+        timetableSeats.release(List.of(101L), TimetableSeats.WHOLE_TIMETABLE);
+        List<Seat> neighbouringWagons = timetableSeats.allocate(preference(4, null, null, SeatAllocationPolicy.Keep_Together));
+        assertEquals(List.of(101L, 202L, 203L, 204L), neighbouringWagons.stream().map(Seat::getId).toList());
+    }
+
+    @Test
+    void releasedSeatsCanBeAllocatedAgain() {
+        List<Seat> seats = timetableSeats.allocate(preference(10, null, null));
+        assertEquals(10, seats.size());
+        assertTrue(timetableSeats.allocate(preference(1, null, null)).isEmpty());
+
+        timetableSeats.release(List.of(103L, 204L), TimetableSeats.WHOLE_TIMETABLE);
+
+        List<Seat> released = timetableSeats.allocate(preference(2, SeatType.Corridor, null, SeatAllocationPolicy.Exact_Seat_Type));
+        assertEquals(List.of(103L, 204L), released.stream().map(Seat::getId).toList());
+    }
+
+    @Test
+    void seatsWithSoldSegmentsAreNotAllocated() {
+        timetableSeats.take(6, 0b01);
+
+        List<Seat> seats = timetableSeats.allocate(preference(4, null, null));
+
+        assertEquals(List.of(201L, 202L, 203L, 204L), seats.stream().map(Seat::getId).toList());
+        assertEquals(6, timetableSeats.take(6, 0b10).size());
+    }
+
+    @Test
+    void seatsReservedWithoutTheIndexAreNotAllocated() {
+        timetableSeats.reserve(List.of(101L, 102L, 999L), TimetableSeats.WHOLE_TIMETABLE);
+
+        assertEquals(8, timetableSeats.availability().getFreeSeats());
+        List<Long> allocated = timetableSeats.allocate(preference(8, null, null)).stream().map(Seat::getId).toList();
+        assertFalse(allocated.contains(101L) || allocated.contains(102L));
+    }
+
+    @Test
+    void takingMoreSeatsThanTheTimetableHasTakesNone() {
+        assertTrue(timetableSeats.take(Integer.MAX_VALUE, 0b01).isEmpty());
+        assertEquals(10, timetableSeats.take(10, 0b01).size());
+    }
+
+    @Test
+    void availabilityCountsFreeSeatsBySeatTypeAndWagonType() {
+        timetableSeats.allocate(preference(2, SeatType.Window, null, SeatAllocationPolicy.Exact_Seat_Type));
+        timetableSeats.take(1, 0b01);
+
+        SeatAvailability availability = timetableSeats.availability();
+
+        assertEquals(7, availability.getFreeSeats());
+        assertEquals(2, availability.getFreeSeatsBySeatType().get(SeatType.Window));
+        assertEquals(1, availability.getFreeSeatsBySeatType().get(SeatType.Middle));
+        assertEquals(4, availability.getFreeSeatsBySeatType().get(SeatType.Corridor));
+        assertEquals(0, availability.getFreeSeatsBySeatType().get(SeatType.Couchette));
+        assertEquals(3, availability.getFreeSeatsByWagonType().get(WagonType.Open_Coach));
+        assertEquals(4, availability.getFreeSeatsByWagonType().get(WagonType.Compartment));
+
+        timetableSeats.release(List.of(101L, 102L, 106L), TimetableSeats.WHOLE_TIMETABLE);
+
+        assertEquals(10, timetableSeats.availability().getFreeSeats());
+        assertEquals(6, timetableSeats.availability().getFreeSeatsByWagonType().get(WagonType.Open_Coach));
+    }
+
+    private static void addWagon(List<SeatMapEntry> seatMap, int wagonNumber, WagonType wagonType, SeatType[] seatTypes) {
+        for (int seatNumber = 1; seatNumber <= seatTypes.length; seatNumber++) {
+            seatMap.add(new SeatMapEntry(wagonNumber * 100L + seatNumber, seatNumber, seatTypes[seatNumber - 1],
+                    wagonNumber, wagonNumber, wagonType, null, 0));
+        }
+    }
+
+    private static SeatPreference preference(int numberOfSeats, SeatType seatType, WagonType wagonType,
+                                             SeatAllocationPolicy... policies) {
+        SeatPreference preference = new SeatPreference();
+        preference.setNumberOfSeats(numberOfSeats);
+        preference.setSeatType(seatType);
+        preference.setWagonType(wagonType);
+        preference.setPolicies(List.of(policies));
+        return preference;
+    }
+}
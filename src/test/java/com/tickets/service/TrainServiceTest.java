@@ -0,0 +1,49 @@
+package com.tickets.service;
+
+import com.tickets.model.TrainLayout;
+import com.tickets.model.WagonLayout;
+import com.tickets.model.enums.SeatType;
+import com.tickets.model.enums.WagonType;
+import com.tickets.repository.TrainRepository;
+import com.tickets.repository.WagonRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class TrainServiceTest {
+    private TrainService trainService;
+
+    @BeforeEach
+    void setUp() {
+        trainService = new TrainService(mock(TrainRepository.class), mock(WagonRepository.class),
+                mock(SeatAvailabilityService.class), mock(RollingStockCache.class));
+    }
+
+    @Test
+    void layoutWithinSeatLimitsIsValid() {
+        assertTrue(trainService.isValidLayout(layout(TrainLayout.MAX_SEATS / WagonLayout.MAX_SEATS, WagonLayout.MAX_SEATS)));
+    }
+
+    @Test
+    void layoutOverSeatLimitsIsInvalid() {
+        assertFalse(trainService.isValidLayout(layout(1, WagonLayout.MAX_SEATS + 1)));
+        assertFalse(trainService.isValidLayout(layout(TrainLayout.MAX_SEATS / WagonLayout.MAX_SEATS + 1, WagonLayout.MAX_SEATS)));
+        assertFalse(trainService.isValidLayout(layout(1, Integer.MAX_VALUE)));
+        assertFalse(trainService.isValidLayout(layout(TrainLayout.MAX_WAGONS + 1, 0)));
+    }
+
+    private static TrainLayout layout(int wagons, int seatsPerWagon) {
+        WagonLayout wagonLayout = new WagonLayout();
+        wagonLayout.setWagonType(WagonType.Open_Coach);
+        wagonLayout.setSeats(Map.of(SeatType.Window, seatsPerWagon));
+        TrainLayout layout = new TrainLayout();
+        layout.setWagons(new ArrayList<>(Collections.nCopies(wagons, wagonLayout)));
+        return layout;
+    }
+}